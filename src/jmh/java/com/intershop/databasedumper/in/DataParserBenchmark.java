@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import com.intershop.databasedumper.ex.XmlDataWriter;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Compares the former SAX parser of the XML data files with the
+ * stream reader. The data file has ids, names, timestamps, texts
+ * and binary values; the throughput in MB/s is the size of the
+ * data file times the operations per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DataParserBenchmark
+{
+    private static final Logger LOG = LoggerFactory.getLogger(DataParserBenchmark.class);
+
+    private static final int ROWS = 10000;
+
+    private byte[] dataFile;
+    private SAXParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ParserConfigurationException, SAXException
+    {
+        Table table = new Table();
+        table.setName("BENCH");
+        addColumn(table, "ID", Types.BIGINT);
+        addColumn(table, "NAME", Types.VARCHAR);
+        addColumn(table, "MODIFIED", Types.TIMESTAMP);
+        addColumn(table, "DESCRIPTION", Types.CLOB);
+        addColumn(table, "CONTENT", Types.BLOB);
+
+        Random random = new Random(42);
+        char[] text = new char[2000];
+        byte[] content = new byte[4096];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XmlDataWriter writer = new XmlDataWriter(table, out);
+        for (int i = 1; i <= ROWS; ++i)
+        {
+            writer.startRow();
+            writer.writeLong(i);
+            writer.writeString("name " + i);
+            writer.writeDateTime(new Date(1483228800000L + i * 1001L));
+            if (i % 4 == 0)
+            {
+                writer.writeNull();
+                writer.writeNull();
+            }
+            else
+            {
+                Arrays.fill(text, (char)('a' + i % 26));
+                writer.writeString(new String(text, 0, 200 + random.nextInt(1800)) + " & <end>");
+                random.nextBytes(content);
+                writer.writeBinary(new ByteArrayInputStream(content, 0, 512 + random.nextInt(3584)));
+            }
+            writer.endRow();
+        }
+        writer.finish();
+        dataFile = out.toByteArray();
+        parser = SAXParserFactory.newInstance().newSAXParser();
+        LOG.info("Size of the data file: {} bytes", dataFile.length);
+    }
+
+    private static void addColumn(final Table table, final String label, final int type)
+    {
+        Column column = new Column();
+        column.setLabel(label);
+        column.setType(type);
+        table.addColumn(column);
+    }
+
+    @Benchmark
+    public void parseSax(final Blackhole blackhole) throws IOException, SAXException
+    {
+        DataTableParser handler = new DataTableParser();
+        parser.parse(new ByteArrayInputStream(dataFile), handler);
+        blackhole.consume(handler.getDataTable());
+    }
+
+    @Benchmark
+    public void readStream(final Blackhole blackhole) throws IOException, XMLStreamException, SQLException
+    {
+        blackhole.consume(new XmlDataReader(new ByteArrayInputStream(dataFile)).read(blackhole::consume));
+    }
+}
@@ -32,6 +32,8 @@ import java.math.BigDecimal;
  * Reads the XML object with all required table information.
  * This object is stored in the export package and used
  * for pre verification before the import runs.
+ * This is the former SAX parser of the XML data files,
+ * it is kept as baseline of the parser benchmark.
  */
 class DataTableParser extends DefaultHandler
 {
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Compares the JDBC batches of single row inserts
+ * with multi-row inserts on H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InsertBenchmark
+{
+    private static final int ROWS = 10000;
+
+    private Connection con;
+    private Table table;
+    private List<List<Object>> importRows;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException
+    {
+        con = DriverManager.getConnection("jdbc:h2:mem:insert;DB_CLOSE_DELAY=-1");
+        try (Statement stm = con.createStatement())
+        {
+            stm.execute("create table BENCH(ID bigint, QUANTITY integer, FLAG smallint, PRICE decimal(14,4), "
+                            + "NAME varchar(100), MODIFIED timestamp)");
+        }
+
+        table = new Table();
+        table.setName("BENCH");
+        addColumn("ID", Types.BIGINT);
+        addColumn("QUANTITY", Types.INTEGER);
+        addColumn("FLAG", Types.SMALLINT);
+        addColumn("PRICE", Types.DECIMAL);
+        addColumn("NAME", Types.VARCHAR);
+        addColumn("MODIFIED", Types.TIMESTAMP);
+
+        importRows = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; ++i)
+        {
+            List<Object> row = new ArrayList<>();
+            row.add(BigDecimal.valueOf(i));
+            row.add(BigDecimal.valueOf(i % 1000));
+            row.add(BigDecimal.valueOf(i % 2));
+            row.add(BigDecimal.valueOf(i, 4));
+            row.add("name " + i);
+            row.add(new Date(1483228800000L + i * 1000L));
+            importRows.add(row);
+        }
+    }
+
+    private void addColumn(final String label, final int type)
+    {
+        Column column = new Column();
+        column.setLabel(label);
+        column.setType(type);
+        table.addColumn(column);
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws SQLException
+    {
+        try (Statement stm = con.createStatement())
+        {
+            stm.execute("truncate table BENCH");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException
+    {
+        con.close();
+    }
+
+    @Benchmark
+    public void batchInsert() throws SQLException
+    {
+        try (RowSink sink = new BatchInsert(table, con, ImportHandler.MAX_ROWS))
+        {
+            for (List<Object> row : importRows)
+            {
+                sink.write(row);
+            }
+        }
+    }
+
+    @Benchmark
+    public void multiRowInsert() throws SQLException
+    {
+        try (RowSink sink = new MultiRowInsert(table, con, ImportHandler.MAX_ROWS, SupportedDatabase.H2))
+        {
+            for (List<Object> row : importRows)
+            {
+                sink.write(row);
+            }
+        }
+    }
+}
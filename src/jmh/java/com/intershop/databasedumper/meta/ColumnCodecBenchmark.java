@@ -0,0 +1,292 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.meta;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the column codecs with the former
+ * switch on the column type for each value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ColumnCodecBenchmark
+{
+    private static final int ROWS = 10000;
+
+    private Connection con;
+    private Table table;
+    private List<List<Object>> importRows;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException, DatatypeConfigurationException
+    {
+        con = DriverManager.getConnection("jdbc:h2:mem:codec;DB_CLOSE_DELAY=-1");
+        try (Statement stm = con.createStatement())
+        {
+            stm.execute("create table BENCH(ID bigint, QUANTITY integer, FLAG smallint, PRICE decimal(14,4), "
+                            + "NAME varchar(100), MODIFIED timestamp)");
+            stm.execute("insert into BENCH select X, mod(X, 1000), mod(X, 2), X / 7.0, 'name ' || X, "
+                            + "dateadd('SECOND', X, timestamp '2017-01-01 00:00:00') from system_range(1, " + ROWS + ")");
+        }
+
+        table = new Table();
+        table.setName("BENCH");
+        try (PreparedStatement stm = con.prepareStatement("select * from BENCH"))
+        {
+            ResultSetMetaData metaData = stm.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); ++i)
+            {
+                Column column = new Column();
+                column.setLabel(metaData.getColumnLabel(i));
+                column.setType(metaData.getColumnType(i));
+                table.addColumn(column);
+            }
+        }
+
+        DatatypeFactory factory = DatatypeFactory.newInstance();
+        importRows = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; ++i)
+        {
+            List<Object> row = new ArrayList<>();
+            row.add(BigDecimal.valueOf(i));
+            row.add(BigDecimal.valueOf(i % 1000));
+            row.add(BigDecimal.valueOf(i % 2));
+            row.add(BigDecimal.valueOf(i, 4));
+            row.add("name " + i);
+            GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+            cal.setTimeInMillis(1483228800000L + i * 1000L);
+            row.add(factory.newXMLGregorianCalendar(cal));
+            importRows.add(row);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException
+    {
+        con.close();
+    }
+
+    @Benchmark
+    public void readSwitch(final Blackhole blackhole) throws SQLException
+    {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        try (PreparedStatement stm = con.prepareStatement("select * from BENCH"); ResultSet resultSet = stm.executeQuery())
+        {
+            while(resultSet.next())
+            {
+                for (Column column : table.getColumns())
+                {
+                    switch(column.getType())
+                    {
+                        case Types.NUMERIC:
+                        case Types.DOUBLE:
+                        case Types.DECIMAL:
+                        case Types.FLOAT:
+                        case Types.BIT:
+                        case Types.BIGINT:
+                        case Types.SMALLINT:
+                        case Types.INTEGER:
+                        case Types.TINYINT:
+                            blackhole.consume(resultSet.getBigDecimal(column.getLabel()));
+                            break;
+                        case Types.VARCHAR:
+                        case Types.NVARCHAR:
+                            blackhole.consume(resultSet.getString(column.getLabel()));
+                            break;
+                        case Types.TIMESTAMP:
+                        case Types.TIME:
+                            Date resultDate = resultSet.getDate(column.getLabel(), cal);
+                            Time resultsTime = resultSet.getTime(column.getLabel(), cal);
+                            Date d = null;
+                            if (null != resultDate && null != resultsTime)
+                            {
+                                d = new Date(resultDate.getTime() + resultsTime.getTime());
+                            }
+                            blackhole.consume(d);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported type: " + column.getLabel());
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void readCodec(final Blackhole blackhole) throws Exception
+    {
+        TableCodec codec = new TableCodec(table);
+        ValueWriter writer = new BlackholeWriter(blackhole);
+        try (PreparedStatement stm = con.prepareStatement("select * from BENCH"); ResultSet resultSet = stm.executeQuery())
+        {
+            while(resultSet.next())
+            {
+                codec.read(resultSet, writer);
+            }
+        }
+    }
+
+    @Benchmark
+    public void bindSwitch() throws SQLException
+    {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        try (PreparedStatement stm = con.prepareStatement("select ?, ?, ?, ?, ?, ? from dual"))
+        {
+            for (List<Object> row : importRows)
+            {
+                int index = 0;
+                for (Column column : table.getColumns())
+                {
+                    Object obj = row.get(index);
+                    ++index;
+                    switch(column.getType())
+                    {
+                        case Types.NUMERIC:
+                        case Types.DOUBLE:
+                        case Types.DECIMAL:
+                        case Types.FLOAT:
+                        case Types.BIT:
+                        case Types.BIGINT:
+                        case Types.SMALLINT:
+                        case Types.INTEGER:
+                        case Types.TINYINT:
+                            stm.setBigDecimal(index, (BigDecimal)obj);
+                            break;
+                        case Types.VARCHAR:
+                        case Types.NVARCHAR:
+                            stm.setString(index, (String)obj);
+                            break;
+                        case Types.TIMESTAMP:
+                        case Types.TIME:
+                            Timestamp timestamp = null;
+                            XMLGregorianCalendar xmlCal = (XMLGregorianCalendar)obj;
+                            if (xmlCal != null)
+                            {
+                                timestamp = new Timestamp(xmlCal.toGregorianCalendar().getTimeInMillis());
+                            }
+                            stm.setTimestamp(index, timestamp, cal);
+                            break;
+                        default:
+                            throw new IllegalStateException("Unsupported type: " + column.getLabel());
+                    }
+                }
+                stm.clearParameters();
+            }
+        }
+    }
+
+    @Benchmark
+    public void bindCodec() throws SQLException
+    {
+        TableCodec codec = new TableCodec(table);
+        try (PreparedStatement stm = con.prepareStatement("select ?, ?, ?, ?, ?, ? from dual"))
+        {
+            for (List<Object> row : importRows)
+            {
+                codec.bind(stm, row);
+                stm.clearParameters();
+            }
+        }
+    }
+
+    private static class BlackholeWriter implements ValueWriter
+    {
+        private final Blackhole blackhole;
+
+        BlackholeWriter(final Blackhole blackhole)
+        {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void writeNull()
+        {
+            blackhole.consume(null);
+        }
+
+        @Override
+        public void writeLong(final long value)
+        {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void writeDecimal(final BigDecimal value)
+        {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void writeString(final String value)
+        {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void writeString(final Reader reader)
+        {
+            blackhole.consume(reader);
+        }
+
+        @Override
+        public void writeDateTime(final java.util.Date value)
+        {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void writeBinary(final InputStream in)
+        {
+            blackhole.consume(in);
+        }
+    }
+}
@@ -15,29 +15,95 @@
  */
 package com.intershop.gradle.databasedumper
 
+import com.intershop.databasedumper.ArchiveFormat
+import com.intershop.databasedumper.ArchiveLayout
+import com.intershop.databasedumper.CompressionCodec
 import com.intershop.databasedumper.DatabaseDumper
 import groovy.transform.CompileStatic
 import org.gradle.api.GradleException
-import org.gradle.api.tasks.OutputFile
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.Internal
+import org.gradle.api.tasks.Optional
 import org.gradle.api.tasks.TaskAction
 
 @CompileStatic
 class DBDumperExportTask extends AbstractDBDumperTask {
 
-    @OutputFile
+    /**
+     * The package is a zip file, a set of zip volumes or
+     * a directory, so it is not declared as task output.
+     */
+    @Internal
     File contentFile
 
+    @Optional
+    @Input
+    int exportThreads
+
+    @Optional
+    @Input
+    int exportPartitions
+
+    @Optional
+    @Input
+    long partitionMinRows
+
+    @Optional
+    @Input
+    int chunkSize
+
+    @Optional
+    @Input
+    int fetchSize
+
+    @Optional
+    @Input
+    String archiveFormat
+
+    @Optional
+    @Input
+    String compression
+
+    @Optional
+    @Input
+    Map<String, String> tableCompression
+
+    @Optional
+    @Input
+    String archiveLayout
+
+    @Optional
+    @Input
+    int volumeSize
+
+    @Optional
+    @Input
+    boolean resumeExport
+
     DBDumperExportTask() {
         super()
+
+        exportThreads = 1
+        exportPartitions = 1
+        partitionMinRows = 1000000
+        chunkSize = 64
+        fetchSize = 0
+        archiveFormat = 'xml'
+        compression = 'deflate:6'
+        tableCompression = [:]
+        archiveLayout = 'zip'
+        volumeSize = 0
+        resumeExport = false
     }
 
     @TaskAction
     void exportDB() {
         // check export file
         File contentFile = getContentFile()
-        if(contentFile.exists()) {
-            throw new GradleException("The export file ${contentFile.absolutePath} exists. Please remove this file before you run the task again.")
+        if(ArchiveLayout.exists(contentFile) && ! getResumeExport()) {
+            throw new GradleException("The export file ${contentFile.absolutePath} exists. Please remove this file or resume the export before you run the task again.")
         }
+        contentFile.absoluteFile.parentFile.mkdirs()
 
         // initialize dumper
         DatabaseDumper dumper = new DatabaseDumper(getJdbcUrl(),
@@ -46,6 +112,15 @@ class DBDumperExportTask extends AbstractDBDumperTask {
                 getContentFile(),
                 getRowLimit(),
                 getBlackListedTables())
+        dumper.setExportThreads(getExportThreads())
+        dumper.setExportPartitions(getExportPartitions(), getPartitionMinRows())
+        dumper.setExportChunkSize(getChunkSize())
+        dumper.setExportFetchSize(getFetchSize())
+        dumper.setExportFormat(ArchiveFormat.forName(getArchiveFormat()))
+        dumper.setExportCompression(CompressionCodec.forName(getCompression()),
+                CompressionCodec.forTables(getTableCompression().collect { String table, String codec -> "${table}=${codec}".toString() }.join(',')))
+        dumper.setExportLayout(ArchiveLayout.forName(getArchiveLayout()), getVolumeSize())
+        dumper.setExportResume(getResumeExport())
 
         // run export
         if(! dumper.runExport()) {
@@ -15,23 +15,84 @@
  */
 package com.intershop.gradle.databasedumper
 
+import com.intershop.databasedumper.ArchiveLayout
+import com.intershop.databasedumper.ImportLoader
 import com.intershop.databasedumper.DatabaseDumper
 import groovy.transform.CompileStatic
 import org.gradle.api.GradleException
-import org.gradle.api.tasks.InputFile
+import org.gradle.api.file.FileCollection
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.Internal
+import org.gradle.api.tasks.Optional
 import org.gradle.api.tasks.TaskAction
 
 @CompileStatic
 class DBDumperImportTask extends AbstractDBDumperTask {
 
-    @InputFile
+    @Internal
     File contentFile
 
+    /**
+     * The zip file, the zip volumes or the directory of the package.
+     */
+    @InputFiles
+    FileCollection getContentFiles() {
+        File file = getContentFile()
+        List<File> volumes = ArchiveLayout.getVolumes(file)
+        return project.files(volumes.isEmpty() ? file : volumes)
+    }
+
+    @Optional
+    @Input
+    int importThreads
+
+    @Optional
+    @Input
+    String importLoader
+
+    @Optional
+    @Input
+    boolean rebuildIndexes
+
+    @Optional
+    @Input
+    List<String> keepIndexes
+
+    @Optional
+    @Input
+    int deleteThreads
+
+    @Optional
+    @Input
+    boolean deferredValidation
+
+    @Optional
+    @Input
+    boolean dependencyOrder
+
+    @Optional
+    @Input
+    boolean resumeImport
+
+    DBDumperImportTask() {
+        super()
+
+        importThreads = 1
+        importLoader = 'batch'
+        rebuildIndexes = false
+        keepIndexes = []
+        deleteThreads = 4
+        deferredValidation = false
+        dependencyOrder = false
+        resumeImport = false
+    }
+
     @TaskAction
     void importDB() {
         // validate file
         File contentFile = getContentFile()
-        if(! contentFile.exists()) {
+        if(! ArchiveLayout.exists(contentFile)) {
             throw new GradleException("The import file ${contentFile.absolutePath} does not exist.")
         }
 
@@ -43,6 +104,13 @@ class DBDumperImportTask extends AbstractDBDumperTask {
                 getContentFile(),
                 getRowLimit(),
                 getBlackListedTables())
+        dumper.setImportThreads(getImportThreads())
+        dumper.setImportLoader(ImportLoader.forName(getImportLoader()))
+        dumper.setImportIndexRebuild(getRebuildIndexes(), new HashSet<String>(getKeepIndexes()))
+        dumper.setImportDeleteThreads(getDeleteThreads())
+        dumper.setImportDeferredValidation(getDeferredValidation())
+        dumper.setImportDependencyOrder(getDependencyOrder())
+        dumper.setImportResume(getResumeImport())
 
         // run import
         if(! dumper.runImport()) {
@@ -34,6 +34,44 @@ import org.gradle.api.Project
  *      rowlimit
  *
  *      tableBlacklist = []
+ *
+ *      exportThreads
+ *
+ *      exportPartitions
+ *
+ *      partitionMinRows
+ *
+ *      chunkSize
+ *
+ *      fetchSize
+ *
+ *      archiveFormat
+ *
+ *      compression
+ *
+ *      tableCompression = [:]
+ *
+ *      archiveLayout
+ *
+ *      volumeSize
+ *
+ *      resumeExport
+ *
+ *      importThreads
+ *
+ *      importLoader
+ *
+ *      rebuildIndexes
+ *
+ *      keepIndexes = []
+ *
+ *      deleteThreads
+ *
+ *      deferredValidation
+ *
+ *      dependencyOrder
+ *
+ *      resumeImport
  *   }
  *
  **/
@@ -51,6 +89,25 @@ class DatabaseDumperExtension {
 
         this.rowLimit = 0
         this.tableBlacklist = []
+        this.exportThreads = 1
+        this.exportPartitions = 1
+        this.partitionMinRows = 1000000
+        this.chunkSize = 64
+        this.fetchSize = 0
+        this.archiveFormat = 'xml'
+        this.compression = 'deflate:6'
+        this.tableCompression = [:]
+        this.archiveLayout = 'zip'
+        this.volumeSize = 0
+        this.resumeExport = false
+        this.importThreads = 1
+        this.importLoader = 'batch'
+        this.rebuildIndexes = false
+        this.keepIndexes = []
+        this.deleteThreads = 4
+        this.deferredValidation = false
+        this.dependencyOrder = false
+        this.resumeImport = false
     }
 
     /**
@@ -81,4 +138,135 @@ class DatabaseDumperExtension {
      */
     List<String> tableBlacklist
 
+    /**
+     * Number of tables that are exported at the same
+     * time. Each worker uses its own database connection.
+     */
+    int exportThreads
+
+    /**
+     * Number of key ranges of a large table. The
+     * ranges are exported at the same time.
+     * The value 1 exports all tables completely.
+     */
+    int exportPartitions
+
+    /**
+     * Minimum number of rows of a large table,
+     * which is exported in key ranges.
+     */
+    long partitionMinRows
+
+    /**
+     * Size of an exported data file in MB. A table is
+     * split into several files, if this size or the
+     * row limit is reached. The value 0 uses only the
+     * row limit.
+     */
+    int chunkSize
+
+    /**
+     * Number of rows, which are fetched with one
+     * round-trip during the export. The value 0
+     * uses the default of the database.
+     */
+    int fetchSize
+
+    /**
+     * Format of the exported data files,
+     * 'xml' or 'binary'. The import detects
+     * the format of the data files.
+     */
+    String archiveFormat
+
+    /**
+     * Compression of the exported data files,
+     * 'deflate[:level]', 'stored', 'lz4' or
+     * 'zstd[:level]'.
+     */
+    String compression
+
+    /**
+     * Compression of single tables, the key
+     * is the table name and the value the
+     * compression.
+     */
+    Map<String, String> tableCompression
+
+    /**
+     * Layout of the export, 'zip' or 'directory'.
+     * The import detects the layout.
+     */
+    String archiveLayout
+
+    /**
+     * Size of a zip volume in MB. The export
+     * is split into 'name.001.zip', 'name.002.zip'
+     * and so on. The value 0 writes a single zip file.
+     */
+    int volumeSize
+
+    /**
+     * Resume an interrupted export with
+     * the journal next to the package.
+     * Completed tables are not read again.
+     */
+    boolean resumeExport
+
+    /**
+     * Number of data files that are imported
+     * at the same time. Each worker uses its
+     * own database connection.
+     */
+    int importThreads
+
+    /**
+     * Loader of the import, 'bulk' uses the
+     * fast path of the database, 'batch'
+     * JDBC batches of single row inserts and
+     * 'multirow' statements with several rows.
+     */
+    String importLoader
+
+    /**
+     * Disable the non-unique secondary
+     * indexes before the import and rebuild
+     * them in parallel afterwards.
+     */
+    boolean rebuildIndexes
+
+    /**
+     * Tables, whose indexes are kept
+     * during the import.
+     */
+    List<String> keepIndexes
+
+    /**
+     * Number of tables that are deleted
+     * at the same time before the import,
+     * the largest tables first.
+     */
+    int deleteThreads
+
+    /**
+     * Enable the foreign keys after
+     * the import without a check and
+     * validate them in parallel afterwards.
+     */
+    boolean deferredValidation
+
+    /**
+     * Import the referenced tables
+     * first, only the foreign keys of
+     * tables in cycles are disabled.
+     */
+    boolean dependencyOrder
+
+    /**
+     * Resume an interrupted import with
+     * the journal next to the package.
+     * Imported data files are skipped.
+     */
+    boolean resumeImport
+
 }
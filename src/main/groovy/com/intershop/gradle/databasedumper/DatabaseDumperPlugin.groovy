@@ -76,6 +76,14 @@ class DatabaseDumperPlugin implements Plugin<Project> {
         dbImportTask.conventionMapping.rowLimit = { extension.getRowLimit() }
         dbImportTask.conventionMapping.blackListedTables = { extension.getTableBlacklist() }
         dbImportTask.conventionMapping.contentFile = { extension.getContentFile() }
+        dbImportTask.conventionMapping.importThreads = { extension.getImportThreads() }
+        dbImportTask.conventionMapping.importLoader = { extension.getImportLoader() }
+        dbImportTask.conventionMapping.rebuildIndexes = { extension.getRebuildIndexes() }
+        dbImportTask.conventionMapping.keepIndexes = { extension.getKeepIndexes() }
+        dbImportTask.conventionMapping.deleteThreads = { extension.getDeleteThreads() }
+        dbImportTask.conventionMapping.deferredValidation = { extension.getDeferredValidation() }
+        dbImportTask.conventionMapping.dependencyOrder = { extension.getDependencyOrder() }
+        dbImportTask.conventionMapping.resumeImport = { extension.getResumeImport() }
 
 
         DBDumperExportTask dbExportTask = project.tasks.maybeCreate(DBEXPORT_TASK, DBDumperExportTask)
@@ -89,5 +97,16 @@ class DatabaseDumperPlugin implements Plugin<Project> {
         dbExportTask.conventionMapping.rowLimit = { extension.getRowLimit() }
         dbExportTask.conventionMapping.blackListedTables = { extension.getTableBlacklist() }
         dbExportTask.conventionMapping.contentFile = { extension.getContentFile() }
+        dbExportTask.conventionMapping.exportThreads = { extension.getExportThreads() }
+        dbExportTask.conventionMapping.exportPartitions = { extension.getExportPartitions() }
+        dbExportTask.conventionMapping.partitionMinRows = { extension.getPartitionMinRows() }
+        dbExportTask.conventionMapping.chunkSize = { extension.getChunkSize() }
+        dbExportTask.conventionMapping.fetchSize = { extension.getFetchSize() }
+        dbExportTask.conventionMapping.archiveFormat = { extension.getArchiveFormat() }
+        dbExportTask.conventionMapping.compression = { extension.getCompression() }
+        dbExportTask.conventionMapping.tableCompression = { extension.getTableCompression() }
+        dbExportTask.conventionMapping.archiveLayout = { extension.getArchiveLayout() }
+        dbExportTask.conventionMapping.volumeSize = { extension.getVolumeSize() }
+        dbExportTask.conventionMapping.resumeExport = { extension.getResumeExport() }
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper;
+
+import java.util.Locale;
+
+/**
+ * Formats of the data files in the export package.
+ * The format of a data file is identified by the
+ * extension of the file, so that packages with
+ * XML data files can be imported unchanged.
+ */
+public enum ArchiveFormat {
+
+    XML (".xml"),
+    BINARY (".bin");
+
+    private final String extension;
+
+    ArchiveFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns the format of a data file in the package.
+     * @param entryName the name of the data file
+     * @return the format of the data file
+     */
+    public static ArchiveFormat forEntry(String entryName) {
+        return entryName.endsWith(BINARY.extension) ? BINARY : XML;
+    }
+
+    /**
+     * Returns the format for a configured name.
+     * @param name the name of the format, e.g. 'xml' or 'binary'
+     * @return the format
+     */
+    public static ArchiveFormat forName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown archive format " + name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+}
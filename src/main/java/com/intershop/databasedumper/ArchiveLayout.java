@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Layouts of the export package.
+ * A zip package is a single zip file or, with a
+ * volume size, a set of zip volumes 'dump.001.zip',
+ * 'dump.002.zip' and so on. Each volume is a complete
+ * zip file. A directory package contains each data
+ * file as its own compressed file.
+ */
+public enum ArchiveLayout {
+
+    ZIP,
+    DIRECTORY;
+
+    /**
+     * Returns the layout for a configured name.
+     * @param name the name of the layout, e.g. 'zip' or 'directory'
+     * @return the layout
+     */
+    public static ArchiveLayout forName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown archive layout " + name, e);
+        }
+    }
+
+    /**
+     * Returns the file of a zip volume, e.g. 'dump.002.zip' for 'dump.zip'.
+     * @param contentFile the configured package file
+     * @param volume the number of the volume, starting with 1
+     * @return the file of the volume
+     */
+    public static File getVolume(File contentFile, int volume) {
+        String name = contentFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : ".zip";
+        return new File(contentFile.getAbsoluteFile().getParentFile(), String.format("%s.%03d%s", base, volume, extension));
+    }
+
+    /**
+     * Returns the zip files of a package. This is the
+     * package file itself or all existing volumes.
+     * @param contentFile the configured package file
+     * @return the zip files of the package, empty for a directory or a missing package
+     */
+    public static List<File> getVolumes(File contentFile) {
+        List<File> volumes = new ArrayList<>();
+        if (contentFile.isFile()) {
+            volumes.add(contentFile);
+        } else if (!contentFile.isDirectory()) {
+            File volume;
+            while ((volume = getVolume(contentFile, volumes.size() + 1)).isFile()) {
+                volumes.add(volume);
+            }
+        }
+        return volumes;
+    }
+
+    /**
+     * Checks if a package exists in any layout.
+     * @param contentFile the configured package file
+     * @return <code>true</code> if the file, the directory or the first volume exists
+     */
+    public static boolean exists(File contentFile) {
+        return contentFile.exists() || getVolume(contentFile, 1).exists();
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+}
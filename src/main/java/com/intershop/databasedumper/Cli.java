@@ -21,10 +21,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.cli.CommandLine;
@@ -37,6 +40,8 @@ import org.apache.commons.cli.Options;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.intershop.databasedumper.in.Importer;
+
 /**
  * Command line interface implementation.
  */
@@ -48,7 +53,7 @@ class Cli {
 	private static final String JDBC_USER_NAME_PROPERTY = "intershop.jdbc.user";
 	private static final String JDBC_USER_PASSWORD_PROPERTY = "intershop.jdbc.password";
 
-	private static final String USAGE = "[-e | -i] -f <file> -p <file> [-b <file>] [-r <number>]";
+	private static final String USAGE = "[-e | -i | -s] -f <file> -p <file> [-b <file>] [-r <number>] [--threads <number>] [--partitions <number>] [--partitionrows <number>] [--chunksize <number>] [--fetchsize <number>] [--format <xml|binary>] [--compression <codec>] [--tablecompression <TABLE=codec,...>] [--layout <zip|directory>] [--volumesize <number>] [--loader <bulk|batch|multirow>] [--rebuildindexes] [--keepindexes <TABLE,...>] [--deletethreads <number>] [--deferredvalidation] [--dependencyorder] [--resume]";
 	private static final String HEADER = "databaseDumper - This programm is for creating backups of database table content and restore "
 			+ "it back into a database with the same table-schema. The connection information for the database will be read from a "
 			+ "properties file. Copyright 2017 Intershop Communications AG.";
@@ -58,6 +63,7 @@ class Cli {
 
 	private boolean exportConf = false;
 	private boolean importConf = false;
+	private boolean statConf = false;
 
 	private boolean forceImport = false;
 	
@@ -71,6 +77,40 @@ class Cli {
 
 	private int rowLimit = 0;
 
+	private int threads = 1;
+
+	private int partitions = 1;
+
+	private int partitionMinRows = 0;
+
+	private int chunkSize = DatabaseDumper.DEFAULT_CHUNK_SIZE;
+
+	private int fetchSize = 0;
+
+	private ArchiveFormat format = ArchiveFormat.XML;
+
+	private CompressionCodec compression = CompressionCodec.DEFAULT;
+
+	private Map<String, CompressionCodec> tableCompression = Collections.emptyMap();
+
+	private ArchiveLayout layout = ArchiveLayout.ZIP;
+
+	private int volumeSize = 0;
+
+	private ImportLoader loader = ImportLoader.BATCH;
+
+	private boolean rebuildIndexes = false;
+
+	private Set<String> keepIndexTables = Collections.emptySet();
+
+	private int deleteThreads = Importer.DEFAULT_DELETE_THREADS;
+
+	private boolean deferredValidation = false;
+
+	private boolean dependencyOrder = false;
+
+	private boolean resume = false;
+
 	/**
 	 * Constructor for command line helper
 	 */
@@ -84,6 +124,10 @@ class Cli {
 				.desc("Import mode to write data file to database. NOTE: Affected tables are cleared before the import!")
 				.build());
 
+		expOrImp.addOption(Option.builder("s").longOpt("stat").hasArg(false)
+				.desc("Print the tables, data files, rows and sizes of the dump-file from its manifest. No properties file is necessary.")
+				.build());
+
 		expOrImp.addOption(
 				Option.builder("h").longOpt("help").hasArg(false).desc("Show usage of databaseDumper").build());
 
@@ -92,10 +136,10 @@ class Cli {
 		options.addOptionGroup(expOrImp);
 
 		options.addOption(Option.builder("f").longOpt("file").hasArg(true).required(true)
-				.desc("Path to the dump-file. File is loaded tp database with import. File will be created with export. Export fails if file already exists.")
+				.desc("Path to the dump-file. File is loaded tp database with import. File will be created with export. Export fails if file already exists and the export is not resumed.")
 				.build());
 
-		options.addOption(Option.builder("p").longOpt("properties").hasArg(true).required(true)
+		options.addOption(Option.builder("p").longOpt("properties").hasArg(true).required(false)
 				.desc("Path to the properties file with database connection configuration.").build());
 
 		options.addOption(Option.builder("b").longOpt("blacklist").hasArg(true)
@@ -104,6 +148,57 @@ class Cli {
 		options.addOption(Option.builder("r").longOpt("rowlimit").hasArg(true)
 				.desc("Maximum number of rows that will be processed as a batch.").build());
 
+		options.addOption(Option.builder().longOpt("threads").hasArg(true)
+				.desc("Number of tables that are exported or data files that are imported at the same time. Each worker uses its own database connection.").build());
+
+		options.addOption(Option.builder().longOpt("partitions").hasArg(true)
+				.desc("Number of key ranges of a large table, which are exported at the same time.").build());
+
+		options.addOption(Option.builder().longOpt("partitionrows").hasArg(true)
+				.desc("Minimum number of rows of a large table, which is exported in key ranges (default 1000000).").build());
+
+		options.addOption(Option.builder().longOpt("chunksize").hasArg(true)
+				.desc("Size of an exported data file in MB (default 64), 0 uses only the row limit. The row limit is used as an additional upper bound.").build());
+
+		options.addOption(Option.builder().longOpt("fetchsize").hasArg(true)
+				.desc("Number of rows that are fetched with one round-trip during the export (default depends on the database).").build());
+
+		options.addOption(Option.builder().longOpt("format").hasArg(true)
+				.desc("Format of the exported data files: xml or binary (default xml). The import detects the format.").build());
+
+		options.addOption(Option.builder().longOpt("compression").hasArg(true)
+				.desc("Compression of the exported data files: deflate[:level], stored, lz4 or zstd[:level] (default deflate:6).").build());
+
+		options.addOption(Option.builder().longOpt("tablecompression").hasArg(true)
+				.desc("Compression of single tables, e.g. 'PRODUCT=zstd:9,IMAGE=stored'.").build());
+
+		options.addOption(Option.builder().longOpt("layout").hasArg(true)
+				.desc("Layout of the export: zip or directory (default zip). The import detects the layout.").build());
+
+		options.addOption(Option.builder().longOpt("volumesize").hasArg(true)
+				.desc("Size of a zip volume in MB. The export is split into 'name.001.zip', 'name.002.zip' and so on.").build());
+
+		options.addOption(Option.builder().longOpt("loader").hasArg(true)
+				.desc("Loader of the import: bulk, the fast path of the database, batch, JDBC batches, or multirow, statements with several rows (default batch).").build());
+
+		options.addOption(Option.builder().longOpt("rebuildindexes").hasArg(false)
+				.desc("Disable the non-unique indexes before the import and rebuild them in parallel afterwards.").build());
+
+		options.addOption(Option.builder().longOpt("keepindexes").hasArg(true)
+				.desc("Tables, whose indexes are not disabled by --rebuildindexes, e.g. 'PRODUCT,BASKET'.").build());
+
+		options.addOption(Option.builder().longOpt("deletethreads").hasArg(true)
+				.desc("Number of tables that are deleted at the same time before the import, the largest tables first (default 4).").build());
+
+		options.addOption(Option.builder().longOpt("deferredvalidation").hasArg(false)
+				.desc("Enable the foreign keys after the import without a check and validate them in parallel afterwards.").build());
+
+		options.addOption(Option.builder().longOpt("dependencyorder").hasArg(false)
+				.desc("Import the referenced tables first, only the foreign keys of tables in cycles are disabled.").build());
+
+		options.addOption(Option.builder().longOpt("resume").hasArg(false)
+				.desc("Resume an interrupted export or import with the journal next to the dump-file.").build());
+
 		options.addOption(Option.builder("t").longOpt("testImport").hasArg(false).required(false)
 				.desc("Test the import run while the validation fails.").build());
 		
@@ -118,6 +213,10 @@ class Cli {
 		return importConf;
 	}
 
+	public boolean runStat() {
+		return statConf;
+	}
+
 	public boolean runForceImport() {
 		return forceImport;
 	}
@@ -146,6 +245,74 @@ class Cli {
 		return rowLimit;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getPartitions() {
+		return partitions;
+	}
+
+	public int getPartitionMinRows() {
+		return partitionMinRows;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public ArchiveFormat getFormat() {
+		return format;
+	}
+
+	public CompressionCodec getCompression() {
+		return compression;
+	}
+
+	public Map<String, CompressionCodec> getTableCompression() {
+		return tableCompression;
+	}
+
+	public ArchiveLayout getLayout() {
+		return layout;
+	}
+
+	public int getVolumeSize() {
+		return volumeSize;
+	}
+
+	public ImportLoader getLoader() {
+		return loader;
+	}
+
+	public boolean isRebuildIndexes() {
+		return rebuildIndexes;
+	}
+
+	public Set<String> getKeepIndexTables() {
+		return keepIndexTables;
+	}
+
+	public int getDeleteThreads() {
+		return deleteThreads;
+	}
+
+	public boolean isDeferredValidation() {
+		return deferredValidation;
+	}
+
+	public boolean isDependencyOrder() {
+		return dependencyOrder;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
 	private void parse(String[] args) throws Exception {
 
 		CommandLineParser parser = new DefaultParser();
@@ -161,6 +328,8 @@ class Cli {
 				exportConf = true;
 			} else if (cmd.hasOption("i")) {
 				importConf = true;
+			} else if (cmd.hasOption("s")) {
+				statConf = true;
 			}
 
 			if (cmd.hasOption("t"))
@@ -171,11 +340,11 @@ class Cli {
 			if (cmd.hasOption("f")) {
 				contentFile = new File(cmd.getOptionValue("f"));
 
-				if (cmd.hasOption("e") && contentFile.exists()) {
+				if (cmd.hasOption("e") && !cmd.hasOption("resume") && ArchiveLayout.exists(contentFile)) {
 					throw new Exception("The target file exists! Please change the file or remove the file ("
 							+ contentFile.getAbsolutePath() + ")");
 				}
-				if (cmd.hasOption("i") && !contentFile.exists()) {
+				if ((cmd.hasOption("i") || cmd.hasOption("s")) && !ArchiveLayout.exists(contentFile)) {
 					throw new Exception("The source file (" + contentFile.getAbsolutePath() + ") does not exists!");
 				}
 			} else {
@@ -205,7 +374,7 @@ class Cli {
 							"JDBC password is not configured in properties '" + propertiesFile.getAbsolutePath()
 									+ "'. Check file for '" + JDBC_USER_PASSWORD_PROPERTY + "'.");
 				}
-			} else {
+			} else if (!statConf) {
 				throw new Exception("It is necessary to specify a properties file with database connection parameter.");
 			}
 
@@ -236,12 +405,97 @@ class Cli {
 				}
 			}
 
+			if (cmd.hasOption("threads")) {
+				threads = parsePositiveNumber("threads", cmd.getOptionValue("threads"));
+			}
+
+			if (cmd.hasOption("partitions")) {
+				partitions = parsePositiveNumber("partitions", cmd.getOptionValue("partitions"));
+			}
+
+			if (cmd.hasOption("partitionrows")) {
+				partitionMinRows = parsePositiveNumber("partitionrows", cmd.getOptionValue("partitionrows"));
+			}
+
+			if (cmd.hasOption("chunksize")) {
+				chunkSize = parseNonNegativeNumber("chunksize", cmd.getOptionValue("chunksize"));
+			}
+
+			if (cmd.hasOption("fetchsize")) {
+				fetchSize = parsePositiveNumber("fetchsize", cmd.getOptionValue("fetchsize"));
+			}
+
+			if (cmd.hasOption("format")) {
+				format = ArchiveFormat.forName(cmd.getOptionValue("format"));
+			}
+
+			if (cmd.hasOption("compression")) {
+				compression = CompressionCodec.forName(cmd.getOptionValue("compression"));
+			}
+
+			if (cmd.hasOption("tablecompression")) {
+				tableCompression = CompressionCodec.forTables(cmd.getOptionValue("tablecompression"));
+			}
+
+			if (cmd.hasOption("layout")) {
+				layout = ArchiveLayout.forName(cmd.getOptionValue("layout"));
+			}
+
+			if (cmd.hasOption("volumesize")) {
+				volumeSize = parsePositiveNumber("volumesize", cmd.getOptionValue("volumesize"));
+			}
+
+			if (cmd.hasOption("loader")) {
+				loader = ImportLoader.forName(cmd.getOptionValue("loader"));
+			}
+
+			rebuildIndexes = cmd.hasOption("rebuildindexes");
+
+			if (cmd.hasOption("keepindexes")) {
+				keepIndexTables = Arrays.stream(cmd.getOptionValue("keepindexes").split(","))
+						.map(String::trim).filter(t -> !t.isEmpty()).collect(Collectors.toSet());
+			}
+
+			if (cmd.hasOption("deletethreads")) {
+				deleteThreads = parsePositiveNumber("deletethreads", cmd.getOptionValue("deletethreads"));
+			}
+
+			deferredValidation = cmd.hasOption("deferredvalidation");
+
+			dependencyOrder = cmd.hasOption("dependencyorder");
+
+			resume = cmd.hasOption("resume");
+
 		} catch (Exception e) {
 			LOG.error("Failed to parse comand line properties: {}", e.getMessage());
 			help();
 		}
 	}
 
+	private int parsePositiveNumber(String option, String value) throws Exception {
+		try {
+			int number = Integer.parseInt(value);
+			if (number > 0) {
+				return number;
+			}
+		} catch (NumberFormatException nfe) {
+			LOG.debug("The {} parameter is not a number.", option, nfe);
+		}
+		throw new Exception("The " + option + " parameter must be a positive number, but it is '" + value + "'.");
+	}
+
+	private int parseNonNegativeNumber(String option, String value) throws Exception {
+		try {
+			int number = Integer.parseInt(value);
+			if (number >= 0) {
+				return number;
+			}
+		} catch (NumberFormatException nfe) {
+			LOG.debug("The {} parameter is not a number.", option, nfe);
+		}
+		throw new Exception("The " + option + " parameter must be a non-negative number, but it is '" + value + "'.");
+	}
+
 	private void help() {
 		HelpFormatter helpFormatter = new HelpFormatter();
 		helpFormatter.setWidth(100);
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+/**
+ * Compression of an entry in the export package.
+ * Deflate and stored entries are standard zip entries.
+ * LZ4 and Zstandard entries are stored zip entries with
+ * compressed content. The name of such an entry has the
+ * suffix of the codec, so that the import detects the
+ * codec of each entry. In a directory package deflated
+ * data files are gzip files with the suffix '.gz'.
+ * The configuration is 'name[:level]', e.g. 'deflate:6',
+ * 'stored', 'lz4' or 'zstd:3'. Deflate levels are 0 to 9,
+ * Zstandard levels are 1 to 22, stored and LZ4 have no level.
+ */
+public final class CompressionCodec {
+
+    public enum Method {
+        DEFLATE ("", ".gz", 6, Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION),
+        STORED ("", ""),
+        LZ4 (".lz4", ".lz4"),
+        ZSTD (".zst", ".zst", 3, 1, 22);
+
+        private final String suffix;
+        private final String fileSuffix;
+        private final int defaultLevel;
+        private final int minLevel;
+        private final int maxLevel;
+
+        /**
+         * A method without a level.
+         */
+        Method(String suffix, String fileSuffix) {
+            this(suffix, fileSuffix, 0, 0, -1);
+        }
+
+        Method(String suffix, String fileSuffix, int defaultLevel, int minLevel, int maxLevel) {
+            this.suffix = suffix;
+            this.fileSuffix = fileSuffix;
+            this.defaultLevel = defaultLevel;
+            this.minLevel = minLevel;
+            this.maxLevel = maxLevel;
+        }
+
+        private boolean hasLevel() {
+            return minLevel <= maxLevel;
+        }
+    }
+
+    /**
+     * The default codec of the export, deflate with level 6.
+     */
+    public static final CompressionCodec DEFAULT = new CompressionCodec(Method.DEFLATE, Method.DEFLATE.defaultLevel);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Method method;
+    private final int level;
+
+    private CompressionCodec(Method method, int level) {
+        this.method = method;
+        this.level = level;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Checks if the entry is a deflated zip entry.
+     * @return <code>true</code> for deflate, <code>false</code> for stored entries
+     */
+    public boolean isDeflated() {
+        return method == Method.DEFLATE;
+    }
+
+    /**
+     * Returns the suffix of the entry name.
+     * @return the suffix or an empty string for standard zip entries
+     */
+    public String getSuffix() {
+        return method.suffix;
+    }
+
+    /**
+     * Returns the suffix of a data file in a directory package.
+     * @return the suffix or an empty string for uncompressed files
+     */
+    public String getFileSuffix() {
+        return method.fileSuffix;
+    }
+
+    /**
+     * Creates the stream, which compresses the content of an entry.
+     * Closing the returned stream closes the target.
+     * @param out the content of the zip entry
+     * @return the stream for the uncompressed data
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        switch (method) {
+            case LZ4:
+                return new FramedLZ4CompressorOutputStream(out);
+            case ZSTD:
+                return new ZstdOutputStream(out, level);
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * Creates the stream, which compresses a data file of a directory package.
+     * Closing the returned stream closes the target.
+     * @param out the data file
+     * @return the stream for the uncompressed data
+     */
+    public OutputStream compressFile(OutputStream out) throws IOException {
+        if (method == Method.DEFLATE) {
+            return new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+        return compress(out);
+    }
+
+    /**
+     * Creates the stream, which decompresses the content of an entry or a data file.
+     * @param entryName the name of the entry
+     * @param in the content of the zip entry
+     * @return the uncompressed content
+     */
+    public static InputStream decompress(String entryName, InputStream in) throws IOException {
+        if (entryName.endsWith(Method.LZ4.suffix)) {
+            return new FramedLZ4CompressorInputStream(in);
+        }
+        if (entryName.endsWith(Method.ZSTD.suffix)) {
+            return new ZstdInputStream(in);
+        }
+        if (entryName.endsWith(Method.DEFLATE.fileSuffix)) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    /**
+     * Removes the suffix of a codec from an entry or file name.
+     * @param entryName the name of the entry
+     * @return the name of the uncompressed content
+     */
+    public static String getContentName(String entryName) {
+        for (Method m : Method.values()) {
+            if (!m.fileSuffix.isEmpty() && entryName.endsWith(m.fileSuffix)) {
+                return entryName.substring(0, entryName.length() - m.fileSuffix.length());
+            }
+        }
+        return entryName;
+    }
+
+    /**
+     * Parses a codec configuration.
+     * @param value the configuration 'name[:level]'
+     * @return the codec
+     */
+    public static CompressionCodec forName(String value) {
+        String[] parts = value.trim().split(":", 2);
+        Method method;
+        try {
+            method = Method.valueOf(parts[0].trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown compression " + value, e);
+        }
+        int level = method.defaultLevel;
+        if (parts.length > 1) {
+            if (!method.hasLevel()) {
+                throw new IllegalArgumentException("The compression " + value + " has no level.");
+            }
+            try {
+                level = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The level of the compression " + value + " is not a number.", e);
+            }
+        }
+        if (method.hasLevel() && (level < method.minLevel || level > method.maxLevel)) {
+            throw new IllegalArgumentException("The level of the compression " + value + " must be between "
+                    + method.minLevel + " and " + method.maxLevel + ".");
+        }
+        return new CompressionCodec(method, level);
+    }
+
+    /**
+     * Parses table specific codecs.
+     * @param value comma separated list of 'TABLE=name[:level]'
+     * @return the codecs by upper case table name
+     */
+    public static Map<String, CompressionCodec> forTables(String value) {
+        Map<String, CompressionCodec> codecs = new LinkedHashMap<>();
+        for (String item : value.split(",")) {
+            if (item.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = item.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("The table compression " + item + " must be 'TABLE=compression'.");
+            }
+            codecs.put(parts[0].trim().toUpperCase(Locale.ENGLISH), forName(parts[1]));
+        }
+        return codecs;
+    }
+
+    @Override
+    public String toString() {
+        return method.name().toLowerCase(Locale.ENGLISH) + (method.hasLevel() ? ":" + level : "");
+    }
+}
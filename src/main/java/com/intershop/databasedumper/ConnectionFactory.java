@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Creates the necessary the database
+ * connection. All connections are
+ * taken from a shared pool, so that
+ * export and import workers can run
+ * with their own connection.
+ */
+public class ConnectionFactory implements AutoCloseable
+{       
+    private final BasicDataSource dataSource;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    public ConnectionFactory(String url, String username, String password)
+    {
+        super();        
+        
+        this.url = url;
+        this.username = username;
+        this.password = password;
+
+        this.dataSource = new BasicDataSource();
+        this.dataSource.setUrl(url);
+        this.dataSource.setUsername(username);
+        this.dataSource.setPassword(password);
+    }
+
+    /**
+     * Set the maximum number of connections
+     * the pool hands out at the same time.
+     * @param maxTotal maximum number of active connections
+     */
+    public void setMaxTotal(int maxTotal)
+    {
+        this.dataSource.setMaxTotal(maxTotal);
+        this.dataSource.setMaxIdle(maxTotal);
+    }
+
+    /**
+     * Set driver properties of the pooled connections.
+     * This must be called before the first connection is created.
+     * @param connectionProperties properties in the format 'key=value;key=value'
+     */
+    public void setConnectionProperties(String connectionProperties)
+    {
+        if (connectionProperties != null && !connectionProperties.isEmpty())
+        {
+            this.dataSource.setConnectionProperties(connectionProperties);
+        }
+    }
+
+    /**
+     * Reads the product name of the database with a connection
+     * outside of the pool, so that the pool can still be configured.
+     * @return the database product name
+     */
+    public String readProductName() throws SQLException
+    {
+        Properties info = new Properties();
+        if (username != null)
+        {
+            info.setProperty("user", username);
+        }
+        if (password != null)
+        {
+            info.setProperty("password", password);
+        }
+        try (Connection con = DriverManager.getConnection(url, info))
+        {
+            return con.getMetaData().getDatabaseProductName();
+        }
+    }
+
+    public Connection create() throws SQLException
+    {     
+        return this.dataSource.getConnection();
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+        this.dataSource.close();
+    }
+}
@@ -15,27 +15,31 @@
  */
 package com.intershop.databasedumper;
 
-import com.intershop.databasedumper.ex.ExportHandler;
+import com.intershop.databasedumper.ex.Exporter;
 import com.intershop.databasedumper.in.Importer;
-import com.intershop.databasedumper.meta.Table;
+import com.intershop.databasedumper.in.ZipReader;
+import com.intershop.databasedumper.meta.Manifest;
+import com.intershop.databasedumper.meta.ManifestEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.JAXBException;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.DriverManager;
+import java.io.PrintStream;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
-import java.util.zip.ZipOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
 
 /**
  * DatabaseDumper can
  * <ul>
  * <li>export the content of a database into a compressed file or</li>
  * <li>extract the files content into another database</li>
+ * <li>print the content of a package</li>
  * </ul>
  */
 public class DatabaseDumper
@@ -44,6 +48,16 @@ public class DatabaseDumper
     
     public static final String META_DIR_NAME = "metadata";
 
+    /**
+     * Name of the index of a package, which is written after all data files.
+     */
+    public static final String MANIFEST_NAME = "manifest.xml";
+
+    /**
+     * Default target size of an exported data file in MB
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
     private final String jdbcUrl;
     private final String jdbcUser;
     private final String jdbcPassword;
@@ -53,6 +67,26 @@ public class DatabaseDumper
     private final int rowLimit;
     private final List<String> blacklist;
 
+    private int exportThreads = 1;
+    private int importThreads = 1;
+    private ImportLoader importLoader = ImportLoader.BATCH;
+    private boolean importRebuildIndexes = false;
+    private Set<String> importKeepIndexTables = Collections.emptySet();
+    private int importDeleteThreads = Importer.DEFAULT_DELETE_THREADS;
+    private boolean importDeferredValidation = false;
+    private boolean importDependencyOrder = false;
+    private boolean importResume = false;
+    private int exportPartitions = 1;
+    private long partitionMinRows = 0;
+    private int exportChunkSize = DEFAULT_CHUNK_SIZE;
+    private int exportFetchSize = 0;
+    private ArchiveFormat exportFormat = ArchiveFormat.XML;
+    private CompressionCodec exportCompression = CompressionCodec.DEFAULT;
+    private Map<String, CompressionCodec> exportTableCompression = Collections.emptyMap();
+    private ArchiveLayout exportLayout = ArchiveLayout.ZIP;
+    private int exportVolumeSize = 0;
+    private boolean exportResume = false;
+
     /**
      * Main method to run the command line tool of DatabaseDumper.
      *
@@ -68,6 +102,21 @@ public class DatabaseDumper
                                    cli.getContentFile(),
                                    cli.getRowLimit(),
                                    cli.getBlackListedTables());
+        dumper.setExportThreads(cli.getThreads());
+        dumper.setImportThreads(cli.getThreads());
+        dumper.setImportLoader(cli.getLoader());
+        dumper.setImportIndexRebuild(cli.isRebuildIndexes(), cli.getKeepIndexTables());
+        dumper.setImportDeleteThreads(cli.getDeleteThreads());
+        dumper.setImportDeferredValidation(cli.isDeferredValidation());
+        dumper.setImportDependencyOrder(cli.isDependencyOrder());
+        dumper.setImportResume(cli.isResume());
+        dumper.setExportPartitions(cli.getPartitions(), cli.getPartitionMinRows());
+        dumper.setExportChunkSize(cli.getChunkSize());
+        dumper.setExportFetchSize(cli.getFetchSize());
+        dumper.setExportFormat(cli.getFormat());
+        dumper.setExportCompression(cli.getCompression(), cli.getTableCompression());
+        dumper.setExportLayout(cli.getLayout(), cli.getVolumeSize());
+        dumper.setExportResume(cli.isResume());
 
         boolean processStatus = false;
 
@@ -80,6 +129,10 @@ public class DatabaseDumper
         else if(cli.runExport()) {
             processStatus = dumper.runExport();
         }
+        // is stat active
+        else if(cli.runStat()) {
+            processStatus = dumper.runStat(System.out);
+        }
         else
         {
         	LOG.error("Unknown action to process");
@@ -109,6 +162,182 @@ public class DatabaseDumper
         this.blacklist = blacklist;
     }
 
+    /**
+     * Set the number of tables that are exported at the same time.
+     * Each worker uses its own connection of the connection pool.
+     *
+     * @param exportThreads number of export workers, values less than 1 are ignored
+     */
+    public void setExportThreads(int exportThreads) {
+        this.exportThreads = exportThreads < 1 ? 1 : exportThreads;
+    }
+
+    /**
+     * Set the number of data files that are imported at the same time.
+     * Each worker uses its own connection of the connection pool.
+     *
+     * @param importThreads number of import workers, values less than 1 are ignored
+     */
+    public void setImportThreads(int importThreads) {
+        this.importThreads = importThreads < 1 ? 1 : importThreads;
+    }
+
+    /**
+     * Set the loader of the import. The bulk loader uses the
+     * fast path of the database, the batch loader inserts the
+     * rows with JDBC batches and the multirow loader with
+     * statements, which insert several rows each.
+     *
+     * @param importLoader bulk load of the database, JDBC batches or multi-row inserts
+     */
+    public void setImportLoader(ImportLoader importLoader) {
+        this.importLoader = importLoader;
+    }
+
+    /**
+     * Disable the non-unique secondary indexes before the import and
+     * rebuild them in parallel afterwards. Oracle marks the indexes
+     * unusable, Microsoft SQL Server disables them and H2 drops them.
+     *
+     * @param rebuildIndexes    true to rebuild the indexes after the import
+     * @param keepIndexTables   tables, whose indexes are kept during the import
+     */
+    public void setImportIndexRebuild(boolean rebuildIndexes, Set<String> keepIndexTables) {
+        this.importRebuildIndexes = rebuildIndexes;
+        this.importKeepIndexTables = keepIndexTables;
+    }
+
+    /**
+     * Set the number of tables that are deleted at the same time before
+     * the import. The largest tables are deleted first, tables are
+     * truncated or, if a constraint prevents it, deleted in chunks.
+     *
+     * @param importDeleteThreads number of delete workers, values less than 1 are ignored
+     */
+    public void setImportDeleteThreads(int importDeleteThreads) {
+        this.importDeleteThreads = importDeleteThreads < 1 ? 1 : importDeleteThreads;
+    }
+
+    /**
+     * Enable the foreign keys after the import without a check of the
+     * existing rows (Oracle NOVALIDATE, Microsoft SQL Server WITH NOCHECK)
+     * and validate them afterwards with the import threads.
+     *
+     * @param importDeferredValidation true to validate the constraints after all constraints are enabled
+     */
+    public void setImportDeferredValidation(boolean importDeferredValidation) {
+        this.importDeferredValidation = importDeferredValidation;
+    }
+
+    /**
+     * Import the tables in waves of the foreign key graph, the referenced
+     * tables first. The tables of a wave are imported at the same time
+     * and only the foreign keys of tables in cycles are disabled.
+     *
+     * @param importDependencyOrder true to import the tables in the order of the foreign keys
+     */
+    public void setImportDependencyOrder(boolean importDependencyOrder) {
+        this.importDependencyOrder = importDependencyOrder;
+    }
+
+    /**
+     * Resume an interrupted import. The import writes a journal
+     * 'name.import.journal' next to the package, which lists the disabled
+     * constraints and indexes and the imported data files. A resumed import
+     * skips the pre-processing and the imported data files, tables with an
+     * interrupted data file are imported again. The post-processing runs once
+     * after all data files are imported and the journal is removed afterwards.
+     *
+     * @param importResume true to continue the import of the journal
+     */
+    public void setImportResume(boolean importResume) {
+        this.importResume = importResume;
+    }
+
+    /**
+     * Split large tables into key ranges, which are read at the same time.
+     *
+     * @param exportPartitions  number of ranges for a large table, 1 reads all tables completely
+     * @param partitionMinRows  minimum number of rows of a large table, 0 for the default
+     */
+    public void setExportPartitions(int exportPartitions, long partitionMinRows) {
+        this.exportPartitions = exportPartitions;
+        this.partitionMinRows = partitionMinRows;
+    }
+
+    /**
+     * Set the target size of an exported data file. A table is
+     * split into several data files, if the size or the row
+     * limit is reached. Without row limit only the size is used.
+     *
+     * @param exportChunkSize  size of a data file in MB, 0 limits data files by the row limit only
+     */
+    public void setExportChunkSize(int exportChunkSize) {
+        this.exportChunkSize = exportChunkSize;
+    }
+
+    /**
+     * Set the number of rows, which are fetched with one round-trip
+     * during the export. Without this value the fetch size of the
+     * read profile of the database is used.
+     *
+     * @param exportFetchSize  fetch size, 0 for the default of the database
+     */
+    public void setExportFetchSize(int exportFetchSize) {
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    /**
+     * Set the format of the exported data files. The import
+     * reads the format from the data files of the package.
+     *
+     * @param exportFormat  format of the data files
+     */
+    public void setExportFormat(ArchiveFormat exportFormat) {
+        this.exportFormat = exportFormat;
+    }
+
+    /**
+     * Set the compression of the exported data files. Deflate and
+     * stored are standard zip entries, other codecs are stored
+     * entries with the suffix of the codec.
+     *
+     * @param exportCompression       compression of all data files
+     * @param exportTableCompression  compression of single tables by table name
+     */
+    public void setExportCompression(CompressionCodec exportCompression, Map<String, CompressionCodec> exportTableCompression) {
+        this.exportCompression = exportCompression;
+        this.exportTableCompression = exportTableCompression;
+    }
+
+    /**
+     * Set the layout of the export package. A zip package
+     * with a volume size is split into the zip files
+     * 'name.001.zip', 'name.002.zip' and so on. The import
+     * detects the layout of the package.
+     *
+     * @param exportLayout      zip file or directory
+     * @param exportVolumeSize  size of a zip volume in MB, 0 writes a single zip file
+     */
+    public void setExportLayout(ArchiveLayout exportLayout, int exportVolumeSize) {
+        this.exportLayout = exportLayout;
+        this.exportVolumeSize = exportVolumeSize;
+    }
+
+    /**
+     * Resume an interrupted export. The export writes a journal
+     * 'name.journal' next to the package, which lists the completed
+     * tables, the completed key ranges of large tables and the data
+     * files. A resumed export keeps these data files and reads only
+     * the remaining tables and ranges. The journal is removed after
+     * the package is complete.
+     *
+     * @param exportResume true to continue the export of an existing package
+     */
+    public void setExportResume(boolean exportResume) {
+        this.exportResume = exportResume;
+    }
+
     public boolean runImport() {
     	return this.runImport(false);
     }
@@ -122,6 +351,13 @@ public class DatabaseDumper
     public boolean runImport(boolean forceImport) {
         try {
             Importer importer = new Importer(jdbcUrl, jdbcUser, jdbcPassword, contentFile, this.rowLimit);
+            importer.setThreads(importThreads);
+            importer.setLoader(importLoader);
+            importer.setIndexRebuild(importRebuildIndexes, importKeepIndexTables);
+            importer.setDeleteThreads(importDeleteThreads);
+            importer.setDeferredValidation(importDeferredValidation);
+            importer.setDependencyOrder(importDependencyOrder);
+            importer.setResume(importResume);
             importer.doImport(forceImport);
             return true;
         } catch(Exception e) {
@@ -148,52 +384,65 @@ public class DatabaseDumper
     }
 
     /**
-     * Run export and zip the content
+     * Prints the tables and data files of the package. Only the manifest is
+     * read, for a package without manifest the table names are printed.
      *
-     * @throws JAXBException
-     * @throws IOException
-     * @throws SQLException
+     * @param out the stream for the statistics
+     * @return  true, if the package was readable
      */
-    private void createExportPackage() throws JAXBException, IOException, SQLException {
-        ExportHandler handler = new ExportHandler(rowLimit);        
-
-        LOG.info("Destination for export is : {}", contentFile.getAbsolutePath());
-
-        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(contentFile))) {
-            out.setLevel(9);
-            handler.getZipper().setOut(out);
-
-            List<Table> tables;
-
-            Connection con;
-
-            if(jdbcUser != null && ! jdbcPassword.isEmpty()) {
-                con = DriverManager.getConnection(jdbcUrl, jdbcUser, jdbcPassword);
-                tables = handler.readTableNames(con, jdbcUser.toUpperCase());
-            } else {
-                con = DriverManager.getConnection(jdbcUrl);
-                tables = handler.readTableNames(con, null);
+    public boolean runStat(PrintStream out) {
+        try {
+            ZipReader reader = new ZipReader(contentFile);
+            Manifest manifest = reader.getManifest();
+            if (manifest == null) {
+                out.println("Package " + contentFile.getAbsolutePath() + " has no manifest, tables:");
+                reader.getTableNames().forEach(out::println);
+                return true;
             }
 
-            for (Table table : tables) {
-                if (isBlacklistedTable(table.getName())) {
-                    LOG.info("Ignoring table {}, because it is blacklisted!", table.getName());
-                    continue;
+            // data files, rows and uncompressed size of each table
+            Map<String, long[]> stats = new TreeMap<>();
+            manifest.getTables().forEach(table -> stats.put(table, new long[3]));
+            long[] total = new long[3];
+            for (ManifestEntry entry : manifest.getEntries()) {
+                long[] stat = stats.computeIfAbsent(entry.getTable(), table -> new long[3]);
+                for (long[] sum : new long[][] { stat, total }) {
+                    sum[0]++;
+                    sum[1] += entry.getRows();
+                    sum[2] += entry.getSize();
                 }
-
-                LOG.info("Reading table {}", table.getName());
-                handler.readData(table, con);
-                LOG.info("Exported data for {}", table.getName());
             }
+
+            out.printf("Package %s (format version %d)%n", contentFile.getAbsolutePath(), manifest.getFormatVersion());
+            out.printf("%-40s %8s %14s %16s%n", "TABLE", "FILES", "ROWS", "SIZE");
+            stats.forEach((table, stat) -> out.printf("%-40s %8d %14d %16d%n", table, stat[0], stat[1], stat[2]));
+            out.printf("%-40s %8d %14d %16d%n", stats.size() + " tables", total[0], total[1], total[2]);
+            return true;
+        } catch (JAXBException | IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
         }
+
+        return false;
     }
 
     /**
-     * Checks if the table black list contains the table name. 
-     * @param tableName
-     * @return
+     * Run export and zip the content
+     *
+     * @throws JAXBException
+     * @throws IOException
+     * @throws SQLException
      */
-    private boolean isBlacklistedTable(String tableName){
-        return blacklist.contains(tableName.toUpperCase());
+    private void createExportPackage() throws JAXBException, IOException, SQLException {
+        Exporter exporter = new Exporter(jdbcUrl, jdbcUser, jdbcPassword, contentFile, rowLimit);
+        exporter.setThreads(exportThreads);
+        exporter.setPartitions(exportPartitions, partitionMinRows);
+        exporter.setChunkSize(exportChunkSize * 1024L * 1024L);
+        exporter.setFetchSize(exportFetchSize);
+        exporter.setFormat(exportFormat);
+        exporter.setCompression(exportCompression, exportTableCompression);
+        exporter.setLayout(exportLayout, exportVolumeSize * 1024L * 1024L);
+        exporter.setBlacklist(blacklist);
+        exporter.setResume(exportResume);
+        exporter.doExport();
     }
 }
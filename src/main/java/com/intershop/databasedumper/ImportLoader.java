@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper;
+
+import java.util.Locale;
+
+/**
+ * Loaders of the import. The bulk loader uses the
+ * fast path of the database, e.g. the bulk copy of
+ * Microsoft SQL Server, direct path inserts of Oracle
+ * and CSV files for H2. The batch loader inserts the
+ * rows with JDBC batches of single row inserts, the
+ * multirow loader with batches of statements, which
+ * insert several rows each.
+ */
+public enum ImportLoader {
+
+    BULK,
+    BATCH,
+    MULTIROW;
+
+    /**
+     * Returns the loader for a configured name.
+     * @param name the name of the loader, e.g. 'bulk', 'batch' or 'multirow'
+     * @return the loader
+     */
+    public static ImportLoader forName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown import loader " + name, e);
+        }
+    }
+}
@@ -26,33 +26,125 @@ import java.util.Map;
  */
 public enum SupportedDatabase {
 
-    ORACLE ("Oracle",
-            "select constraint_name from user_constraints where constraint_type = 'R' and table_name = ?",
-            "alter table %s disable constraint %s",
-            "alter table %s enable constraint %s"),
-    MSSQL ("Microsoft SQL Server",
-            "select CONSTRAINT_NAME from information_schema.table_constraints where constraint_type = 'FOREIGN KEY' and TABLE_NAME = ?",
-            "alter table %s nocheck constraint %s",
-            "alter table %s check constraint %s"),
-    H2 ("H2",
-            "",
-            "alter table %s set REFERENTIAL_INTEGRITY FALSE",
-            "alter table %s set REFERENTIAL_INTEGRITY TRUE");
+    ORACLE (new Builder("Oracle")
+            .constraintQuery("select c.table_name, c.constraint_name, p.table_name from user_constraints c "
+                    + "left join all_constraints p on p.owner = c.r_owner and p.constraint_name = c.r_constraint_name "
+                    + "where c.constraint_type = 'R'")
+            .disableConstraintStatement("alter table %s disable constraint %s")
+            .enableConstraintStatement("alter table %s enable constraint %s")
+            .partitionBoundaryQuery("select rowidtochar(min(k)) from (select %1$s k, ntile(%2$d) over (order by %1$s) b from %3$s) group by b order by b")
+            .rowIdExpression("rowid")
+            .rowIdParameter("chartorowid(?)")
+            .fetchSize(1000)
+            .connectionProperties("oracle.jdbc.defaultLobPrefetchSize=32768")
+            .bulkInsertHint("/*+ APPEND_VALUES */")
+            .maxBindParameters(65535)
+            .insertAll(true)
+            .indexQuery("select i.index_name from user_indexes i where i.table_name = ? and i.uniqueness = 'NONUNIQUE' and i.index_type = 'NORMAL' "
+                    + "and not exists (select 1 from user_constraints c where c.index_name = i.index_name and c.table_name = i.table_name)")
+            .disableIndexStatement("alter index %2$s unusable")
+            .rebuildIndexStatement("alter index %2$s rebuild parallel;alter index %2$s noparallel")
+            .truncateStatement("truncate table %s reuse storage")
+            .deleteChunkStatement("delete from %s where rownum <= %d")
+            .rowEstimateQuery("select num_rows from user_tables where table_name = ?")
+            .enableNoValidateStatement("alter table %s enable novalidate constraint %s")
+            .validateConstraintStatement("alter table %s enable validate constraint %s")
+            .tableSizeQuery("select t.table_name, t.num_rows, (select sum(s.bytes) from user_segments s where s.segment_name = t.table_name "
+                    + "or s.segment_name in (select l.segment_name from user_lobs l where l.table_name = t.table_name)) from user_tables t")),
+    MSSQL (new Builder("Microsoft SQL Server")
+            .constraintQuery("select object_name(parent_object_id), name, object_name(referenced_object_id) from sys.foreign_keys")
+            .disableConstraintStatement("alter table %s nocheck constraint %s")
+            .enableConstraintStatement("alter table %s check constraint %s")
+            .partitionBoundaryQuery("select min(k) from (select %1$s k, ntile(%2$d) over (order by %1$s) b from %3$s) x group by b order by b")
+            .fetchSize(1000)
+            .connectionProperties("responseBuffering=adaptive;selectMethod=cursor")
+            .maxBindParameters(2100)
+            .indexQuery("select i.name from sys.indexes i where i.object_id = object_id(?) and i.type = 2 and i.is_unique = 0 "
+                    + "and i.is_primary_key = 0 and i.is_unique_constraint = 0 and i.is_disabled = 0")
+            .disableIndexStatement("alter index %2$s on %1$s disable")
+            .rebuildIndexStatement("alter index %2$s on %1$s rebuild")
+            .truncateStatement("truncate table %s")
+            .deleteChunkStatement("delete top (%2$d) from %1$s")
+            .rowEstimateQuery("select sum(p.rows) from sys.partitions p where p.object_id = object_id(?) and p.index_id in (0, 1)")
+            .enableNoValidateStatement("alter table %s with nocheck check constraint %s")
+            .validateConstraintStatement("alter table %s with check check constraint %s")
+            .tableSizeQuery("select t.name, (select sum(p.rows) from sys.partitions p where p.object_id = t.object_id and p.index_id in (0, 1)), "
+                    + "(select sum(a.used_pages) * 8192 from sys.partitions p join sys.allocation_units a on a.container_id = p.partition_id "
+                    + "where p.object_id = t.object_id and p.index_id in (0, 1)) from sys.tables t")),
+    H2 (new Builder("H2")
+            .disableConstraintStatement("alter table %s set REFERENTIAL_INTEGRITY FALSE")
+            .enableConstraintStatement("alter table %s set REFERENTIAL_INTEGRITY TRUE")
+            // H2 1.4 has no window functions, each bucket starts with the row number after the rows of the previous buckets
+            .partitionBoundaryQuery("select k from (select x.k, rownum() r from (select %1$s k from %3$s order by %1$s) x) y, "
+                    + "(select count(*) c from %3$s) z where mod(y.r - 1, ceil(z.c / %2$d.0)) = 0 order by k")
+            .fetchSize(1000)
+            .readSessionStatement("SET LAZY_QUERY_EXECUTION 1")
+            .maxBindParameters(65535)
+            .indexQuery("select INDEX_NAME, SQL from INFORMATION_SCHEMA.INDEXES where TABLE_NAME = ? and NON_UNIQUE = TRUE "
+                    + "and CONSTRAINT_NAME is null and ORDINAL_POSITION = 1")
+            .disableIndexStatement("drop index %2$s")
+            .rebuildIndexStatement("%3$s")
+            .truncateStatement("truncate table %s")
+            .deleteChunkStatement("delete from %s limit %d")
+            .rowEstimateQuery("select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES where TABLE_NAME = ?")
+            .tableSizeQuery("select TABLE_NAME, ROW_COUNT_ESTIMATE, null from INFORMATION_SCHEMA.TABLES where TABLE_TYPE = 'TABLE'"));
 
     private final String productName;
     private final String constraintQuery;
     private final String disableConstraintStatement;
     private final String enableConstraintStatement;
+    private final String partitionBoundaryQuery;
+    private final String rowIdExpression;
+    private final String rowIdParameter;
+    private final int fetchSize;
+    private final String connectionProperties;
+    private final String readSessionStatement;
+    private final String bulkInsertHint;
+    private final int maxBindParameters;
+    private final boolean insertAll;
+    private final String indexQuery;
+    private final String disableIndexStatement;
+    private final String rebuildIndexStatement;
+    private final String truncateStatement;
+    private final String deleteChunkStatement;
+    private final String rowEstimateQuery;
+    private final String enableNoValidateStatement;
+    private final String validateConstraintStatement;
+    private final String tableSizeQuery;
 
     private static final Map<String, SupportedDatabase> strDatabaseMap;
 
-    SupportedDatabase(String productName, String constraintQuery, String disableConstraintStatement, String enableConstraintStatement) {
-        this.productName = productName;
-        this.constraintQuery = constraintQuery;
-        this.disableConstraintStatement = disableConstraintStatement;
-        this.enableConstraintStatement = enableConstraintStatement;
+    SupportedDatabase(Builder builder) {
+        this.productName = builder.productName;
+        this.constraintQuery = builder.constraintQuery;
+        this.disableConstraintStatement = builder.disableConstraintStatement;
+        this.enableConstraintStatement = builder.enableConstraintStatement;
+        this.partitionBoundaryQuery = builder.partitionBoundaryQuery;
+        this.rowIdExpression = builder.rowIdExpression;
+        this.rowIdParameter = builder.rowIdParameter;
+        this.fetchSize = builder.fetchSize;
+        this.connectionProperties = builder.connectionProperties;
+        this.readSessionStatement = builder.readSessionStatement;
+        this.bulkInsertHint = builder.bulkInsertHint;
+        this.maxBindParameters = builder.maxBindParameters;
+        this.insertAll = builder.insertAll;
+        this.indexQuery = builder.indexQuery;
+        this.disableIndexStatement = builder.disableIndexStatement;
+        this.rebuildIndexStatement = builder.rebuildIndexStatement;
+        this.truncateStatement = builder.truncateStatement;
+        this.deleteChunkStatement = builder.deleteChunkStatement;
+        this.rowEstimateQuery = builder.rowEstimateQuery;
+        this.enableNoValidateStatement = builder.enableNoValidateStatement;
+        this.validateConstraintStatement = builder.validateConstraintStatement;
+        this.tableSizeQuery = builder.tableSizeQuery;
     }
 
+    /**
+     * Query for the foreign keys of all tables.
+     * The columns of the result are the table name, the constraint name and the referenced table name,
+     * which is <code>null</code> if the referenced table is not visible.
+     * @return the query or an empty string, if the constraints are disabled per table
+     */
     public String getConstraintQuery() {
         return constraintQuery;
     }
@@ -65,6 +157,164 @@ public enum SupportedDatabase {
         return enableConstraintStatement;
     }
 
+    /**
+     * Query for the lower boundaries of equal sized buckets.
+     * Parameters are the key expression, the number of buckets and the table name.
+     * @return the boundary query
+     */
+    public String getPartitionBoundaryQuery() {
+        return partitionBoundaryQuery;
+    }
+
+    /**
+     * Physical row address, which can be used for range reads.
+     * @return the expression or an empty string, if the database has no row address
+     */
+    public String getRowIdExpression() {
+        return rowIdExpression;
+    }
+
+    /**
+     * Bind parameter for a row address read with the boundary query.
+     * @return the parameter expression
+     */
+    public String getRowIdParameter() {
+        return rowIdParameter;
+    }
+
+    /**
+     * Number of rows fetched with one round-trip by the export.
+     * @return the fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Driver properties for streaming reads in the format 'key=value;key=value'.
+     * @return the connection properties or an empty string
+     */
+    public String getConnectionProperties() {
+        return connectionProperties;
+    }
+
+    /**
+     * Statement, which prepares a session for streaming reads.
+     * @return the statement or an empty string
+     */
+    public String getReadSessionStatement() {
+        return readSessionStatement;
+    }
+
+    /**
+     * Hint of the batched insert of the bulk loader, e.g. a direct path insert.
+     * @return the hint or an empty string
+     */
+    public String getBulkInsertHint() {
+        return bulkInsertHint;
+    }
+
+    /**
+     * Maximum number of bind parameters of a statement, which
+     * limits the rows of a multi-row insert.
+     * @return the number of parameters, 0 if multi-row inserts are not supported
+     */
+    public int getMaxBindParameters() {
+        return maxBindParameters;
+    }
+
+    /**
+     * Several rows are inserted with 'insert all into ... into ... select 1 from dual'
+     * instead of a values list '(...), (...)'.
+     * @return true, if the database has no multi-row values list
+     */
+    public boolean isInsertAll() {
+        return insertAll;
+    }
+
+    /**
+     * Query for the non-unique secondary indexes of a table, which do not belong to a constraint.
+     * The parameter is the table name, the result has the index name and optional its definition.
+     * @return the index query
+     */
+    public String getIndexQuery() {
+        return indexQuery;
+    }
+
+    /**
+     * Statement, which disables or drops an index before the import.
+     * Parameters are the table name, the index name and the index definition.
+     * @return the statement
+     */
+    public String getDisableIndexStatement() {
+        return disableIndexStatement;
+    }
+
+    /**
+     * Statements separated by ';', which rebuild or create an index after the import.
+     * Parameters are the table name, the index name and the index definition.
+     * @return the statements
+     */
+    public String getRebuildIndexStatement() {
+        return rebuildIndexStatement;
+    }
+
+    /**
+     * Statement, which removes all rows of a table without logging each row.
+     * The parameter is the table name.
+     * @return the statement
+     */
+    public String getTruncateStatement() {
+        return truncateStatement;
+    }
+
+    /**
+     * Statement, which deletes a chunk of rows of a table, if the table can not be truncated.
+     * Parameters are the table name and the number of rows.
+     * @return the statement
+     */
+    public String getDeleteChunkStatement() {
+        return deleteChunkStatement;
+    }
+
+    /**
+     * Query for the estimated number of rows of a table, e.g. from the statistics.
+     * The parameter is the table name.
+     * @return the query
+     */
+    public String getRowEstimateQuery() {
+        return rowEstimateQuery;
+    }
+
+    /**
+     * Statement to enable a foreign key without a check of the existing rows.
+     * Parameters are the table name and the constraint name.
+     * @return the statement or an empty string, if the constraint is enabled with the validation
+     */
+    public String getEnableNoValidateStatement() {
+        return enableNoValidateStatement;
+    }
+
+    /**
+     * Statement to validate the existing rows of a foreign key,
+     * which was enabled without a check.
+     * Parameters are the table name and the constraint name.
+     * @return the statement
+     */
+    public String getValidateConstraintStatement() {
+        return validateConstraintStatement;
+    }
+
+    /**
+     * Query for the estimated sizes of all tables from the statistics.
+     * The columns of the result are the table name, the number of rows and the
+     * allocated bytes, which is <code>null</code> if the database reports no sizes.
+     * @return the query
+     */
+    public String getTableSizeQuery() {
+        return tableSizeQuery;
+    }
+
     static {
         final Map<String, SupportedDatabase> tmpMap = Maps.newHashMap();
         for(final SupportedDatabase en : SupportedDatabase.values()) {
@@ -84,4 +334,142 @@ public enum SupportedDatabase {
     public String toString() {
         return productName;
     }
+
+    /**
+     * Profile of a database, values which are not set are empty or 0.
+     */
+    private static final class Builder {
+
+        private final String productName;
+        private String constraintQuery = "";
+        private String disableConstraintStatement = "";
+        private String enableConstraintStatement = "";
+        private String partitionBoundaryQuery = "";
+        private String rowIdExpression = "";
+        private String rowIdParameter = "";
+        private int fetchSize;
+        private String connectionProperties = "";
+        private String readSessionStatement = "";
+        private String bulkInsertHint = "";
+        private int maxBindParameters;
+        private boolean insertAll;
+        private String indexQuery = "";
+        private String disableIndexStatement = "";
+        private String rebuildIndexStatement = "";
+        private String truncateStatement = "";
+        private String deleteChunkStatement = "";
+        private String rowEstimateQuery = "";
+        private String enableNoValidateStatement = "";
+        private String validateConstraintStatement = "";
+        private String tableSizeQuery = "";
+
+        private Builder(String productName) {
+            this.productName = productName;
+        }
+
+        private Builder constraintQuery(String constraintQuery) {
+            this.constraintQuery = constraintQuery;
+            return this;
+        }
+
+        private Builder disableConstraintStatement(String disableConstraintStatement) {
+            this.disableConstraintStatement = disableConstraintStatement;
+            return this;
+        }
+
+        private Builder enableConstraintStatement(String enableConstraintStatement) {
+            this.enableConstraintStatement = enableConstraintStatement;
+            return this;
+        }
+
+        private Builder partitionBoundaryQuery(String partitionBoundaryQuery) {
+            this.partitionBoundaryQuery = partitionBoundaryQuery;
+            return this;
+        }
+
+        private Builder rowIdExpression(String rowIdExpression) {
+            this.rowIdExpression = rowIdExpression;
+            return this;
+        }
+
+        private Builder rowIdParameter(String rowIdParameter) {
+            this.rowIdParameter = rowIdParameter;
+            return this;
+        }
+
+        private Builder fetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        private Builder connectionProperties(String connectionProperties) {
+            this.connectionProperties = connectionProperties;
+            return this;
+        }
+
+        private Builder readSessionStatement(String readSessionStatement) {
+            this.readSessionStatement = readSessionStatement;
+            return this;
+        }
+
+        private Builder bulkInsertHint(String bulkInsertHint) {
+            this.bulkInsertHint = bulkInsertHint;
+            return this;
+        }
+
+        private Builder maxBindParameters(int maxBindParameters) {
+            this.maxBindParameters = maxBindParameters;
+            return this;
+        }
+
+        private Builder insertAll(boolean insertAll) {
+            this.insertAll = insertAll;
+            return this;
+        }
+
+        private Builder indexQuery(String indexQuery) {
+            this.indexQuery = indexQuery;
+            return this;
+        }
+
+        private Builder disableIndexStatement(String disableIndexStatement) {
+            this.disableIndexStatement = disableIndexStatement;
+            return this;
+        }
+
+        private Builder rebuildIndexStatement(String rebuildIndexStatement) {
+            this.rebuildIndexStatement = rebuildIndexStatement;
+            return this;
+        }
+
+        private Builder truncateStatement(String truncateStatement) {
+            this.truncateStatement = truncateStatement;
+            return this;
+        }
+
+        private Builder deleteChunkStatement(String deleteChunkStatement) {
+            this.deleteChunkStatement = deleteChunkStatement;
+            return this;
+        }
+
+        private Builder rowEstimateQuery(String rowEstimateQuery) {
+            this.rowEstimateQuery = rowEstimateQuery;
+            return this;
+        }
+
+        private Builder enableNoValidateStatement(String enableNoValidateStatement) {
+            this.enableNoValidateStatement = enableNoValidateStatement;
+            return this;
+        }
+
+        private Builder validateConstraintStatement(String validateConstraintStatement) {
+            this.validateConstraintStatement = validateConstraintStatement;
+            return this;
+        }
+
+        private Builder tableSizeQuery(String tableSizeQuery) {
+            this.tableSizeQuery = tableSizeQuery;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Constants and helpers of the binary data file format.
+ * <pre>
+ * file    = magic version table block* end
+ * table   = name:string columns:varint (label:string type:zigzag)*
+ * block   = rows:varint column*
+ * column  = kind:byte length:varint nulls:byte[(rows + 7) / 8] value*
+ * end     = rows:varint(0)
+ * string  = length:varint utf-8 bytes
+ * </pre>
+ * A block contains the values of several rows column
+ * by column. The null bit of a row is set in the
+ * bitmap of a column and the value is left out.
+ * The length of a column covers the bitmap and the values.
+ * Values are encoded by the kind of the column:
+ * <ul>
+ * <li>LONG - zigzag varint</li>
+ * <li>DECIMAL - scale as zigzag varint and the unscaled value as length prefixed two's complement bytes</li>
+ * <li>STRING - length prefixed utf-8 bytes</li>
+ * <li>DATETIME - milliseconds since the epoch as zigzag varint</li>
+ * <li>BINARY - length prefixed bytes</li>
+ * </ul>
+ */
+public final class BinaryFormat
+{
+    public static final byte[] MAGIC = { 'D', 'B', 'D', 'U', 'M', 'P' };
+    public static final int VERSION = 1;
+
+    public static final byte KIND_NULL = 0;
+    public static final byte KIND_LONG = 1;
+    public static final byte KIND_DECIMAL = 2;
+    public static final byte KIND_STRING = 3;
+    public static final byte KIND_DATETIME = 4;
+    public static final byte KIND_BINARY = 5;
+
+    private BinaryFormat()
+    {
+    }
+
+    public static long encodeZigZag(final long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    public static long decodeZigZag(final long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes an unsigned varint with 7 bits per byte.
+     * @param out the target
+     * @param value the value, interpreted as unsigned
+     */
+    public static void writeVarLong(final OutputStream out, final long value) throws IOException
+    {
+        long v = value;
+        while((v & ~0x7FL) != 0)
+        {
+            out.write((int)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int)v);
+    }
+
+    /**
+     * Reads an unsigned varint with 7 bits per byte.
+     * @param in the source
+     * @return the value
+     */
+    public static long readVarLong(final InputStream in) throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.read();
+            if (b < 0)
+            {
+                throw new EOFException("Unexpected end of data file.");
+            }
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in data file.");
+    }
+}
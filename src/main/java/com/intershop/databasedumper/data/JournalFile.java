@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line based journal file next to a package, which is
+ * shared by the export and the import journal. Each line
+ * is a record with tab separated fields. A record is part
+ * of the journal after its line break is written, so that
+ * the incomplete last line of an interrupted write is
+ * ignored.
+ */
+public class JournalFile implements Closeable
+{
+    private final File file;
+
+    private Writer writer;
+
+    /**
+     * @param contentFile the package file or directory
+     * @param suffix the suffix of the journal file
+     */
+    public JournalFile(final File contentFile, final String suffix)
+    {
+        this.file = new File(contentFile.getPath() + suffix);
+    }
+
+    /**
+     * Returns the journal file next to the package.
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Checks if a journal of an interrupted run exists.
+     */
+    public boolean exists()
+    {
+        return file.isFile();
+    }
+
+    /**
+     * Reads the complete records of the journal.
+     * @return the fields of each non-empty line
+     */
+    public List<String[]> read() throws IOException
+    {
+        List<String[]> records = new ArrayList<>();
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        // a line without line break is the incomplete last record of an interrupted write
+        for (String line : content.substring(0, content.lastIndexOf('\n') + 1).split("\n"))
+        {
+            if (!line.isEmpty())
+            {
+                records.add(line.split("\t", -1));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Replaces the journal with the records of the resumed
+     * run. Further records are appended.
+     * @param lines the initial records
+     */
+    public void open(final List<String> lines) throws IOException
+    {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer initial = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8))
+        {
+            for (String line : lines)
+            {
+                initial.write(line);
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Appends records to the journal.
+     * @param lines the records created with {@link #line(Object...)}
+     */
+    public void write(final String... lines) throws IOException
+    {
+        for (String line : lines)
+        {
+            writer.write(line);
+        }
+        // the records are part of the journal, if the process stops
+        writer.flush();
+    }
+
+    /**
+     * Removes the journal after a complete run.
+     */
+    public void delete() throws IOException
+    {
+        close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (writer != null)
+        {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Creates a record with tab separated fields.
+     * @param fields the fields, which contain neither tabs nor line breaks
+     * @return the line of the record including its line break
+     */
+    public static String line(final Object... fields)
+    {
+        StringBuilder line = new StringBuilder();
+        for (Object field : fields)
+        {
+            if (line.length() > 0)
+            {
+                line.append('\t');
+            }
+            line.append(field);
+        }
+        return line.append('\n').toString();
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import com.google.common.io.CountingOutputStream;
+import com.intershop.databasedumper.data.BinaryFormat;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Writes a data file in the binary format, see {@link BinaryFormat}.
+ * The values of a block of rows are collected column by
+ * column and written, if the block is full.
+ */
+public class BinaryDataWriter implements DataWriter
+{
+    private static final int BLOCK_ROWS = 1024;
+    private static final int BLOCK_BYTES = 1024 * 1024;
+
+    private final CountingOutputStream counter;
+    private final OutputStream out;
+    private final Column[] columns;
+    private final ColumnBuffer[] buffers;
+    private final Buffer scratch = new Buffer();
+    private final char[] charBuffer = new char[4096];
+
+    private int column = 0;
+    private int blockRows = 0;
+    private long blockBytes = 0;
+    private long rows = 0;
+
+    public BinaryDataWriter(final Table table, final OutputStream stream) throws IOException
+    {
+        this.counter = new CountingOutputStream(stream);
+        this.out = new BufferedOutputStream(counter, 64 * 1024);
+
+        List<Column> tableColumns = table.getColumns();
+        this.columns = tableColumns.toArray(new Column[tableColumns.size()]);
+        this.buffers = new ColumnBuffer[columns.length];
+        for (int i = 0; i < buffers.length; ++i)
+        {
+            buffers[i] = new ColumnBuffer();
+        }
+
+        out.write(BinaryFormat.MAGIC);
+        out.write(BinaryFormat.VERSION);
+        writeString(out, table.getName());
+        BinaryFormat.writeVarLong(out, columns.length);
+        for (Column c : columns)
+        {
+            writeString(out, c.getLabel());
+            BinaryFormat.writeVarLong(out, BinaryFormat.encodeZigZag(c.getType()));
+        }
+    }
+
+    @Override
+    public void startRow()
+    {
+        column = 0;
+    }
+
+    @Override
+    public void endRow() throws IOException
+    {
+        if (column != columns.length)
+        {
+            throw new IllegalStateException("Row with " + column + " of " + columns.length + " values.");
+        }
+        ++rows;
+        if (++blockRows >= BLOCK_ROWS || blockBytes >= BLOCK_BYTES)
+        {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public long getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Returns the number of bytes passed to the stream
+     * and the size of the current block.
+     * @return number of written bytes
+     */
+    @Override
+    public long getBytes()
+    {
+        return counter.getCount() + blockBytes;
+    }
+
+    @Override
+    public void writeNull()
+    {
+        buffers[column].nulls[blockRows >> 3] |= 1 << (blockRows & 7);
+        ++column;
+    }
+
+    @Override
+    public void writeLong(final long value) throws IOException
+    {
+        Buffer values = next(BinaryFormat.KIND_LONG);
+        int size = values.size();
+        BinaryFormat.writeVarLong(values, BinaryFormat.encodeZigZag(value));
+        blockBytes += values.size() - size;
+    }
+
+    @Override
+    public void writeDecimal(final BigDecimal value) throws IOException
+    {
+        if (value == null)
+        {
+            writeNull();
+            return;
+        }
+        Buffer values = next(BinaryFormat.KIND_DECIMAL);
+        int size = values.size();
+        BinaryFormat.writeVarLong(values, BinaryFormat.encodeZigZag(value.scale()));
+        writeBytes(values, value.unscaledValue().toByteArray());
+        blockBytes += values.size() - size;
+    }
+
+    @Override
+    public void writeString(final String value) throws IOException
+    {
+        if (value == null)
+        {
+            writeNull();
+            return;
+        }
+        Buffer values = next(BinaryFormat.KIND_STRING);
+        int size = values.size();
+        writeString(values, value);
+        blockBytes += values.size() - size;
+    }
+
+    @Override
+    public void writeString(final Reader reader) throws IOException
+    {
+        if (reader == null)
+        {
+            writeNull();
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        int length;
+        while((length = reader.read(charBuffer)) > -1)
+        {
+            builder.append(charBuffer, 0, length);
+        }
+        writeString(builder.toString());
+    }
+
+    @Override
+    public void writeDateTime(final Date value) throws IOException
+    {
+        if (value == null)
+        {
+            writeNull();
+            return;
+        }
+        Buffer values = next(BinaryFormat.KIND_DATETIME);
+        int size = values.size();
+        BinaryFormat.writeVarLong(values, BinaryFormat.encodeZigZag(value.getTime()));
+        blockBytes += values.size() - size;
+    }
+
+    @Override
+    public void writeBinary(final InputStream in) throws IOException
+    {
+        if (in == null)
+        {
+            writeNull();
+            return;
+        }
+        Buffer values = next(BinaryFormat.KIND_BINARY);
+        int size = values.size();
+        scratch.reset();
+        scratch.readFrom(in);
+        BinaryFormat.writeVarLong(values, scratch.size());
+        scratch.writeTo(values);
+        blockBytes += values.size() - size;
+    }
+
+    @Override
+    public void finish() throws IOException
+    {
+        if (blockRows > 0)
+        {
+            writeBlock();
+        }
+        BinaryFormat.writeVarLong(out, 0);
+        out.flush();
+    }
+
+    private Buffer next(final byte kind)
+    {
+        ColumnBuffer buffer = buffers[column];
+        if (buffer.kind == BinaryFormat.KIND_NULL)
+        {
+            buffer.kind = kind;
+        }
+        else if (buffer.kind != kind)
+        {
+            throw new IllegalStateException("Column " + columns[column].getLabel() + " contains values of different kinds.");
+        }
+        ++column;
+        return buffer.values;
+    }
+
+    private void writeBlock() throws IOException
+    {
+        int nullBytes = (blockRows + 7) >> 3;
+        BinaryFormat.writeVarLong(out, blockRows);
+        for (ColumnBuffer buffer : buffers)
+        {
+            out.write(buffer.kind);
+            BinaryFormat.writeVarLong(out, nullBytes + buffer.values.size());
+            out.write(buffer.nulls, 0, nullBytes);
+            buffer.values.writeTo(out);
+            buffer.reset();
+        }
+        blockRows = 0;
+        blockBytes = 0;
+    }
+
+    private static void writeString(final OutputStream target, final String value) throws IOException
+    {
+        writeBytes(target, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(final OutputStream target, final byte[] bytes) throws IOException
+    {
+        BinaryFormat.writeVarLong(target, bytes.length);
+        target.write(bytes);
+    }
+
+    /**
+     * Values of a column in the current block.
+     */
+    private static class ColumnBuffer
+    {
+        private byte kind = BinaryFormat.KIND_NULL;
+        private final byte[] nulls = new byte[BLOCK_ROWS >> 3];
+        private final Buffer values = new Buffer();
+
+        void reset()
+        {
+            kind = BinaryFormat.KIND_NULL;
+            Arrays.fill(nulls, (byte)0);
+            values.reset();
+        }
+    }
+
+    /**
+     * Growing byte buffer without synchronization.
+     */
+    private static class Buffer extends OutputStream
+    {
+        private byte[] data = new byte[256];
+        private int size = 0;
+
+        @Override
+        public void write(final int b)
+        {
+            ensure(1);
+            data[size++] = (byte)b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+        {
+            ensure(len);
+            System.arraycopy(b, off, data, size, len);
+            size += len;
+        }
+
+        void readFrom(final InputStream in) throws IOException
+        {
+            int read;
+            do
+            {
+                ensure(4096);
+                read = in.read(data, size, data.length - size);
+                if (read > 0)
+                {
+                    size += read;
+                }
+            }
+            while(read != -1);
+        }
+
+        void writeTo(final OutputStream target) throws IOException
+        {
+            target.write(data, 0, size);
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        void reset()
+        {
+            size = 0;
+        }
+
+        private void ensure(final int length)
+        {
+            if (size + length > data.length)
+            {
+                data = Arrays.copyOf(data, Math.max(data.length << 1, size + length));
+            }
+        }
+    }
+}
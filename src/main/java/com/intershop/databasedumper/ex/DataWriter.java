@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.io.IOException;
+
+import com.intershop.databasedumper.meta.ValueWriter;
+
+/**
+ * Writes the rows of a table to a data file
+ * of the package.
+ */
+public interface DataWriter extends ValueWriter
+{
+    void startRow() throws IOException;
+
+    void endRow() throws IOException;
+
+    /**
+     * Returns the number of written rows.
+     * @return number of rows
+     */
+    long getRows();
+
+    /**
+     * Returns the size of the data file, which
+     * is used to limit the size of a data file.
+     * @return number of written bytes
+     */
+    long getBytes();
+
+    /**
+     * Completes the data file. The stream is flushed, but not closed.
+     */
+    void finish() throws IOException;
+}
@@ -15,43 +15,41 @@
  */
 package com.intershop.databasedumper.ex;
 
-import java.io.ByteArrayOutputStream;
-import java.io.CharArrayWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.Reader;
-import java.sql.Blob;
-import java.sql.Clob;
+import java.io.OutputStream;
 import java.sql.Connection;
-import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Time;
-import java.sql.Types;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
-import java.util.TimeZone;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.bind.JAXBException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.intershop.databasedumper.data.DataTable;
+import com.intershop.databasedumper.ArchiveFormat;
+import com.intershop.databasedumper.CompressionCodec;
+import com.intershop.databasedumper.SupportedDatabase;
 import com.intershop.databasedumper.meta.Column;
 import com.intershop.databasedumper.meta.ColumnTypeComperator;
-import com.intershop.databasedumper.meta.Row;
+import com.intershop.databasedumper.meta.ManifestEntry;
 import com.intershop.databasedumper.meta.Table;
+import com.intershop.databasedumper.meta.TableCodec;
 
 /**
  * This is the main class for the export
  * functionlity.
  * It analyses tables and store this information
  * in separate xml data files.
+ * Tables can be read by several threads at the
+ * same time, if each thread uses its own connection.
  */
 public class ExportHandler
 {
@@ -59,14 +57,105 @@ public class ExportHandler
 
     private static final int MAX_ROWS = 100000;
 
-    private int maxRows = MAX_ROWS;
+    /**
+     * Default target size of a data file, 64 MB
+     */
+    public static final long CHUNK_SIZE = 64L * 1024 * 1024;
+
+    private final int maxRows;
+
+    private long chunkSize = CHUNK_SIZE;
+
+    private SupportedDatabase database;
+
+    private int fetchSize = 0;
+
+    private ArchiveFormat format = ArchiveFormat.XML;
+
+    private CompressionCodec codec = CompressionCodec.DEFAULT;
+
+    private Map<String, CompressionCodec> tableCodecs = Collections.emptyMap();
     
-    private ZipWriter zipper;
+    private final ZipWriter zipper;
 
+    private ExportJournal journal;
+
+    /**
+     * Creates the handler.
+     * @param maxRows maximum number of rows of a data file, values less than 1
+     *                limit the data file by the chunk size only
+     */
     public ExportHandler(int maxRows) {
-        this.maxRows = maxRows <= 0 ? MAX_ROWS : maxRows;
+        this.maxRows = maxRows;
+        try
+        {
+            this.zipper = new ZipWriter();
+        }
+        catch(JAXBException e)
+        {
+            throw new IllegalStateException("Could not create the output zip writer!", e);
+        }
 	}
 
+    /**
+     * Set the target size of a data file. A new data file is started,
+     * if the next row is expected to exceed this size.
+     * @param chunkSize size in bytes, values less than 1 disable the size limit
+     */
+    public void setChunkSize(long chunkSize)
+    {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Set the database of the export, so that the read
+     * profile of the database is used for data queries.
+     * @param database the database, <code>null</code> for an unknown database
+     */
+    public void setDatabase(SupportedDatabase database)
+    {
+        this.database = database;
+    }
+
+    /**
+     * Set the number of rows fetched with one round-trip.
+     * @param fetchSize the fetch size, values less than 1 use the size of the read profile
+     */
+    public void setFetchSize(int fetchSize)
+    {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Set the format of the data files.
+     * @param format the format of the data files
+     */
+    public void setFormat(ArchiveFormat format)
+    {
+        this.format = format;
+    }
+
+    /**
+     * Set the compression of the data files.
+     * @param codec the compression of all tables without own compression
+     * @param tableCodecs the compression of single tables by upper case table name
+     */
+    public void setCompression(CompressionCodec codec, Map<String, CompressionCodec> tableCodecs)
+    {
+        this.codec = codec;
+        this.tableCodecs = tableCodecs;
+    }
+
+    /**
+     * Set the journal of the export, which
+     * receives each committed data file.
+     * @param journal the journal, <code>null</code> for an export without journal
+     */
+    void setJournal(ExportJournal journal)
+    {
+        this.journal = journal;
+    }
+
 	public List<Table> readTableNames(final Connection con, final String scheme) throws SQLException
     {    
         List<Table> list = new ArrayList<>();
@@ -117,142 +206,231 @@ public class ExportHandler
         return list;
     }
 
-    public DataTable readData(final Table table, final Connection con) throws SQLException, IOException, JAXBException
+    /**
+     * Reads the complete table and writes the table
+     * data and the table meta data to the package.
+     * @param table the table to export
+     * @param con the connection for reading
+     * @return the number of exported rows
+     */
+    public long readData(final Table table, final Connection con) throws SQLException, IOException, JAXBException
+    {
+        long rows = readData(table, con, null, new AtomicInteger(1));
+        writeMetadata(table);
+        return rows;
+    }
+
+    /**
+     * Reads the column information of the table, if
+     * it is not already available.
+     * @param table the table to analyse
+     * @param con the connection for reading
+     */
+    public void readColumns(final Table table, final Connection con) throws SQLException
+    {
+        if (table.getColumns().isEmpty())
+        {
+            try (PreparedStatement stm = con.prepareStatement(String.format("select * from %s", table.getName())))
+            {
+                addColumns(table, stm.getMetaData());
+            }
+        }
+    }
+
+    private void addColumns(final Table table, final ResultSetMetaData metaData) throws SQLException
     {
-        // create a data type
-        DataTable dataTable = new DataTable();
-        // set data types
-        dataTable.setTable(table);
-        int suffix = 0;
-        try (PreparedStatement stm = con.prepareStatement(String.format("select * from %s", table.getName())))
+        for (int i = 1; i <= metaData.getColumnCount(); ++i)
         {
-            ResultSetMetaData metaData = stm.getMetaData();
-            for (int i = 1; i <= metaData.getColumnCount(); ++i)
+            Column column = new Column();
+            column.setLabel(metaData.getColumnLabel(i));
+            column.setType(metaData.getColumnType(i));
+            table.addColumn(column);
+        }
+    }
+
+    /**
+     * Reads the rows of the table, which are part of the range,
+     * and streams them into the package. Without a range the complete
+     * table is read and the first chunk is written without a suffix.
+     * The rows of a range are only written, if the range is not empty.
+     * @param table the table to export
+     * @param con the connection for reading
+     * @param range the part of the table, <code>null</code> for the complete table
+     * @param suffixes the counter for chunk suffixes, shared by all ranges of the table
+     * @return the number of exported rows
+     */
+    public long readData(final Table table, final Connection con, final ExportRange range,
+                    final AtomicInteger suffixes) throws SQLException, IOException, JAXBException
+    {
+        String query = String.format("select * from %s", table.getName());
+        if (range != null)
+        {
+            query += " where " + range.getCondition();
+        }
+        long rows = 0;
+        prepareSession(con);
+        try (PreparedStatement stm = con.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            int rowsPerFetch = fetchSize > 0 ? fetchSize : (database != null ? database.getFetchSize() : 0);
+            if (rowsPerFetch > 0)
+            {
+                stm.setFetchSize(rowsPerFetch);
+            }
+            if (range != null)
             {
-                Column column = new Column();
-                column.setLabel(metaData.getColumnLabel(i));
-                column.setType(metaData.getColumnType(i));
-                table.addColumn(column);
+                range.bind(stm);
             }
+            if (table.getColumns().isEmpty())
+            {
+                addColumns(table, stm.getMetaData());
+            }
+
+            TableCodec codec = new TableCodec(table);
+            CompressionCodec tableCodec = tableCodecs.getOrDefault(table.getName(), this.codec);
 
-            TimeZone tz = TimeZone.getTimeZone("UTC");
-            Calendar cal = Calendar.getInstance(tz);
-            
+            ZipWriter.Entry entry = null;
+            DataWriter writer = null;
             try (ResultSet resultSet = stm.executeQuery())
             {
+                if (range == null)
+                {
+                    entry = openEntry(table, true, suffixes, tableCodec);
+                    writer = createWriter(table, entry);
+                }
                 while(resultSet.next())
                 {
-                    Row row = new Row();
-                    for (Column column : table.getColumns())
+                    if (writer == null)
                     {
-						switch(column.getType())
-                        {
-                            case Types.NUMERIC:
-                            case Types.DOUBLE:
-                            case Types.DECIMAL:
-                            case Types.FLOAT:
-                            case Types.BIT:
-                            case Types.BIGINT:
-                            case Types.SMALLINT:
-                            case Types.INTEGER:
-                            case Types.TINYINT:
-                                row.add(resultSet.getBigDecimal(column.getLabel()));
-                                break;
-                            case Types.VARCHAR:
-                            case Types.NVARCHAR:
-                                row.add(resultSet.getString(column.getLabel()));
-                                break;
-                            case Types.TIMESTAMP:
-                            case Types.TIME:
-                                Date resultDate = resultSet.getDate(column.getLabel(), cal);
-        						Time resultsTime = resultSet.getTime(column.getLabel(), cal);
-        						Date d = null;
-        						if (null != resultDate && null != resultsTime)
-								{
-									d = new Date(resultDate.getTime() + resultsTime.getTime());
-									LOG.debug(column.getType() + ": " + resultDate + "/" + resultsTime + " Java: " + resultDate.getTime()
-											+ "/" + d);
-								} else {
-									LOG.debug("Date or time is null");
-								}
-                            	row.add(d);
-                                break;
-                            case Types.BLOB:
-                            case Types.VARBINARY:
-                                Blob blob = resultSet.getBlob(column.getLabel());
-                                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                                if (blob != null)
-                                {
-                                    try (InputStream binaryStream = blob.getBinaryStream())
-                                    {
-                                        byte[] buffer = new byte[1026];
-                                        int index;
-                                        while((index = binaryStream.read(buffer)) != -1)
-                                        {
-                                            out.write(buffer, 0, index);
-                                        }
-                                    }
-                                    row.add(out.toByteArray());
-                                }
-                                else
-                                {
-                                    row.add(null);
-                                }
-                                break;
-                            case Types.CLOB:
-                            case Types.LONGNVARCHAR:
-                                CharArrayWriter writer;
-                                Clob clob = resultSet.getClob(column.getLabel());
-                                if (clob != null && clob.length() > 0)
-                                {
-                                    try (Reader reader = clob.getCharacterStream())
-                                    {
-                                        writer = new CharArrayWriter();
-                                        char[] buffer = new char[1026];
-                                        int length;
-                                        while((length = reader.read(buffer)) > -1)
-                                        {
-                                            writer.write(buffer, 0, length);
-                                        }
-                                        row.add(writer.toString());
-                                    }
-                                }
-                                else
-                                {
-                                    row.add(null);
-                                }
-                                break;
-                            case Types.OTHER:
-                            default:
-							throw new IllegalArgumentException(
-									"Unsupported type: " + table.getName() + "." + column.getLabel() + "("
-											+ java.sql.JDBCType.valueOf(column.getType()).getName() + ")");
-                        }
+                        entry = openEntry(table, false, suffixes, tableCodec);
+                        writer = createWriter(table, entry);
                     }
-                    dataTable.addRow(row);
-                    if (dataTable.getRows().size() >= maxRows)
+                    writer.startRow();
+                    codec.read(resultSet, writer);
+                    writer.endRow();
+                    ++rows;
+                    if (isChunkComplete(writer))
                     {
-                    	// write a new chunk of the table to the target zip
-                        getZipper().write(dataTable, suffix);
-                        // increment the suffic
-                        ++suffix;
+                        // finish the chunk, the next row opens a new one
+                        commit(table, range, writer, entry);
                         LOG.info("... wrote table chunk.");
-                        // create a new data table
-                        dataTable = new DataTable();
-                        // set the known meta data information
-                        dataTable.setTable(table);
+                        writer = null;
+                        entry = null;
                     }
                 }
+                if (writer != null)
+                {
+                    commit(table, range, writer, entry);
+                    entry = null;
+                }
             }
+            finally
+            {
+                if (entry != null)
+                {
+                    entry.close();
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Number of rows of a full data file.
+     * @return the row limit of a data file
+     */
+    int getRowsPerFile()
+    {
+        return maxRows > 0 ? maxRows : MAX_ROWS;
+    }
+
+    /**
+     * Opens the next data file of a table. A name, which is already
+     * used by a data file of another table, is skipped.
+     */
+    private ZipWriter.Entry openEntry(final Table table, final boolean first, final AtomicInteger suffixes,
+                    final CompressionCodec tableCodec) throws IOException
+    {
+        String name = first ? ZipWriter.getEntryName(table, null, format) : null;
+        while(name == null || !getZipper().reserveEntryName(name))
+        {
+            name = ZipWriter.getEntryName(table, suffixes.getAndIncrement(), format);
         }
-        getZipper().write(dataTable);
+        return getZipper().openEntry(name, tableCodec);
+    }
+
+    /**
+     * Checks the limits of the data file. The size of the next
+     * row is estimated by the average size of the written rows.
+     */
+    private boolean isChunkComplete(final DataWriter writer)
+    {
+        long rows = writer.getRows();
+        if (chunkSize <= 0)
+        {
+            return rows >= (maxRows > 0 ? maxRows : MAX_ROWS);
+        }
+        if (maxRows > 0 && rows >= maxRows)
+        {
+            return true;
+        }
+        long bytes = writer.getBytes();
+        return bytes + bytes / rows >= chunkSize;
+    }
+
+    /**
+     * Runs the session statement of the read profile. Older
+     * database versions may not support the statement, so
+     * that a failure is ignored.
+     */
+    private void prepareSession(final Connection con)
+    {
+        if (database == null || database.getReadSessionStatement().isEmpty())
+        {
+            return;
+        }
+        try (Statement stm = con.createStatement())
+        {
+            stm.execute(database.getReadSessionStatement());
+        }
+        catch(SQLException e)
+        {
+            LOG.debug("Session statement '{}' is not supported: {}", database.getReadSessionStatement(), e.getMessage());
+        }
+    }
+
+    private DataWriter createWriter(final Table table, final OutputStream out) throws IOException
+    {
+        if (format == ArchiveFormat.BINARY)
+        {
+            return new BinaryDataWriter(table, out);
+        }
+        return new XmlDataWriter(table, out);
+    }
+
+    private void commit(final Table table, final ExportRange range, final DataWriter writer, final ZipWriter.Entry entry) throws IOException
+    {
+        writer.finish();
+        entry.commit();
+        ManifestEntry manifestEntry = getZipper().addManifestEntry(table, entry, writer.getRows());
+        if (journal != null)
+        {
+            journal.addEntry(table.getName(), range, manifestEntry);
+        }
+    }
+
+    /**
+     * Writes the table meta data file. This must
+     * be called after all data of the table is written.
+     * @param table the exported table
+     */
+    public void writeMetadata(final Table table) throws IOException, JAXBException
+    {
         // check data types of all columns of the table
         if (validateType(table))
         {
         	// write table metadata file after writing data
         	getZipper().write(table);
         }
-        return dataTable;
     }
         
     protected boolean validateType(Table table) {
@@ -275,17 +453,6 @@ public class ExportHandler
 
 	public ZipWriter getZipper()
     {
-        if (zipper == null)
-        {
-            try
-            {
-                zipper = new ZipWriter();
-            }
-            catch(JAXBException e)
-            {
-                throw new IllegalStateException("Could not create the output zip writer!", e);
-            }
-        }
         return zipper;
     }
 }
@@ -0,0 +1,504 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.data.JournalFile;
+import com.intershop.databasedumper.meta.ManifestEntry;
+
+/**
+ * Journal of a running export, which is written next to
+ * the package. Each line is a record of a committed data file,
+ * of the key ranges of a large table, of a completed range or
+ * of a completed table. The records are written after the
+ * data is part of the package, so that an interrupted export
+ * is resumed with the data files of the completed tables and
+ * ranges. The ranges of a table are part of the journal, so
+ * that a resumed export reads the remaining ranges with the
+ * same key boundaries. A range is written as its condition
+ * followed by one field per boundary, which is the type tag
+ * of the boundary and its text. The journal is removed after
+ * the package is complete.
+ */
+class ExportJournal implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ExportJournal.class);
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final String TABLE = "table";
+    private static final String RANGE = "range";
+    private static final String DONE = "done";
+    private static final String ENTRY = "entry";
+
+    private static final char DECIMAL_TAG = 'D';
+    private static final char LONG_TAG = 'L';
+    private static final char STRING_TAG = 'S';
+    private static final char TIMESTAMP_TAG = 'T';
+
+    private final JournalFile file;
+
+    private final Set<String> tables = new LinkedHashSet<>();
+    private final Map<String, List<ExportRange>> ranges = new HashMap<>();
+    private final Map<String, Set<Integer>> doneRanges = new HashMap<>();
+    private final Map<String, List<Record>> entries = new HashMap<>();
+
+    ExportJournal(final File contentFile)
+    {
+        this.file = new JournalFile(contentFile, JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Reads the journal of an interrupted export. Data files
+     * of a table, which is neither complete nor read in
+     * ranges, and data files of incomplete ranges are not
+     * part of the result, because these are read again.
+     * A table with a range, which can not be read, is read
+     * again completely.
+     * @return <code>true</code> if the journal exists
+     */
+    synchronized boolean read() throws IOException
+    {
+        if (!file.exists())
+        {
+            return false;
+        }
+        Map<String, Map<Integer, ExportRange>> plans = new HashMap<>();
+        Set<String> unreadable = new HashSet<>();
+        for (String[] fields : file.read())
+        {
+            if (fields[0].equals(TABLE) && fields.length == 2)
+            {
+                tables.add(fields[1]);
+            }
+            else if (fields[0].equals(RANGE) && fields.length >= 3)
+            {
+                try
+                {
+                    plans.computeIfAbsent(fields[1], k -> new TreeMap<>()).put(Integer.valueOf(fields[2]), decode(fields));
+                }
+                catch(IOException | IllegalArgumentException e)
+                {
+                    LOG.warn("Range {} of table {} can not be read and the table is read completely: {}", fields[2], fields[1], e.getMessage());
+                    unreadable.add(fields[1]);
+                }
+            }
+            else if (fields[0].equals(DONE) && fields.length == 3)
+            {
+                doneRanges.computeIfAbsent(fields[1], k -> new HashSet<>()).add(Integer.valueOf(fields[2]));
+            }
+            else if (fields[0].equals(ENTRY) && fields.length == 7)
+            {
+                entries.computeIfAbsent(fields[1], k -> new ArrayList<>()).add(new Record(Integer.parseInt(fields[2]), fields));
+            }
+            else
+            {
+                LOG.debug("Ignoring journal line '{}'.", String.join("\t", fields));
+            }
+        }
+        for (Map.Entry<String, Map<Integer, ExportRange>> plan : plans.entrySet())
+        {
+            if (!tables.contains(plan.getKey()) && !unreadable.contains(plan.getKey()) && plan.getValue().size() == plan.getValue().keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1)
+            {
+                ranges.put(plan.getKey(), new ArrayList<>(plan.getValue().values()));
+            }
+        }
+        doneRanges.keySet().retainAll(ranges.keySet());
+        for (Iterator<Map.Entry<String, List<Record>>> i = entries.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry<String, List<Record>> tableEntries = i.next();
+            if (!tables.contains(tableEntries.getKey()))
+            {
+                Set<Integer> done = doneRanges.getOrDefault(tableEntries.getKey(), Collections.emptySet());
+                tableEntries.getValue().removeIf(record -> !done.contains(record.range));
+            }
+            if (tableEntries.getValue().isEmpty())
+            {
+                i.remove();
+            }
+        }
+        LOG.info("Journal {} lists {} completed table(s) and {} table(s) with completed ranges.", file.getFile().getAbsolutePath(), tables.size(), doneRanges.size());
+        return true;
+    }
+
+    /**
+     * Starts the journal with the records of the resumed
+     * export. Further records are appended.
+     */
+    synchronized void open() throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, List<ExportRange>> plan : ranges.entrySet())
+        {
+            for (int i = 0; i < plan.getValue().size(); ++i)
+            {
+                lines.add(encode(plan.getKey(), i, plan.getValue().get(i)));
+            }
+        }
+        for (Map.Entry<String, Set<Integer>> done : doneRanges.entrySet())
+        {
+            for (Integer range : done.getValue())
+            {
+                lines.add(JournalFile.line(DONE, done.getKey(), range));
+            }
+        }
+        for (List<Record> records : entries.values())
+        {
+            for (Record record : records)
+            {
+                lines.add(JournalFile.line((Object[])record.fields));
+            }
+        }
+        for (String table : tables)
+        {
+            lines.add(JournalFile.line(TABLE, table));
+        }
+        file.open(lines);
+    }
+
+    /**
+     * Checks if a table is completely part of the package.
+     * @param table the name of the table
+     */
+    synchronized boolean isComplete(final String table)
+    {
+        return tables.contains(table);
+    }
+
+    /**
+     * Checks if a range of a table is part of the package.
+     * @param table the name of the table
+     * @param range a range of the journal
+     */
+    synchronized boolean isComplete(final String table, final ExportRange range)
+    {
+        return doneRanges.getOrDefault(table, Collections.emptySet()).contains(indexOf(table, range));
+    }
+
+    /**
+     * Returns the ranges of a table, which
+     * was read in ranges before.
+     * @param table the name of the table
+     * @return the ranges, an empty list for a table without ranges
+     */
+    synchronized List<ExportRange> getRanges(final String table)
+    {
+        return ranges.getOrDefault(table, Collections.emptyList());
+    }
+
+    /**
+     * Returns the data files of the completed tables and ranges.
+     * @return the data files for the manifest of the package
+     */
+    synchronized List<ManifestEntry> getEntries()
+    {
+        List<ManifestEntry> result = new ArrayList<>();
+        for (List<Record> records : entries.values())
+        {
+            for (Record record : records)
+            {
+                result.add(record.toManifestEntry());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the names of the completed tables.
+     */
+    synchronized Set<String> getTables()
+    {
+        return new LinkedHashSet<>(tables);
+    }
+
+    /**
+     * Returns the first unused chunk suffix of a table,
+     * so that data files of the remaining ranges do not
+     * replace data files of the completed ranges.
+     * @param table the name of the table
+     */
+    synchronized int getNextSuffix(final String table)
+    {
+        int next = 0;
+        for (Record record : entries.getOrDefault(table, Collections.emptyList()))
+        {
+            String name = record.fields[3];
+            int start = table.length() + 1;
+            int end = start;
+            while (end < name.length() && Character.isDigit(name.charAt(end)))
+            {
+                ++end;
+            }
+            if (name.startsWith(table + "_") && end > start)
+            {
+                next = Math.max(next, Integer.parseInt(name.substring(start, end)) + 1);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Adds the ranges of a table. Ranges with parameters
+     * of other types than numbers, strings and timestamps
+     * are not part of the journal and the table is read
+     * again completely.
+     * @param table the name of the table
+     * @param tableRanges all ranges of the table
+     */
+    synchronized void addRanges(final String table, final List<ExportRange> tableRanges) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        try
+        {
+            for (int i = 0; i < tableRanges.size(); ++i)
+            {
+                lines.add(encode(table, i, tableRanges.get(i)));
+            }
+        }
+        catch(IOException e)
+        {
+            LOG.info("Ranges of table {} are not part of the journal: {}", table, e.getMessage());
+            return;
+        }
+        ranges.put(table, tableRanges);
+        file.write(lines.toArray(new String[0]));
+    }
+
+    /**
+     * Adds a committed data file.
+     * @param table the name of the table
+     * @param range the range of the data file, <code>null</code> for a table read completely
+     * @param entry the data file
+     */
+    synchronized void addEntry(final String table, final ExportRange range, final ManifestEntry entry) throws IOException
+    {
+        file.write(JournalFile.line(ENTRY, table, indexOf(table, range), entry.getName(), entry.getRows(), entry.getSize(), entry.getChecksum()));
+    }
+
+    /**
+     * Marks a range of a table as completed.
+     * @param table the name of the table
+     * @param range the completed range
+     */
+    synchronized void complete(final String table, final ExportRange range) throws IOException
+    {
+        int index = indexOf(table, range);
+        if (index >= 0)
+        {
+            doneRanges.computeIfAbsent(table, k -> new HashSet<>()).add(index);
+            file.write(JournalFile.line(DONE, table, index));
+        }
+    }
+
+    /**
+     * Marks a table as completed, after its data files
+     * and its meta data file are part of the package.
+     * @param table the name of the table
+     */
+    synchronized void complete(final String table) throws IOException
+    {
+        tables.add(table);
+        file.write(JournalFile.line(TABLE, table));
+    }
+
+    /**
+     * Removes the journal of a complete package.
+     */
+    synchronized void delete() throws IOException
+    {
+        file.delete();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        file.close();
+    }
+
+    private int indexOf(final String table, final ExportRange range)
+    {
+        if (range == null)
+        {
+            return -1;
+        }
+        // the ranges of the journal are the ranges of the read tasks
+        List<ExportRange> tableRanges = ranges.getOrDefault(table, Collections.emptyList());
+        for (int i = 0; i < tableRanges.size(); ++i)
+        {
+            if (tableRanges.get(i) == range)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String encode(final String table, final int index, final ExportRange range) throws IOException
+    {
+        List<Object> fields = new ArrayList<>(Arrays.asList(RANGE, table, index, escape(range.getCondition())));
+        for (Object parameter : range.getParameters())
+        {
+            if (parameter instanceof BigDecimal)
+            {
+                fields.add(DECIMAL_TAG + ((BigDecimal)parameter).toPlainString());
+            }
+            else if (parameter instanceof Long || parameter instanceof Integer || parameter instanceof Short || parameter instanceof Byte)
+            {
+                fields.add(LONG_TAG + parameter.toString());
+            }
+            else if (parameter instanceof String)
+            {
+                fields.add(STRING_TAG + escape((String)parameter));
+            }
+            else if (parameter instanceof Timestamp)
+            {
+                fields.add(TIMESTAMP_TAG + parameter.toString());
+            }
+            else
+            {
+                throw new IOException("Range parameter of type " + (parameter == null ? null : parameter.getClass().getName()) + " is not supported.");
+            }
+        }
+        return JournalFile.line(fields.toArray());
+    }
+
+    private static ExportRange decode(final String[] fields) throws IOException
+    {
+        if (fields.length < 5)
+        {
+            throw new IOException("Range without parameters.");
+        }
+        String condition = unescape(fields[3]);
+        Object[] parameters = new Object[fields.length - 4];
+        for (int i = 0; i < parameters.length; ++i)
+        {
+            String field = fields[i + 4];
+            if (field.isEmpty())
+            {
+                throw new IOException("Range parameter without type.");
+            }
+            String value = field.substring(1);
+            switch(field.charAt(0))
+            {
+                case DECIMAL_TAG:
+                    parameters[i] = new BigDecimal(value);
+                    break;
+                case LONG_TAG:
+                    parameters[i] = Long.valueOf(value);
+                    break;
+                case STRING_TAG:
+                    parameters[i] = unescape(value);
+                    break;
+                case TIMESTAMP_TAG:
+                    parameters[i] = Timestamp.valueOf(value);
+                    break;
+                default:
+                    throw new IOException("Unknown type of range parameter '" + field + "'.");
+            }
+        }
+        if (condition.chars().filter(c -> c == '?').count() != parameters.length)
+        {
+            throw new IOException("Range condition '" + condition + "' does not match its parameters.");
+        }
+        return new ExportRange(condition, parameters);
+    }
+
+    /**
+     * Escapes the characters, which separate the
+     * fields and the lines of the journal.
+     */
+    private static String escape(final String value)
+    {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(final String value) throws IOException
+    {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); ++i)
+        {
+            char c = value.charAt(i);
+            if (c == '\\')
+            {
+                if (++i == value.length())
+                {
+                    throw new IOException("Incomplete escape sequence in '" + value + "'.");
+                }
+                switch(value.charAt(i))
+                {
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    default:
+                        c = value.charAt(i);
+                }
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * A committed data file of the journal.
+     */
+    private static class Record
+    {
+        private final int range;
+        private final String[] fields;
+
+        Record(final int range, final String[] fields)
+        {
+            this.range = range;
+            this.fields = fields;
+        }
+
+        ManifestEntry toManifestEntry()
+        {
+            ManifestEntry entry = new ManifestEntry();
+            entry.setTable(fields[1]);
+            entry.setName(fields[3]);
+            entry.setRows(Long.parseLong(fields[4]));
+            entry.setSize(Long.parseLong(fields[5]));
+            entry.setChecksum(fields[6]);
+            return entry;
+        }
+    }
+}
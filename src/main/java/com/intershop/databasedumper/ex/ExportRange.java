@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A part of a table, which is read
+ * with its own query. The range is
+ * described by a condition with
+ * bind parameters. A range is part of the
+ * export journal, so that the parameters
+ * should be numbers, strings or timestamps.
+ */
+public class ExportRange
+{
+    private final String condition;
+    private final List<Object> parameters;
+
+    public ExportRange(String condition, Object... parameters)
+    {
+        this.condition = condition;
+        this.parameters = Collections.unmodifiableList(Arrays.asList(parameters));
+    }
+
+    /**
+     * Get the SQL condition of the range
+     * @return condition with '?' for all parameters
+     */
+    public String getCondition()
+    {
+        return condition;
+    }
+
+    public List<Object> getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Set all parameters of the range
+     * @param stm statement with the condition of this range
+     */
+    public void bind(PreparedStatement stm) throws SQLException
+    {
+        int index = 0;
+        for (Object parameter : parameters)
+        {
+            stm.setObject(++index, parameter);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ExportRange [condition=" + condition + ", parameters=" + parameters + "]";
+    }
+}
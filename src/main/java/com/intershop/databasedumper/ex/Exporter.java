@@ -0,0 +1,407 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.ArchiveFormat;
+import com.intershop.databasedumper.ArchiveLayout;
+import com.intershop.databasedumper.CompressionCodec;
+import com.intershop.databasedumper.ConnectionFactory;
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Class with main export functionality.
+ * Tables are read by a pool of workers, each
+ * with its own connection. Large tables are
+ * split into ranges, which are read in parallel.
+ * The largest tables are read first.
+ */
+public class Exporter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(Exporter.class);
+
+    private static final long PARTITION_MIN_ROWS = 1000000;
+
+    private final File contentFile;
+    private final String scheme;
+    private final ConnectionFactory conFactory;
+    private final ExportHandler handler;
+    private final TableScheduler scheduler = new TableScheduler();
+
+    private SupportedDatabase database;
+
+    private int threads = 1;
+    private int partitions = 1;
+    private long partitionMinRows = PARTITION_MIN_ROWS;
+    private ArchiveLayout layout = ArchiveLayout.ZIP;
+    private long volumeSize = 0;
+    private List<String> blacklist = Collections.emptyList();
+    private boolean resume = false;
+    private ExportJournal journal;
+
+    private final Queue<Future<Void>> results = new ConcurrentLinkedQueue<>();
+
+    public Exporter(final String url, final String username, final String password, final File file,
+                    final int maxRows)
+    {
+        super();
+
+        boolean withCredentials = username != null && password != null && !password.isEmpty();
+
+        this.contentFile = file;
+        this.scheme = withCredentials ? username.toUpperCase() : null;
+        this.conFactory = withCredentials ? new ConnectionFactory(url, username, password) : new ConnectionFactory(url, null, null);
+        this.handler = new ExportHandler(maxRows);
+    }
+
+    /**
+     * Set the number of workers.
+     * @param threads number of tables or ranges read at the same time
+     */
+    public void setThreads(int threads)
+    {
+        this.threads = threads < 1 ? 1 : threads;
+    }
+
+    /**
+     * Configure the range reads of large tables.
+     * @param partitions number of ranges for a large table, 1 disables range reads
+     * @param partitionMinRows minimum number of rows of a large table, values less than 1 use the default
+     */
+    public void setPartitions(int partitions, long partitionMinRows)
+    {
+        this.partitions = partitions < 1 ? 1 : partitions;
+        this.partitionMinRows = partitionMinRows < 1 ? PARTITION_MIN_ROWS : partitionMinRows;
+    }
+
+    /**
+     * Set the target size of a data file.
+     * @param chunkSize size in bytes, values less than 1 limit data files by the row limit only
+     */
+    public void setChunkSize(long chunkSize)
+    {
+        handler.setChunkSize(chunkSize);
+    }
+
+    /**
+     * Set the number of rows fetched with one round-trip.
+     * @param fetchSize the fetch size, values less than 1 use the default of the database
+     */
+    public void setFetchSize(int fetchSize)
+    {
+        handler.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Set the format of the data files.
+     * @param format the format of the data files
+     */
+    public void setFormat(ArchiveFormat format)
+    {
+        handler.setFormat(format);
+    }
+
+    /**
+     * Set the compression of the data files.
+     * @param codec the compression of all tables without own compression
+     * @param tableCodecs the compression of single tables by upper case table name
+     */
+    public void setCompression(CompressionCodec codec, Map<String, CompressionCodec> tableCodecs)
+    {
+        handler.setCompression(codec, tableCodecs);
+    }
+
+    /**
+     * Set the layout of the package.
+     * @param layout zip file or directory
+     * @param volumeSize size of a zip volume in bytes, values less than 1 write a single zip file
+     */
+    public void setLayout(ArchiveLayout layout, long volumeSize)
+    {
+        this.layout = layout;
+        this.volumeSize = volumeSize;
+    }
+
+    public void setBlacklist(List<String> blacklist)
+    {
+        this.blacklist = blacklist;
+    }
+
+    /**
+     * Resume an interrupted export with the journal of the package.
+     * Completed tables and ranges are not read again.
+     * @param resume true to continue the export of an existing package
+     */
+    public void setResume(boolean resume)
+    {
+        this.resume = resume;
+    }
+
+    /**
+     * Run export and zip the content
+     */
+    public void doExport() throws JAXBException, IOException, SQLException
+    {
+        LOG.info("Destination for export is : {}", contentFile.getAbsolutePath());
+
+        journal = new ExportJournal(contentFile);
+        boolean resumed = resume && journal.read();
+        if (resume && !resumed && ArchiveLayout.exists(contentFile))
+        {
+            throw new IOException("The package " + contentFile.getAbsolutePath() + " has no export journal and can not be resumed.");
+        }
+
+        try (ZipWriter zipper = handler.getZipper(); ConnectionFactory factory = conFactory; ExportJournal exportJournal = journal)
+        {
+            if (resumed)
+            {
+                LOG.info("Resuming the export with {} completed table(s).", exportJournal.getTables().size());
+                zipper.resume(contentFile, layout, volumeSize, exportJournal);
+            }
+            else
+            {
+                zipper.open(contentFile, layout, volumeSize);
+            }
+            // the new journal lists the copied data files, the partial files are not needed anymore
+            exportJournal.open();
+            zipper.removePartialFiles();
+            handler.setJournal(exportJournal);
+            // with several workers each data file is spooled next to the package
+            zipper.setSpoolDirectory(threads > 1 ? contentFile.getAbsoluteFile().getParentFile() : null);
+            factory.setMaxTotal(threads);
+
+            // the read profile of the database is part of the pool configuration
+            database = readDatabase(factory.readProductName());
+            if (database != null)
+            {
+                factory.setConnectionProperties(database.getConnectionProperties());
+            }
+            handler.setDatabase(database);
+
+            List<Table> tables = new ArrayList<>();
+            try (Connection con = factory.create())
+            {
+                for (Table table : handler.readTableNames(con, scheme))
+                {
+                    if (isBlacklistedTable(table.getName()))
+                    {
+                        LOG.info("Ignoring table {}, because it is blacklisted!", table.getName());
+                        continue;
+                    }
+                    if (exportJournal.isComplete(table.getName()))
+                    {
+                        LOG.info("Table {} is already exported.", table.getName());
+                        continue;
+                    }
+                    tables.add(table);
+                }
+                scheduler.readEstimates(database, con);
+            }
+
+            LOG.info("Exporting tables with {} worker(s).", threads);
+            ExecutorService exportService = scheduler.newExecutor(threads);
+            try
+            {
+                // a large table started last would extend the export, the largest tables are read first
+                for (Table table : scheduler.order(tables))
+                {
+                    results.add(exportService.submit(scheduler.tableTask(table, () -> exportTable(table, exportService))));
+                }
+                waitForResults();
+            }
+            finally
+            {
+                exportService.shutdownNow();
+            }
+            // the manifest is only written for a complete package
+            zipper.writeManifest();
+            exportJournal.delete();
+        }
+    }
+
+    private SupportedDatabase readDatabase(final String productName)
+    {
+        try
+        {
+            return SupportedDatabase.getSupportedDatabase(productName);
+        }
+        catch(IllegalArgumentException e)
+        {
+            LOG.info("Database {} is not a supported database. Large tables are only split by numeric keys and the driver defaults are used for reads.", productName);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a table completely or submits a read
+     * task for each range of a large table.
+     */
+    private Void exportTable(final Table table, final ExecutorService exportService) throws SQLException, IOException, JAXBException
+    {
+        try (Connection con = conFactory.create())
+        {
+            // a resumed export reads the ranges of the journal
+            List<ExportRange> ranges = journal.getRanges(table.getName());
+            if (!ranges.isEmpty())
+            {
+                handler.readColumns(table, con);
+            }
+            else if (partitions > 1)
+            {
+                handler.readColumns(table, con);
+                TablePartitioner partitioner = new TablePartitioner(database, scheme);
+                long rows = partitioner.countRows(table, con);
+                // a table larger than the share of one worker is split, if each range fills a data file
+                if (rows >= partitionMinRows
+                                || scheduler.isDominant(table.getName(), threads) && rows >= (long) partitions * handler.getRowsPerFile())
+                {
+                    ranges = partitioner.plan(table, con, partitions);
+                    journal.addRanges(table.getName(), ranges);
+                }
+            }
+
+            if (ranges.isEmpty())
+            {
+                LOG.info("Reading table {}", table.getName());
+                handler.readData(table, con);
+                journal.complete(table.getName());
+                LOG.info("Exported data for {}", table.getName());
+                return null;
+            }
+
+            List<ExportRange> openRanges = new ArrayList<>();
+            for (ExportRange range : ranges)
+            {
+                if (!journal.isComplete(table.getName(), range))
+                {
+                    openRanges.add(range);
+                }
+            }
+            if (openRanges.isEmpty())
+            {
+                completeRanges(table);
+                return null;
+            }
+
+            LOG.info("Reading table {} in {} ranges", table.getName(), ranges.size());
+            if (openRanges.size() < ranges.size())
+            {
+                LOG.info("{} ranges of table {} are already exported.", ranges.size() - openRanges.size(), table.getName());
+            }
+            AtomicInteger suffixes = new AtomicInteger(journal.getNextSuffix(table.getName()));
+            AtomicInteger remainingRanges = new AtomicInteger(openRanges.size());
+            for (ExportRange range : openRanges)
+            {
+                results.add(exportService.submit(scheduler.rangeTask(table, ranges.size(), () -> {
+                    try (Connection rangeCon = conFactory.create())
+                    {
+                        handler.readData(table, rangeCon, range, suffixes);
+                    }
+                    journal.complete(table.getName(), range);
+                    if (remainingRanges.decrementAndGet() == 0)
+                    {
+                        completeRanges(table);
+                    }
+                    return null;
+                })));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the meta data of a table, after all ranges are read.
+     */
+    private void completeRanges(final Table table) throws IOException, JAXBException
+    {
+        handler.writeMetadata(table);
+        journal.complete(table.getName());
+        LOG.info("Exported data for {}", table.getName());
+    }
+
+    /**
+     * Waits until all export workers are finished. Range reads
+     * are added by running workers, before they are finished.
+     * The first failure of a worker stops the export.
+     */
+    private void waitForResults() throws JAXBException, IOException, SQLException
+    {
+        try
+        {
+            Future<Void> result;
+            while((result = results.poll()) != null)
+            {
+                result.get();
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export was interrupted!", e);
+        }
+        catch(ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof JAXBException)
+            {
+                throw (JAXBException)cause;
+            }
+            if (cause instanceof IOException)
+            {
+                throw (IOException)cause;
+            }
+            if (cause instanceof SQLException)
+            {
+                throw (SQLException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Checks if the table black list contains the table name. 
+     * @param tableName
+     * @return
+     */
+    private boolean isBlacklistedTable(String tableName)
+    {
+        return blacklist.contains(tableName.toUpperCase());
+    }
+}
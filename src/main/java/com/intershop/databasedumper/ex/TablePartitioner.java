@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Splits a table into key ranges, which can be read
+ * at the same time with different connections.
+ * <ul>
+ * <li>a numeric primary key is split into ranges of equal width</li>
+ * <li>on databases with a row address (Oracle ROWID) equal sized buckets of row addresses are used</li>
+ * <li>other primary keys are split in equal sized buckets with NTILE or row numbers</li>
+ * </ul>
+ */
+public class TablePartitioner
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TablePartitioner.class);
+
+    private final SupportedDatabase database;
+    private final String scheme;
+
+    /**
+     * Constructor of the partitioner
+     * @param database the connected database, <code>null</code> if it is not a supported database
+     * @param scheme the scheme of the tables (optional)
+     */
+    public TablePartitioner(SupportedDatabase database, String scheme)
+    {
+        this.database = database;
+        this.scheme = scheme;
+    }
+
+    public long countRows(final Table table, final Connection con) throws SQLException
+    {
+        try (PreparedStatement stm = con.prepareStatement(String.format("select count(*) from %s", table.getName()));
+             ResultSet resultSet = stm.executeQuery())
+        {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Calculates the ranges for a table.
+     * @param table the table with column information
+     * @param con the connection for reading
+     * @param partitions the number of expected ranges
+     * @return list of ranges, an empty list if the table can not be split
+     */
+    public List<ExportRange> plan(final Table table, final Connection con, final int partitions) throws SQLException
+    {
+        if (partitions < 2)
+        {
+            return Collections.emptyList();
+        }
+
+        List<String> keys = readPrimaryKey(table, con);
+        try
+        {
+            if (keys.size() == 1 && isNumeric(table, keys.get(0)))
+            {
+                return numericRanges(table, con, keys.get(0), partitions);
+            }
+            if (database != null && !database.getRowIdExpression().isEmpty())
+            {
+                return boundaryRanges(table, con, database.getRowIdExpression(), database.getRowIdParameter(), partitions);
+            }
+            if (!keys.isEmpty() && database != null && !database.getPartitionBoundaryQuery().isEmpty())
+            {
+                return boundaryRanges(table, con, keys.get(0), "?", partitions);
+            }
+        }
+        catch(SQLException e)
+        {
+            LOG.warn("Table {} can not be split into ranges and is read completely: {}", table.getName(), e.getMessage());
+            return Collections.emptyList();
+        }
+
+        LOG.info("Table {} has no key for ranges and is read completely.", table.getName());
+        return Collections.emptyList();
+    }
+
+    private List<String> readPrimaryKey(final Table table, final Connection con) throws SQLException
+    {
+        Map<Short, String> keys = readPrimaryKey(table, con, scheme);
+        if (keys.isEmpty() && scheme != null)
+        {
+            keys = readPrimaryKey(table, con, null);
+        }
+        return new ArrayList<>(keys.values());
+    }
+
+    private Map<Short, String> readPrimaryKey(final Table table, final Connection con, final String keyScheme) throws SQLException
+    {
+        Map<Short, String> keys = new TreeMap<>();
+        try (ResultSet resultSet = con.getMetaData().getPrimaryKeys(null, keyScheme, table.getName()))
+        {
+            while(resultSet.next())
+            {
+                keys.put(resultSet.getShort("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+            }
+        }
+        return keys;
+    }
+
+    private boolean isNumeric(final Table table, final String key)
+    {
+        for (Column column : table.getColumns())
+        {
+            if (column.getLabel().equalsIgnoreCase(key))
+            {
+                switch(column.getType())
+                {
+                    case Types.NUMERIC:
+                    case Types.DECIMAL:
+                    case Types.BIGINT:
+                    case Types.INTEGER:
+                    case Types.SMALLINT:
+                    case Types.TINYINT:
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<ExportRange> numericRanges(final Table table, final Connection con, final String key, final int partitions) throws SQLException
+    {
+        BigDecimal min;
+        BigDecimal max;
+        try (PreparedStatement stm = con.prepareStatement(String.format("select min(%1$s), max(%1$s) from %2$s", key, table.getName()));
+             ResultSet resultSet = stm.executeQuery())
+        {
+            if (!resultSet.next())
+            {
+                return Collections.emptyList();
+            }
+            min = resultSet.getBigDecimal(1);
+            max = resultSet.getBigDecimal(2);
+        }
+        if (min == null || max == null || max.compareTo(min) <= 0)
+        {
+            return Collections.emptyList();
+        }
+
+        BigDecimal step = max.subtract(min).divide(BigDecimal.valueOf(partitions), MathContext.DECIMAL64);
+        if (min.scale() <= 0 && max.scale() <= 0)
+        {
+            step = step.setScale(0, RoundingMode.CEILING);
+        }
+
+        List<Object> boundaries = new ArrayList<>();
+        for (int i = 1; i < partitions; ++i)
+        {
+            BigDecimal boundary = min.add(step.multiply(BigDecimal.valueOf(i)));
+            if (boundary.compareTo(max) > 0)
+            {
+                break;
+            }
+            boundaries.add(boundary);
+        }
+        return ranges(key, "?", boundaries);
+    }
+
+    private List<ExportRange> boundaryRanges(final Table table, final Connection con, final String key, final String parameter,
+                    final int partitions) throws SQLException
+    {
+        List<Object> boundaries = new ArrayList<>();
+        try (PreparedStatement stm = con.prepareStatement(String.format(database.getPartitionBoundaryQuery(), key, partitions, table.getName()));
+             ResultSet resultSet = stm.executeQuery())
+        {
+            boolean first = true;
+            while(resultSet.next())
+            {
+                Object boundary = resultSet.getObject(1);
+                // the first bucket starts with the smallest key
+                if (!first && boundary != null && !Objects.equals(boundary, boundaries.isEmpty() ? null : boundaries.get(boundaries.size() - 1)))
+                {
+                    boundaries.add(boundary);
+                }
+                first = false;
+            }
+        }
+        return ranges(key, parameter, boundaries);
+    }
+
+    /**
+     * Creates the ranges for the lower boundaries. The first
+     * and the last range are open, so that all rows are part
+     * of exactly one range.
+     */
+    private List<ExportRange> ranges(final String key, final String parameter, final List<Object> boundaries)
+    {
+        List<ExportRange> ranges = new ArrayList<>();
+        if (boundaries.isEmpty())
+        {
+            return ranges;
+        }
+        ranges.add(new ExportRange(key + " < " + parameter, boundaries.get(0)));
+        for (int i = 1; i < boundaries.size(); ++i)
+        {
+            ranges.add(new ExportRange(key + " >= " + parameter + " and " + key + " < " + parameter,
+                            boundaries.get(i - 1), boundaries.get(i)));
+        }
+        ranges.add(new ExportRange(key + " >= " + parameter, boundaries.get(boundaries.size() - 1)));
+        return ranges;
+    }
+}
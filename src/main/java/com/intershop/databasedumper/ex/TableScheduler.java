@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Orders the tables of an export by their estimated size,
+ * so that the largest tables are read first and do not
+ * extend the export at the end. The sizes are taken from the
+ * statistics of the database, the allocated bytes if the
+ * database reports them and the number of rows otherwise.
+ * A table, which is larger than the share of one worker,
+ * dominates the runtime and should be read in ranges.
+ * The waiting read tasks of the workers are ordered by
+ * size as well, so that the ranges of a large table are
+ * read before the small tables.
+ */
+class TableScheduler
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TableScheduler.class);
+
+    private final Map<String, Long> rows = new HashMap<>();
+    private final Map<String, Long> bytes = new HashMap<>();
+
+    private Map<String, Long> sizes = new HashMap<>();
+    private long total = 0;
+
+    /**
+     * Reads the estimated sizes of all tables. The tables keep their
+     * order, if the database has no statistics or the query fails.
+     * @param database the connected database, <code>null</code> if it is not a supported database
+     * @param con the connection for reading
+     */
+    void readEstimates(final SupportedDatabase database, final Connection con)
+    {
+        if (database == null || database.getTableSizeQuery().isEmpty())
+        {
+            return;
+        }
+        try (PreparedStatement stm = con.prepareStatement(database.getTableSizeQuery());
+             ResultSet resultSet = stm.executeQuery())
+        {
+            while(resultSet.next())
+            {
+                String tableName = String.valueOf(resultSet.getString(1)).toUpperCase();
+                // tables of several schemes with the same name are estimated by the larger one
+                rows.merge(tableName, resultSet.getLong(2), Math::max);
+                bytes.merge(tableName, resultSet.getLong(3), Math::max);
+            }
+        }
+        catch(SQLException e)
+        {
+            LOG.warn("The sizes of the tables could not be estimated, the tables are exported by name: {}", e.getMessage());
+            rows.clear();
+            bytes.clear();
+        }
+    }
+
+    /**
+     * Orders the tables by their estimated size, the largest table first.
+     * The sizes of these tables are the base of {@link #isDominant(String, int)}.
+     * @param tables the tables of the export
+     * @return the ordered tables
+     */
+    List<Table> order(final List<Table> tables)
+    {
+        // the bytes include wide rows and large objects, the rows are used without byte sizes
+        boolean withBytes = tables.stream().anyMatch(t -> bytes.getOrDefault(t.getName(), 0L) > 0);
+        sizes = withBytes ? bytes : rows;
+        total = 0;
+        for (Table table : tables)
+        {
+            total += getSize(table.getName());
+        }
+
+        List<Table> ordered = new ArrayList<>(tables);
+        ordered.sort(Comparator.comparingLong((Table t) -> getSize(t.getName())).reversed());
+        if (total > 0)
+        {
+            LOG.info("Exporting tables by estimated {}, the largest table first.", withBytes ? "size" : "number of rows");
+            for (Table table : ordered)
+            {
+                LOG.debug("Table {} has an estimated {} of {}.", table.getName(), withBytes ? "size" : "number of rows", getSize(table.getName()));
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Checks, if a table is larger than the share of one worker.
+     * Such a table takes longer than all other tables of its worker
+     * and sets the runtime of the export, if it is read completely.
+     * @param tableName name of the table
+     * @param workers number of workers
+     * @return true, if the table dominates the export
+     */
+    boolean isDominant(final String tableName, final int workers)
+    {
+        return workers > 1 && total > 0 && getSize(tableName) * workers > total;
+    }
+
+    /**
+     * Creates the workers of the export. Waiting tasks are started by
+     * their estimated size, tasks of the same size in the order they were
+     * submitted. Tasks must be submitted as {@link Callable}.
+     * @param workers number of workers
+     * @return the executor service
+     */
+    ExecutorService newExecutor(final int workers)
+    {
+        return new SizeOrderedExecutor(workers);
+    }
+
+    /**
+     * Creates the read task of a table with the estimated size of the table.
+     * @param table the table
+     * @param task the read task
+     * @return the task for the executor
+     */
+    Callable<Void> tableTask(final Table table, final Callable<Void> task)
+    {
+        return new SizedTask(getSize(table.getName()), task);
+    }
+
+    /**
+     * Creates the read task of a range with the estimated size of one range.
+     * @param table the table
+     * @param ranges number of ranges of the table
+     * @param task the read task
+     * @return the task for the executor
+     */
+    Callable<Void> rangeTask(final Table table, final int ranges, final Callable<Void> task)
+    {
+        return new SizedTask(getSize(table.getName()) / Math.max(1, ranges), task);
+    }
+
+    private long getSize(final String tableName)
+    {
+        return sizes.getOrDefault(tableName, 0L);
+    }
+
+    private static final class SizedTask implements Callable<Void>
+    {
+        private final long size;
+        private final Callable<Void> task;
+
+        private SizedTask(final long size, final Callable<Void> task)
+        {
+            this.size = size;
+            this.task = task;
+        }
+
+        @Override
+        public Void call() throws Exception
+        {
+            return task.call();
+        }
+    }
+
+    private static final class SizeOrderedExecutor extends ThreadPoolExecutor
+    {
+        private final AtomicLong sequence = new AtomicLong();
+
+        private SizeOrderedExecutor(final int workers)
+        {
+            super(workers, workers, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>());
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable)
+        {
+            long size = callable instanceof SizedTask ? ((SizedTask)callable).size : 0;
+            return new SizedFuture<>(callable, size, sequence.getAndIncrement());
+        }
+    }
+
+    private static final class SizedFuture<T> extends FutureTask<T> implements Comparable<SizedFuture<?>>
+    {
+        private final long size;
+        private final long sequence;
+
+        private SizedFuture(final Callable<T> callable, final long size, final long sequence)
+        {
+            super(callable);
+            this.size = size;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(final SizedFuture<?> other)
+        {
+            int result = Long.compare(other.size, size);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Zip file of an interrupted export, which is read
+ * by the local headers of its entries. The central
+ * directory is missing, if the export process stopped
+ * or the disk was full. The package writes the sizes and the
+ * checksum into the local header after the entry, so that
+ * all completed entries are found one after another. The
+ * entries are copied without decompression.
+ */
+class UnfinishedZipFile implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(UnfinishedZipFile.class);
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final File file;
+    private final FileChannel channel;
+
+    UnfinishedZipFile(final File file) throws IOException
+    {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Copies the raw content of entries.
+     * @param filter accepts the names of the copied entries
+     * @param target receives each accepted entry with its compressed content
+     */
+    void copyEntries(final Predicate<String> filter, final RawEntryConsumer target) throws IOException
+    {
+        long position = 0;
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + LOCAL_HEADER_SIZE <= length)
+        {
+            header.clear();
+            read(header, position);
+            if (header.getInt(0) != LOCAL_HEADER_SIGNATURE)
+            {
+                // central directory or the start of an incomplete entry
+                break;
+            }
+            int flags = header.getShort(6) & 0xFFFF;
+            int method = header.getShort(8) & 0xFFFF;
+            long crc = header.getInt(14) & 0xFFFFFFFFL;
+            long compressedSize = header.getInt(18) & 0xFFFFFFFFL;
+            long size = header.getInt(22) & 0xFFFFFFFFL;
+            int nameLength = header.getShort(26) & 0xFFFF;
+            int extraLength = header.getShort(28) & 0xFFFF;
+
+            ByteBuffer nameAndExtra = ByteBuffer.allocate(nameLength + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+            read(nameAndExtra, position + LOCAL_HEADER_SIZE);
+            String name = new String(nameAndExtra.array(), 0, nameLength, StandardCharsets.UTF_8);
+            if ((flags & DATA_DESCRIPTOR_FLAG) != 0)
+            {
+                LOG.warn("Entry {} of {} has no sizes in the local header. Following entries are not copied.", name, file.getName());
+                break;
+            }
+            if (compressedSize == ZIP64_MAGIC || size == ZIP64_MAGIC)
+            {
+                int extra = nameLength;
+                while (extra + 4 <= nameAndExtra.limit())
+                {
+                    int id = nameAndExtra.getShort(extra) & 0xFFFF;
+                    int dataLength = nameAndExtra.getShort(extra + 2) & 0xFFFF;
+                    if (id == ZIP64_EXTRA_ID && dataLength >= 16)
+                    {
+                        size = nameAndExtra.getLong(extra + 4);
+                        compressedSize = nameAndExtra.getLong(extra + 12);
+                        break;
+                    }
+                    extra += 4 + dataLength;
+                }
+            }
+
+            long dataPosition = position + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            if (dataPosition + compressedSize > length)
+            {
+                // the last entry was not completed
+                break;
+            }
+            if (filter.test(name))
+            {
+                ZipArchiveEntry entry = new ZipArchiveEntry(name);
+                entry.setMethod(method);
+                entry.setCrc(crc);
+                entry.setSize(size);
+                entry.setCompressedSize(compressedSize);
+                InputStream content = ByteStreams.limit(Channels.newInputStream(channel.position(dataPosition)), compressedSize);
+                target.accept(entry, content);
+            }
+            position = dataPosition + compressedSize;
+        }
+    }
+
+    private void read(final ByteBuffer buffer, final long position) throws IOException
+    {
+        long offset = position;
+        while (buffer.hasRemaining())
+        {
+            int count = channel.read(buffer, offset);
+            if (count < 0)
+            {
+                throw new EOFException("Unexpected end of " + file.getName());
+            }
+            offset += count;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Receives a copied entry.
+     */
+    interface RawEntryConsumer
+    {
+        /**
+         * @param entry the entry with method, checksum and sizes
+         * @param content the compressed content of the entry
+         */
+        void accept(ZipArchiveEntry entry, InputStream content) throws IOException;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import com.google.common.io.CountingOutputStream;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Writes a data file row by row. The result is
+ * the same XML, which is created by JAXB for a
+ * {@link com.intershop.databasedumper.data.DataTable},
+ * but no row is kept in memory.
+ */
+public class XmlDataWriter implements DataWriter
+{
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<dataTable xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://www.w3.org/2001/XMLSchema-Instance\">\n";
+    private static final String ELEMENT = "        <element xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xsi:type=\"xs:";
+    private static final String NIL_ELEMENT = "        <element xsi:nil=\"true\"/>\n";
+    private static final String END_ELEMENT = "</element>\n";
+
+    private static final int BUFFER_SIZE = 3 * 1024;
+
+    private final Table table;
+    private final CountingOutputStream counter;
+    private final Writer writer;
+    private final Calendar calendar = new GregorianCalendar();
+    private final char[] charBuffer = new char[BUFFER_SIZE];
+    private final byte[] byteBuffer = new byte[BUFFER_SIZE];
+
+    private long rows = 0;
+
+    public XmlDataWriter(final Table table, final OutputStream out) throws IOException
+    {
+        this.table = table;
+        this.counter = new CountingOutputStream(out);
+        this.writer = new BufferedWriter(new OutputStreamWriter(counter, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(HEADER);
+    }
+
+    @Override
+    public void startRow() throws IOException
+    {
+        writer.write("    <rows>\n");
+    }
+
+    @Override
+    public void endRow() throws IOException
+    {
+        writer.write("    </rows>\n");
+        ++rows;
+    }
+
+    @Override
+    public long getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Returns the number of bytes passed to the stream.
+     * Content in the write buffer is not included.
+     * @return number of written bytes
+     */
+    @Override
+    public long getBytes()
+    {
+        return counter.getCount();
+    }
+
+    @Override
+    public void writeNull() throws IOException
+    {
+        writer.write(NIL_ELEMENT);
+    }
+
+    @Override
+    public void writeLong(final long value) throws IOException
+    {
+        startElement("decimal");
+        writer.write(Long.toString(value));
+        writer.write(END_ELEMENT);
+    }
+
+    @Override
+    public void writeDecimal(final BigDecimal value) throws IOException
+    {
+        if (value == null)
+        {
+            writeNull();
+            return;
+        }
+        startElement("decimal");
+        writer.write(value.toPlainString());
+        writer.write(END_ELEMENT);
+    }
+
+    @Override
+    public void writeString(final String value) throws IOException
+    {
+        if (value == null)
+        {
+            writeNull();
+            return;
+        }
+        startElement("string");
+        escape(value.toCharArray(), value.length());
+        writer.write(END_ELEMENT);
+    }
+
+    @Override
+    public void writeString(final Reader reader) throws IOException
+    {
+        if (reader == null)
+        {
+            writeNull();
+            return;
+        }
+        startElement("string");
+        int length;
+        while((length = reader.read(charBuffer)) > -1)
+        {
+            escape(charBuffer, length);
+        }
+        writer.write(END_ELEMENT);
+    }
+
+    /**
+     * Writes a date as dateTime of the default time zone,
+     * with milliseconds only if they are not zero.
+     * @param value the date
+     */
+    @Override
+    public void writeDateTime(final Date value) throws IOException
+    {
+        if (value == null)
+        {
+            writeNull();
+            return;
+        }
+        calendar.setTime(value);
+        startElement("dateTime");
+        pad(calendar.get(Calendar.YEAR), 4);
+        writer.write('-');
+        pad(calendar.get(Calendar.MONTH) + 1, 2);
+        writer.write('-');
+        pad(calendar.get(Calendar.DAY_OF_MONTH), 2);
+        writer.write('T');
+        pad(calendar.get(Calendar.HOUR_OF_DAY), 2);
+        writer.write(':');
+        pad(calendar.get(Calendar.MINUTE), 2);
+        writer.write(':');
+        pad(calendar.get(Calendar.SECOND), 2);
+        int millis = calendar.get(Calendar.MILLISECOND);
+        if (millis != 0)
+        {
+            writer.write('.');
+            pad(millis, 3);
+        }
+        int offset = (calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET)) / 60000;
+        if (offset == 0)
+        {
+            writer.write('Z');
+        }
+        else
+        {
+            writer.write(offset < 0 ? '-' : '+');
+            offset = Math.abs(offset);
+            pad(offset / 60, 2);
+            writer.write(':');
+            pad(offset % 60, 2);
+        }
+        writer.write(END_ELEMENT);
+    }
+
+    /**
+     * Writes a binary stream, e.g. of a BLOB, base64 encoded.
+     * @param in the content, <code>null</code> for a null value
+     */
+    @Override
+    public void writeBinary(final InputStream in) throws IOException
+    {
+        if (in == null)
+        {
+            writeNull();
+            return;
+        }
+        startElement("base64Binary");
+        Base64.Encoder encoder = Base64.getEncoder();
+        int length;
+        while((length = fill(in)) > 0)
+        {
+            writer.write(new String(encoder.encode(length == byteBuffer.length ? byteBuffer : Arrays.copyOf(byteBuffer, length)),
+                            StandardCharsets.US_ASCII));
+        }
+        writer.write(END_ELEMENT);
+    }
+
+    /**
+     * Writes the table information and closes the document.
+     * The stream is flushed, but not closed.
+     */
+    @Override
+    public void finish() throws IOException
+    {
+        writer.write("    <table>\n");
+        for (Column column : table.getColumns())
+        {
+            writer.write("        <columns>\n            <label>");
+            String label = column.getLabel();
+            escape(label.toCharArray(), label.length());
+            writer.write("</label>\n            <type>");
+            writer.write(Integer.toString(column.getType()));
+            writer.write("</type>\n        </columns>\n");
+        }
+        writer.write("        <name>");
+        escape(table.getName().toCharArray(), table.getName().length());
+        writer.write("</name>\n    </table>\n</dataTable>\n");
+        writer.flush();
+    }
+
+    private void startElement(final String type) throws IOException
+    {
+        writer.write(ELEMENT);
+        writer.write(type);
+        writer.write("\">");
+    }
+
+    /**
+     * Reads the buffer completely, so that base64
+     * blocks are only padded at the end.
+     */
+    private int fill(final InputStream in) throws IOException
+    {
+        int length = 0;
+        int read;
+        while(length < byteBuffer.length && (read = in.read(byteBuffer, length, byteBuffer.length - length)) != -1)
+        {
+            length += read;
+        }
+        return length;
+    }
+
+    private void pad(final int value, final int digits) throws IOException
+    {
+        String str = Integer.toString(value);
+        for (int i = str.length(); i < digits; ++i)
+        {
+            writer.write('0');
+        }
+        writer.write(str);
+    }
+
+    private void escape(final char[] chars, final int length) throws IOException
+    {
+        int start = 0;
+        for (int i = 0; i < length; ++i)
+        {
+            String replacement;
+            switch(chars[i])
+            {
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '\r':
+                    replacement = "&#13;";
+                    break;
+                default:
+                    continue;
+            }
+            writer.write(chars, start, i - start);
+            writer.write(replacement);
+            start = i + 1;
+        }
+        writer.write(chars, start, length - start);
+    }
+}
@@ -15,76 +15,835 @@
  */
 package com.intershop.databasedumper.ex;
 
+import com.google.common.io.CountingOutputStream;
+import com.intershop.databasedumper.ArchiveFormat;
+import com.intershop.databasedumper.ArchiveLayout;
+import com.intershop.databasedumper.CompressionCodec;
 import com.intershop.databasedumper.DatabaseDumper;
-import com.intershop.databasedumper.data.DataTable;
+import com.intershop.databasedumper.meta.Manifest;
+import com.intershop.databasedumper.meta.ManifestEntry;
 import com.intershop.databasedumper.meta.Table;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * This class zip the data files
  * to a package.
+ * The writer can be used by several export
+ * workers at the same time. Data files are
+ * streamed directly into the package or, if a
+ * spool directory is configured, into a spool
+ * file first. Spooled files are compressed by
+ * the worker and copied into the package without
+ * further compression one after another, so
+ * that workers compress at the same time and
+ * only wait for the copy.
+ * Each data file is compressed with its own codec.
+ * With a volume size the package is split into
+ * several zip files. The next volume is started
+ * before a data file, if the current volume has
+ * reached the volume size. A directory package
+ * is written without lock, each data file is
+ * its own file. The manifest with the statistics
+ * of all data files is written last. An interrupted
+ * export is resumed with the completed data files.
  */
-public class ZipWriter
+public class ZipWriter implements Closeable
 {
-    private ZipOutputStream out;
-    private Marshaller marshaller;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    private ZipArchiveOutputStream out;
+    private SeekableByteChannel channel;
+    private File contentFile;
+    private ArchiveLayout layout = ArchiveLayout.ZIP;
+    private long volumeSize;
+    private int volume;
+    private int volumeEntries;
+    private File spoolDirectory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final JAXBContext context;
+    private final ThreadLocal<Marshaller> marshaller;
+    private final Set<String> manifestTables = new TreeSet<>();
+    private final List<ManifestEntry> manifestEntries = new ArrayList<>();
+    private final List<File> partialFiles = new ArrayList<>();
+    private final Set<String> entryNames = new HashSet<>();
 
     public ZipWriter() throws JAXBException
     {
         super();
-        JAXBContext jc = JAXBContext.newInstance(DataTable.class);
-        marshaller = jc.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        marshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, "http://www.w3.org/2001/XMLSchema-Instance");
+        context = JAXBContext.newInstance(Table.class, Manifest.class);
+        marshaller = ThreadLocal.withInitial(this::createMarshaller);
     }
 
-    public void write(final DataTable dataTable) throws JAXBException, IOException
+    private Marshaller createMarshaller()
     {
-        write(dataTable, null);
+        try
+        {
+            Marshaller m = context.createMarshaller();
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, "http://www.w3.org/2001/XMLSchema-Instance");
+            return m;
+        }
+        catch(JAXBException e)
+        {
+            throw new IllegalStateException("Could not create the marshaller!", e);
+        }
     }
 
-    public void write(final DataTable dataTable, final Integer suffix) throws JAXBException, IOException
+    /**
+     * Creates the name of a data file
+     * @param table the table of the data
+     * @param suffix the chunk number, <code>null</code> for the first chunk of a table
+     * @param format the format of the data
+     * @return name of the zip entry
+     */
+    public static String getEntryName(final Table table, final Integer suffix, final ArchiveFormat format)
     {
         StringBuilder name = new StringBuilder();
-        name.append(dataTable.getTable().getName());
+        name.append(table.getName());
         if (suffix != null)
         {
             name.append('_').append(suffix);
         }
-        name.append(".xml");
+        name.append(format.getExtension());
+        return name.toString();
+    }
 
-        ZipEntry entry = new ZipEntry(name.toString());
-        out.putNextEntry(entry);
-        marshaller.marshal(dataTable, new StreamResult(out));
-        out.closeEntry();
-        out.flush();
-        System.gc();
+    /**
+     * Reserves the name of a data file. The name of a chunk of one table
+     * can be the name of another table, e.g. 'FOO_1' of the tables 'FOO'
+     * and 'FOO_1', so each name is used only for one data file.
+     * @param name the name of the data file without the suffix of the compression
+     * @return true, if the name is not used by another data file
+     */
+    public boolean reserveEntryName(final String name)
+    {
+        synchronized (entryNames)
+        {
+            return entryNames.add(name);
+        }
+    }
+
+    /**
+     * Opens a new data file of the package. The content
+     * is part of the package after {@link Entry#commit()}.
+     * @param name the name of the data file
+     * @param codec the compression of the data file, which may add a suffix to the name
+     * @return the stream for the content
+     */
+    public Entry openEntry(final String name, final CompressionCodec codec) throws IOException
+    {
+        if (layout == ArchiveLayout.DIRECTORY)
+        {
+            return new FileEntry(name, codec);
+        }
+        if (spoolDirectory != null)
+        {
+            return new SpooledEntry(name, codec);
+        }
+        return new DirectEntry(name, codec);
     }
 
     public void write(final Table table) throws IOException, JAXBException
     {
-        ZipEntry metaEntry = new ZipEntry(DatabaseDumper.META_DIR_NAME + "/" + table.getName() + ".xml");
-        out.putNextEntry(metaEntry);
-        marshaller.marshal(table, new StreamResult(out));
-        out.closeEntry();
-        out.flush();
-        System.gc();
+        // marshal outside of the lock, so that workers do not wait for each other
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        marshaller.get().marshal(table, new StreamResult(buffer));
+
+        synchronized (manifestTables)
+        {
+            manifestTables.add(table.getName());
+        }
+
+        if (layout == ArchiveLayout.DIRECTORY)
+        {
+            File metaFile = new File(contentFile, DatabaseDumper.META_DIR_NAME + File.separator + table.getName() + ".xml");
+            Files.write(metaFile.toPath(), buffer.toByteArray());
+            return;
+        }
+
+        lock();
+        try
+        {
+            // meta data files are always readable without codec
+            putEntry(DatabaseDumper.META_DIR_NAME + "/" + table.getName() + ".xml", CompressionCodec.DEFAULT);
+            buffer.writeTo(out);
+            out.closeArchiveEntry();
+            out.flush();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a committed data file to the manifest.
+     * @param table the table of the data file
+     * @param entry the committed data file
+     * @param rows the number of rows of the data file
+     * @return the entry of the manifest
+     */
+    public ManifestEntry addManifestEntry(final Table table, final Entry entry, final long rows)
+    {
+        ManifestEntry manifestEntry = new ManifestEntry();
+        manifestEntry.setName(entry.getName());
+        manifestEntry.setTable(table.getName());
+        manifestEntry.setRows(rows);
+        manifestEntry.setSize(entry.getSize());
+        manifestEntry.setChecksum(Long.toHexString(entry.getChecksum()));
+        synchronized (manifestEntries)
+        {
+            manifestEntries.add(manifestEntry);
+        }
+        return manifestEntry;
+    }
+
+    /**
+     * Writes the manifest. This must be called after
+     * all data files and meta data files are written.
+     */
+    public void writeManifest() throws IOException, JAXBException
+    {
+        Manifest manifest = new Manifest();
+        synchronized (manifestTables)
+        {
+            manifest.getTables().addAll(manifestTables);
+        }
+        synchronized (manifestEntries)
+        {
+            manifest.getEntries().addAll(manifestEntries);
+        }
+        manifest.getEntries().sort(Comparator.comparing(ManifestEntry::getName));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        marshaller.get().marshal(manifest, new StreamResult(buffer));
+
+        if (layout == ArchiveLayout.DIRECTORY)
+        {
+            Files.write(new File(contentFile, DatabaseDumper.MANIFEST_NAME).toPath(), buffer.toByteArray());
+            return;
+        }
+
+        lock();
+        try
+        {
+            // the manifest is the last entry of the last volume
+            putEntry(DatabaseDumper.MANIFEST_NAME, CompressionCodec.DEFAULT);
+            buffer.writeTo(out);
+            out.closeArchiveEntry();
+            out.flush();
+        }
+        finally
+        {
+            lock.unlock();
+        }
     }
 
-    public void setOut(ZipOutputStream out)
+    /**
+     * Starts a zip entry. The caller holds the lock.
+     */
+    private void putEntry(final String name, final CompressionCodec codec) throws IOException
     {
-        this.out = out;
+        checkVolume();
+        ZipArchiveEntry entry = new ZipArchiveEntry(name + codec.getSuffix());
+        if (codec.isDeflated())
+        {
+            entry.setMethod(ZipEntry.DEFLATED);
+            out.setLevel(codec.getLevel());
+        }
+        else
+        {
+            entry.setMethod(ZipEntry.STORED);
+        }
+        out.putArchiveEntry(entry);
     }
 
+    /**
+     * Starts the next volume, if the current volume is full.
+     * The caller holds the lock.
+     */
+    private void checkVolume() throws IOException
+    {
+        if (volumeSize > 0 && volumeEntries > 0 && channel.size() >= volumeSize)
+        {
+            out.close();
+            openVolume();
+        }
+        ++volumeEntries;
+    }
+
+    private void openVolume() throws IOException
+    {
+        File file = volumeSize > 0 ? ArchiveLayout.getVolume(contentFile, ++volume) : contentFile;
+        channel = Files.newByteChannel(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        out = new ZipArchiveOutputStream(channel);
+        volumeEntries = 0;
+    }
+
+    private void lock() throws InterruptedIOException
+    {
+        try
+        {
+            lock.lockInterruptibly();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the package.");
+        }
+    }
+
+    /**
+     * Creates the package.
+     * @param contentFile the package file or directory
+     * @param layout the layout of the package
+     * @param volumeSize size of a zip volume in bytes, values less than 1 write a single zip file
+     */
+    public void open(File contentFile, ArchiveLayout layout, long volumeSize) throws IOException
+    {
+        this.contentFile = contentFile;
+        this.layout = layout;
+        this.volumeSize = volumeSize;
+        if (layout == ArchiveLayout.DIRECTORY)
+        {
+            Files.createDirectories(new File(contentFile, DatabaseDumper.META_DIR_NAME).toPath());
+        }
+        else
+        {
+            openVolume();
+        }
+    }
+
+    /**
+     * Creates the package with the data files of an interrupted
+     * export. The data files and meta data files of the completed
+     * tables and ranges of the journal are copied without
+     * decompression from the unfinished zip files, which are
+     * kept as partial files until the journal is written again.
+     * A directory package keeps these files and loses all others.
+     * @param contentFile the package file or directory
+     * @param layout the layout of the package
+     * @param volumeSize size of a zip volume in bytes, values less than 1 write a single zip file
+     * @param journal the journal of the interrupted export
+     */
+    void resume(File contentFile, ArchiveLayout layout, long volumeSize, ExportJournal journal) throws IOException
+    {
+        Set<String> dataFiles = new HashSet<>();
+        for (ManifestEntry entry : journal.getEntries())
+        {
+            dataFiles.add(entry.getName());
+        }
+        Set<String> metaFiles = new HashSet<>();
+        for (String table : journal.getTables())
+        {
+            metaFiles.add(table + ".xml");
+        }
+
+        if (layout == ArchiveLayout.DIRECTORY)
+        {
+            open(contentFile, layout, volumeSize);
+            removeFiles(contentFile, dataFiles);
+            removeFiles(new File(contentFile, DatabaseDumper.META_DIR_NAME), metaFiles);
+            for (String dataFile : dataFiles)
+            {
+                checkResumed(dataFile, new File(contentFile, dataFile).isFile());
+            }
+        }
+        else
+        {
+            // partial files of an interrupted resume are the files of the first export
+            List<File> sources = getPartialFiles(contentFile);
+            boolean resumedBefore = !sources.isEmpty();
+            for (File file : ArchiveLayout.getVolumes(contentFile))
+            {
+                if (!resumedBefore)
+                {
+                    Files.move(file.toPath(), getPartialFile(file).toPath());
+                }
+                else
+                {
+                    Files.delete(file.toPath());
+                }
+            }
+            if (!resumedBefore)
+            {
+                sources = getPartialFiles(contentFile);
+            }
+            open(contentFile, layout, volumeSize);
+
+            Set<String> names = new HashSet<>(dataFiles);
+            for (String metaFile : metaFiles)
+            {
+                names.add(DatabaseDumper.META_DIR_NAME + "/" + metaFile + CompressionCodec.DEFAULT.getSuffix());
+            }
+            Set<String> copied = new HashSet<>();
+            for (File source : sources)
+            {
+                try (UnfinishedZipFile zipFile = new UnfinishedZipFile(source))
+                {
+                    zipFile.copyEntries(names::contains, (entry, content) -> {
+                        checkVolume();
+                        out.addRawArchiveEntry(entry, content);
+                        copied.add(entry.getName());
+                    });
+                }
+            }
+            out.flush();
+            for (String dataFile : dataFiles)
+            {
+                checkResumed(dataFile, copied.contains(dataFile));
+            }
+            partialFiles.addAll(sources);
+        }
+
+        manifestTables.addAll(journal.getTables());
+        manifestEntries.addAll(journal.getEntries());
+        for (ManifestEntry entry : journal.getEntries())
+        {
+            reserveEntryName(CompressionCodec.getContentName(entry.getName()));
+        }
+    }
+
+    /**
+     * Removes the partial files of a resumed export, after
+     * the journal lists the data files of the new package.
+     */
+    void removePartialFiles() throws IOException
+    {
+        for (File partialFile : partialFiles)
+        {
+            Files.deleteIfExists(partialFile.toPath());
+        }
+        partialFiles.clear();
+    }
+
+    private static File getPartialFile(File file)
+    {
+        return new File(file.getPath() + PARTIAL_SUFFIX);
+    }
+
+    private static List<File> getPartialFiles(File contentFile)
+    {
+        List<File> files = new ArrayList<>();
+        if (getPartialFile(contentFile).isFile())
+        {
+            files.add(getPartialFile(contentFile));
+        }
+        File volume;
+        while ((volume = getPartialFile(ArchiveLayout.getVolume(contentFile, files.size() + 1))).isFile())
+        {
+            files.add(volume);
+        }
+        return files;
+    }
+
+    private static void removeFiles(File directory, Set<String> keptFiles) throws IOException
+    {
+        File[] files = directory.listFiles(File::isFile);
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                if (!keptFiles.contains(file.getName()))
+                {
+                    Files.delete(file.toPath());
+                }
+            }
+        }
+    }
+
+    private static void checkResumed(String dataFile, boolean available) throws IOException
+    {
+        if (!available)
+        {
+            throw new IOException("The data file " + dataFile + " of the export journal is missing. Please remove the package and the journal and run a new export.");
+        }
+    }
+
+    /**
+     * Completes the package.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (out != null)
+        {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * Set the directory for spool files. Without spool directory
+     * the data files are streamed directly into the package and
+     * other workers wait until the data file is finished.
+     * @param spoolDirectory directory for spool files, or <code>null</code>
+     */
+    public void setSpoolDirectory(File spoolDirectory)
+    {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    /**
+     * Set the marshaller used by the current thread.
+     * @param marshaller the marshaller for table files
+     */
     public void setMarshaller(Marshaller marshaller)
     {
-        this.marshaller = marshaller;
+        this.marshaller.set(marshaller);
+    }
+
+    /**
+     * Content of a data file. Closing the stream without
+     * commit discards the content, if this is possible.
+     * The size and the checksum of the content are
+     * counted before the compression.
+     */
+    public abstract static class Entry extends OutputStream
+    {
+        private final String name;
+        private final CRC32 checksum = new CRC32();
+        private long size;
+
+        Entry(final String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * Adds the content to the package.
+         */
+        public abstract void commit() throws IOException;
+
+        /**
+         * Returns the stream, which compresses the content.
+         */
+        abstract OutputStream getContent();
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            getContent().write(b);
+            checksum.update(b);
+            ++size;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            getContent().write(b, off, len);
+            checksum.update(b, off, len);
+            size += len;
+        }
+
+        /**
+         * Returns the name of the data file in the package.
+         * @return the name of the zip entry or file
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Returns the number of written bytes.
+         * @return size of the content
+         */
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * Returns the CRC-32 of the written bytes.
+         * @return checksum of the content
+         */
+        public long getChecksum()
+        {
+            return checksum.getValue();
+        }
+    }
+
+    /**
+     * Streams the content into the package
+     * and keeps the package locked until the
+     * entry is closed.
+     */
+    private class DirectEntry extends Entry
+    {
+        private final OutputStream target;
+        private boolean open = true;
+
+        DirectEntry(final String name, final CompressionCodec codec) throws IOException
+        {
+            super(name + codec.getSuffix());
+            lock();
+            try
+            {
+                putEntry(name, codec);
+                target = codec.compress(new EntryOutputStream(out));
+            }
+            catch(IOException e)
+            {
+                lock.unlock();
+                throw e;
+            }
+        }
+
+        @Override
+        OutputStream getContent()
+        {
+            return target;
+        }
+
+        @Override
+        public void commit() throws IOException
+        {
+            close();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (open)
+            {
+                open = false;
+                try
+                {
+                    target.close();
+                    out.closeArchiveEntry();
+                    out.flush();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the compressed content into a spool file,
+     * which is copied into the package on commit. Deflated
+     * content is written as raw deflate data together with
+     * the checksum and sizes of the entry, so that the copy
+     * does not compress the data again.
+     */
+    private class SpooledEntry extends Entry
+    {
+        private final CompressionCodec codec;
+        private final File spoolFile;
+        private final CRC32 crc = new CRC32();
+        private final CountingOutputStream compressed;
+        private final CountingOutputStream content;
+        private final Deflater deflater;
+        private final OutputStream spool;
+        private boolean spoolClosed = false;
+        private boolean open = true;
+
+        SpooledEntry(final String name, final CompressionCodec codec) throws IOException
+        {
+            super(name + codec.getSuffix());
+            this.codec = codec;
+            this.spoolFile = File.createTempFile("dumper", ".spool", spoolDirectory);
+            this.compressed = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(spoolFile), BUFFER_SIZE));
+            OutputStream raw = compressed;
+            if (codec.isDeflated())
+            {
+                deflater = new Deflater(codec.getLevel(), true);
+                raw = new DeflaterOutputStream(compressed, deflater, BUFFER_SIZE);
+            }
+            else
+            {
+                deflater = null;
+            }
+            // the content of the zip entry is the output of the codec
+            this.content = new CountingOutputStream(new CheckedOutputStream(raw, crc));
+            this.spool = codec.compress(content);
+        }
+
+        @Override
+        OutputStream getContent()
+        {
+            return spool;
+        }
+
+        @Override
+        public void commit() throws IOException
+        {
+            closeSpool();
+            ZipArchiveEntry entry = new ZipArchiveEntry(getName());
+            entry.setMethod(codec.isDeflated() ? ZipEntry.DEFLATED : ZipEntry.STORED);
+            entry.setCrc(crc.getValue());
+            entry.setSize(content.getCount());
+            entry.setCompressedSize(compressed.getCount());
+            lock();
+            try (InputStream in = Files.newInputStream(spoolFile.toPath()))
+            {
+                checkVolume();
+                out.addRawArchiveEntry(entry, in);
+                out.flush();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+            close();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (open)
+            {
+                open = false;
+                try
+                {
+                    closeSpool();
+                }
+                finally
+                {
+                    Files.deleteIfExists(spoolFile.toPath());
+                }
+            }
+        }
+
+        private void closeSpool() throws IOException
+        {
+            if (!spoolClosed)
+            {
+                spoolClosed = true;
+                try
+                {
+                    spool.close();
+                }
+                finally
+                {
+                    if (deflater != null)
+                    {
+                        deflater.end();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a data file of a directory package. The
+     * file gets its name on commit, so that a directory
+     * contains only complete data files.
+     */
+    private class FileEntry extends Entry
+    {
+        private final File targetFile;
+        private final File tempFile;
+        private final OutputStream file;
+        private boolean fileClosed = false;
+        private boolean open = true;
+
+        FileEntry(final String name, final CompressionCodec codec) throws IOException
+        {
+            super(name + codec.getFileSuffix());
+            this.targetFile = new File(contentFile, name + codec.getFileSuffix());
+            this.tempFile = File.createTempFile("dumper", ".spool", contentFile);
+            this.file = codec.compressFile(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE));
+        }
+
+        @Override
+        OutputStream getContent()
+        {
+            return file;
+        }
+
+        @Override
+        public void commit() throws IOException
+        {
+            closeFile();
+            Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            close();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (open)
+            {
+                open = false;
+                try
+                {
+                    closeFile();
+                }
+                finally
+                {
+                    Files.deleteIfExists(tempFile.toPath());
+                }
+            }
+        }
+
+        private void closeFile() throws IOException
+        {
+            if (!fileClosed)
+            {
+                fileClosed = true;
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Keeps the package open, if the stream of a codec is closed.
+     */
+    private static class EntryOutputStream extends FilterOutputStream
+    {
+        EntryOutputStream(final OutputStream out)
+        {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+import com.intershop.databasedumper.meta.TableCodec;
+
+/**
+ * Inserts rows with a batched prepared statement.
+ * A batch is executed as soon as it is full, so
+ * that only the rows of one batch are kept.
+ */
+class BatchInsert implements RowSink
+{
+    private static final Logger LOG = LoggerFactory.getLogger(BatchInsert.class);
+
+    private final Table table;
+    private final PreparedStatement stm;
+    private final TableCodec codec;
+    private final int batchSize;
+    private int batchRows = 0;
+    private long rows = 0;
+
+    BatchInsert(final Table table, final Connection con, final int batchSize) throws SQLException
+    {
+        this(table, con, batchSize, getInsertStatement(table, ""));
+    }
+
+    BatchInsert(final Table table, final Connection con, final int batchSize, final String insertStatement)
+                    throws SQLException
+    {
+        this.table = table;
+        this.batchSize = batchSize;
+        this.codec = new TableCodec(table);
+        this.stm = con.prepareStatement(insertStatement);
+    }
+
+    /**
+     * Returns the insert statement for a row.
+     * @param table the table
+     * @param hint the hint after the insert keyword, e.g. the direct path hint of Oracle, or an empty string
+     * @return the statement
+     */
+    static String getInsertStatement(final Table table, final String hint)
+    {
+        StringBuilder insertStr = new StringBuilder("insert ");
+        if (!hint.isEmpty())
+        {
+            insertStr.append(hint).append(' ');
+        }
+        insertStr.append("into ").append(table.getName()).append('(');
+        String collect = table.getColumns().stream().map(Column::getLabel)
+                        .collect(Collectors.joining(","));
+        insertStr.append(collect).append(')');
+        insertStr.append("values(");
+        String questionMarks = table.getColumns().stream().map(s -> "?")
+                        .collect(Collectors.joining(","));
+        insertStr.append(questionMarks);
+        insertStr.append(")");
+        return insertStr.toString();
+    }
+
+    @Override
+    public void write(final List<Object> values) throws SQLException
+    {
+        codec.bind(stm, values);
+        stm.addBatch();
+        ++rows;
+        if (++batchRows >= batchSize)
+        {
+            LOG.debug("Commit {} rows batch of table {}", batchRows, table.getName());
+            stm.executeBatch();
+            batchRows = 0;
+        }
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+        try
+        {
+            if (batchRows > 0)
+            {
+                stm.executeBatch();
+            }
+            LOG.info("Finished import of {} rows into table {}.", rows, table.getName());
+        }
+        finally
+        {
+            stm.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Date;
+
+import com.intershop.databasedumper.data.BinaryFormat;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Row;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Reads a data file in the binary format,
+ * see {@link BinaryFormat}. The rows are passed
+ * to the sink block by block.
+ */
+class BinaryDataReader
+{
+    private final DataInputStream in;
+    private final Table table;
+
+    /**
+     * Reads the table information of a data file.
+     * The stream is not closed.
+     * @param stream the content of the data file
+     */
+    BinaryDataReader(final InputStream stream) throws IOException
+    {
+        in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+
+        byte[] magic = new byte[BinaryFormat.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, BinaryFormat.MAGIC))
+        {
+            throw new IOException("The data file is not a binary data file.");
+        }
+        int version = in.readUnsignedByte();
+        if (version != BinaryFormat.VERSION)
+        {
+            throw new IOException("Unsupported version " + version + " of the binary data file.");
+        }
+
+        table = new Table();
+        table.setName(readString(in));
+        int columns = (int)BinaryFormat.readVarLong(in);
+        for (int i = 0; i < columns; ++i)
+        {
+            Column column = new Column();
+            column.setLabel(readString(in));
+            column.setType((int)BinaryFormat.decodeZigZag(BinaryFormat.readVarLong(in)));
+            table.addColumn(column);
+        }
+    }
+
+    public Table getTable()
+    {
+        return table;
+    }
+
+    /**
+     * Reads all rows of the data file.
+     * @param sink the receiver of the rows
+     */
+    public void read(final RowSink sink) throws IOException, SQLException
+    {
+        int columns = table.getColumns().size();
+        int rows;
+        while((rows = (int)BinaryFormat.readVarLong(in)) > 0)
+        {
+            Row[] block = new Row[rows];
+            for (int r = 0; r < rows; ++r)
+            {
+                block[r] = new Row();
+            }
+            for (int c = 0; c < columns; ++c)
+            {
+                readColumn(in, block);
+            }
+            for (Row row : block)
+            {
+                sink.write(row.getElement());
+            }
+        }
+    }
+
+    private void readColumn(final DataInputStream in, final Row[] block) throws IOException
+    {
+        byte kind = in.readByte();
+        byte[] data = new byte[(int)BinaryFormat.readVarLong(in)];
+        in.readFully(data);
+
+        Cursor cursor = new Cursor(data, (block.length + 7) >> 3);
+        for (int r = 0; r < block.length; ++r)
+        {
+            if ((data[r >> 3] & (1 << (r & 7))) != 0)
+            {
+                block[r].add(null);
+                continue;
+            }
+            switch(kind)
+            {
+                case BinaryFormat.KIND_LONG:
+                    block[r].add(BinaryFormat.decodeZigZag(cursor.readVarLong()));
+                    break;
+                case BinaryFormat.KIND_DECIMAL:
+                    int scale = (int)BinaryFormat.decodeZigZag(cursor.readVarLong());
+                    block[r].add(new BigDecimal(new BigInteger(cursor.readBytes()), scale));
+                    break;
+                case BinaryFormat.KIND_STRING:
+                    int length = (int)cursor.readVarLong();
+                    block[r].add(new String(data, cursor.skip(length), length, StandardCharsets.UTF_8));
+                    break;
+                case BinaryFormat.KIND_DATETIME:
+                    block[r].add(new Date(BinaryFormat.decodeZigZag(cursor.readVarLong())));
+                    break;
+                case BinaryFormat.KIND_BINARY:
+                    block[r].add(cursor.readBytes());
+                    break;
+                default:
+                    throw new IOException("Unknown kind " + kind + " of a column in the binary data file.");
+            }
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[(int)BinaryFormat.readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Position in the values of a column.
+     */
+    private static class Cursor
+    {
+        private final byte[] data;
+        private int pos;
+
+        Cursor(final byte[] data, final int pos)
+        {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        long readVarLong() throws IOException
+        {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                byte b = data[pos++];
+                value |= (long)(b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in data file.");
+        }
+
+        byte[] readBytes() throws IOException
+        {
+            int length = (int)readVarLong();
+            return Arrays.copyOfRange(data, skip(length), pos);
+        }
+
+        /**
+         * Skips the bytes of a value.
+         * @return the start of the value
+         */
+        int skip(final int length)
+        {
+            int start = pos;
+            pos += length;
+            return start;
+        }
+    }
+}
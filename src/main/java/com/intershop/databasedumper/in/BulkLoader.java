@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Opens the sink, which loads the rows of a data file
+ * into a table. Each database has its own bulk loader,
+ * JDBC batches are the fallback.
+ */
+@FunctionalInterface
+interface BulkLoader
+{
+    /**
+     * Inserts the rows with JDBC batches.
+     */
+    BulkLoader BATCH = BatchInsert::new;
+
+    /**
+     * Opens the sink for a table.
+     * @param table the table with the columns of the rows
+     * @param con the connection of the import worker
+     * @param batchSize the number of rows, which are sent to the database at once
+     * @return the sink for the rows
+     */
+    RowSink open(Table table, Connection con, int batchSize) throws SQLException;
+
+    /**
+     * Returns the loader, which inserts several rows with
+     * one statement. Without a limit of the bind parameters
+     * the rows are inserted with JDBC batches.
+     * @param database the database
+     * @return the loader
+     */
+    static BulkLoader multiRow(final SupportedDatabase database)
+    {
+        if (database.getMaxBindParameters() <= 0)
+        {
+            return BATCH;
+        }
+        return (table, con, batchSize) -> new MultiRowInsert(table, con, batchSize, database);
+    }
+
+    /**
+     * Returns the bulk loader of a database.
+     * @param database the database
+     * @return the loader
+     */
+    static BulkLoader forDatabase(final SupportedDatabase database)
+    {
+        switch(database)
+        {
+            case MSSQL:
+                // the bulk copy classes of the driver are loaded with the first table
+                return (table, con, batchSize) -> new SqlServerBulkLoad(table, con, batchSize);
+            case ORACLE:
+                return (table, con, batchSize) -> new BatchInsert(table, con, batchSize,
+                                BatchInsert.getInsertStatement(table, database.getBulkInsertHint()));
+            case H2:
+                return H2CsvLoad::open;
+            default:
+                return BATCH;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.ColumnTypeComperator;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Validates the tables of the import against the
+ * columns of the target database. The columns of all
+ * tables of a scheme are read with one catalog query.
+ */
+class CatalogValidator
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogValidator.class);
+
+    private final Map<String, List<Column>> columns;
+
+    CatalogValidator(final Map<String, List<Column>> columns)
+    {
+        this.columns = columns;
+    }
+
+    /**
+     * Reads the columns of all tables of the scheme.
+     * @param con the connection
+     * @param scheme the scheme of the tables
+     * @return the validator
+     * @throws SQLException if the catalog is not readable
+     */
+    static CatalogValidator read(final Connection con, final String scheme) throws SQLException
+    {
+        Map<String, List<Column>> columns = new HashMap<>();
+        try (ResultSet resultSet = con.getMetaData().getColumns(null, scheme, null, null))
+        {
+            while (resultSet.next())
+            {
+                columns.computeIfAbsent(resultSet.getString("TABLE_NAME"), t -> new ArrayList<>())
+                                .add(getColumn(resultSet));
+            }
+        }
+        LOG.info("Read the columns of {} tables of the scheme {}.", columns.size(), scheme);
+        return new CatalogValidator(columns);
+    }
+
+    /**
+     * Validates a table of the import. The table is
+     * found by its name or by the name in lower case.
+     * @param table the table of the import
+     */
+    void validate(final Table table)
+    {
+        String tableName = table.getName();
+        List<Column> targetColumns = columns.get(tableName);
+        if (targetColumns == null)
+        {
+            tableName = table.getName().toLowerCase();
+            targetColumns = columns.get(tableName);
+        }
+        if (targetColumns == null)
+        {
+            throw new IllegalStateException(
+                    "Table " + table.getName() + " does not exists in the target database!");
+        }
+        validate(table, tableName, targetColumns);
+    }
+
+    /**
+     * Reads the column of a row of the column meta data.
+     */
+    static Column getColumn(final ResultSet resultSet) throws SQLException
+    {
+        Column column = new Column();
+        column.setLabel(resultSet.getString("COLUMN_NAME"));
+        column.setType(resultSet.getInt("DATA_TYPE"));
+        return column;
+    }
+
+    /**
+     * Compares the columns of a table of the import with the columns of the target table.
+     * @param sourceTable the table of the import
+     * @param tableName the name of the target table
+     * @param targetColumns the columns of the target table
+     */
+    static void validate(final Table sourceTable, final String tableName, final List<Column> targetColumns)
+    {
+        ColumnTypeComperator comperator = new ColumnTypeComperator();
+
+        final Map<String, Integer> columnMap = new TreeMap<>();
+        sourceTable.getColumns().forEach(c -> columnMap.put(c.getLabel(), c.getType()));
+
+        for (Column column : targetColumns)
+        {
+            // get type from source table
+            Integer sourceType = columnMap.remove(column.getLabel());
+
+            // check if type exists in source
+            if (sourceType == null)
+            {
+                // no; found column does not exists in source data
+                LOG.warn("The column {} of the table {} does not exists in the source!", column.getLabel(), tableName);
+            }
+            else if (!comperator.matches(sourceType.intValue(), Integer.valueOf(column.getType())))
+            {
+                throw new IllegalArgumentException("Unexpected type: " + sourceTable.getName() + "." + column.getLabel()
+                        + "(" + java.sql.JDBCType.valueOf(column.getType()).getName() + "). Column should be of type '"
+                        + java.sql.JDBCType.valueOf(sourceType).getName() + "'.");
+            }
+        }
+
+        if (!columnMap.isEmpty())
+        {
+            throw new IllegalStateException("The target table " + tableName + " is missing the following columns: "
+                    + columnMap.keySet().stream().collect(Collectors.joining(", ")));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Foreign key graph of the imported tables. The tables are
+ * ordered in waves, the referenced tables of a table are
+ * imported in an earlier wave. Tables of a cycle are
+ * imported in the same wave.
+ */
+class ForeignKeyGraph
+{
+    private final Map<String, Set<String>> references;
+    private final Map<String, Integer> index = new HashMap<>();
+    private final Map<String, Integer> lowLink = new HashMap<>();
+    private final Deque<String> stack = new ArrayDeque<>();
+    private final Set<String> onStack = new HashSet<>();
+    private final Map<String, Set<String>> components = new HashMap<>();
+    private final Map<Set<String>, Integer> levels = new HashMap<>();
+    private final Set<String> cyclicTables = new TreeSet<>();
+
+    /**
+     * Creates the graph.
+     * @param tableNames the imported tables
+     * @param references the referenced tables by table name, tables outside of the import are ignored
+     */
+    ForeignKeyGraph(final Set<String> tableNames, final Map<String, Set<String>> references)
+    {
+        this.references = new HashMap<>();
+        for (String tableName : tableNames)
+        {
+            Set<String> parents = new TreeSet<>(references.getOrDefault(tableName, Collections.emptySet()));
+            parents.retainAll(tableNames);
+            this.references.put(tableName, parents);
+        }
+        for (String tableName : new TreeSet<>(tableNames))
+        {
+            if (!index.containsKey(tableName))
+            {
+                connect(tableName);
+            }
+        }
+    }
+
+    /**
+     * Tables, which reference themselves or are part of a cycle.
+     * Their constraints must be disabled during the import.
+     * @return the table names
+     */
+    Set<String> getCyclicTables()
+    {
+        return cyclicTables;
+    }
+
+    /**
+     * Tables in import order. The tables of a wave
+     * only reference tables of earlier waves, tables of
+     * the same cycle or themselves.
+     * @return the tables of each wave
+     */
+    List<Set<String>> getWaves()
+    {
+        List<Set<String>> waves = new ArrayList<>();
+        for (Set<String> component : new HashSet<>(components.values()))
+        {
+            int level = getLevel(component);
+            while (waves.size() <= level)
+            {
+                waves.add(new TreeSet<>());
+            }
+            waves.get(level).addAll(component);
+        }
+        return waves;
+    }
+
+    /**
+     * Strongly connected components by Tarjan.
+     */
+    private void connect(final String tableName)
+    {
+        index.put(tableName, index.size());
+        lowLink.put(tableName, index.get(tableName));
+        stack.push(tableName);
+        onStack.add(tableName);
+        for (String parent : references.get(tableName))
+        {
+            if (!index.containsKey(parent))
+            {
+                connect(parent);
+                lowLink.put(tableName, Math.min(lowLink.get(tableName), lowLink.get(parent)));
+            }
+            else if (onStack.contains(parent))
+            {
+                lowLink.put(tableName, Math.min(lowLink.get(tableName), index.get(parent)));
+            }
+        }
+        if (lowLink.get(tableName).equals(index.get(tableName)))
+        {
+            Set<String> component = new TreeSet<>();
+            String member;
+            do
+            {
+                member = stack.pop();
+                onStack.remove(member);
+                component.add(member);
+                components.put(member, component);
+            }
+            while (!member.equals(tableName));
+            if (component.size() > 1 || references.get(tableName).contains(tableName))
+            {
+                cyclicTables.addAll(component);
+            }
+        }
+    }
+
+    /**
+     * The wave of a component follows the waves of all referenced components.
+     */
+    private int getLevel(final Set<String> component)
+    {
+        Integer level = levels.get(component);
+        if (level == null)
+        {
+            level = 0;
+            for (String tableName : component)
+            {
+                for (String parent : references.get(tableName))
+                {
+                    Set<String> parentComponent = components.get(parent);
+                    if (parentComponent != component)
+                    {
+                        level = Math.max(level, getLevel(parentComponent) + 1);
+                    }
+                }
+            }
+            levels.put(component, level);
+        }
+        return level;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.JDBCType;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Loads rows into an H2 table with a CSV file. The rows
+ * of a batch are written into a temporary CSV file, which
+ * is inserted with 'insert ... direct select ... csvread'.
+ * The database must be able to read the file, so a remote
+ * database is loaded with JDBC batches.
+ */
+class H2CsvLoad implements RowSink
+{
+    private static final Logger LOG = LoggerFactory.getLogger(H2CsvLoad.class);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Table table;
+    private final Connection con;
+    private final int batchSize;
+    private final int[] types;
+    private final String columns;
+    // timestamps are stored as UTC values like the column codec does
+    private final SimpleDateFormat timestampFormat = createFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private final SimpleDateFormat timeFormat = createFormat("HH:mm:ss.SSS");
+    private File csvFile;
+    private Writer writer;
+    private int batchRows = 0;
+    private long rows = 0;
+
+    private H2CsvLoad(final Table table, final Connection con, final int batchSize)
+    {
+        this.table = table;
+        this.con = con;
+        this.batchSize = batchSize;
+        this.types = table.getColumns().stream().mapToInt(Column::getType).toArray();
+        this.columns = table.getColumns().stream().map(Column::getLabel).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Opens the CSV load of a table, a remote
+     * database is loaded with JDBC batches.
+     * @param table the table with the columns of the rows
+     * @param con the connection of the import worker
+     * @param batchSize the number of rows of a CSV file
+     * @return the sink for the rows
+     */
+    static RowSink open(final Table table, final Connection con, final int batchSize) throws SQLException
+    {
+        String url = con.getMetaData().getURL();
+        if (url.startsWith("jdbc:h2:tcp:") || url.startsWith("jdbc:h2:ssl:"))
+        {
+            LOG.debug("The remote database of {} can not read CSV files, using batches.", table.getName());
+            return new BatchInsert(table, con, batchSize);
+        }
+        return new H2CsvLoad(table, con, batchSize);
+    }
+
+    private static SimpleDateFormat createFormat(final String pattern)
+    {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+
+    @Override
+    public void write(final List<Object> values) throws SQLException
+    {
+        try
+        {
+            if (writer == null)
+            {
+                csvFile = File.createTempFile("dumper_" + table.getName(), ".csv");
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8));
+                writer.write(columns);
+                writer.write('\n');
+            }
+            for (int i = 0; i < types.length; ++i)
+            {
+                if (i > 0)
+                {
+                    writer.write(',');
+                }
+                writeValue(i, values.get(i));
+            }
+            writer.write('\n');
+        }
+        catch(IOException e)
+        {
+            throw new SQLException("Could not write the CSV file of table " + table.getName(), e);
+        }
+        ++rows;
+        if (++batchRows >= batchSize)
+        {
+            load();
+        }
+    }
+
+    /**
+     * Writes a value, a null value is an empty field
+     * and strings are always quoted.
+     */
+    private void writeValue(final int index, final Object value) throws IOException
+    {
+        if (value == null)
+        {
+            return;
+        }
+        switch(types[index])
+        {
+            case Types.BIT:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.TINYINT:
+            case Types.NUMERIC:
+            case Types.DOUBLE:
+            case Types.DECIMAL:
+            case Types.FLOAT:
+                // binary data files contain long values
+                writer.write(value instanceof BigDecimal ? ((BigDecimal)value).toPlainString() : value.toString());
+                break;
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                writeQuoted((String)value);
+                break;
+            case Types.CLOB:
+            case Types.LONGNVARCHAR:
+                // an empty CLOB is imported as null value
+                if (!((String)value).isEmpty())
+                {
+                    writeQuoted((String)value);
+                }
+                break;
+            case Types.TIMESTAMP:
+                writer.write(timestampFormat.format((Date)value));
+                break;
+            case Types.TIME:
+                writer.write(timeFormat.format((Date)value));
+                break;
+            case Types.BLOB:
+            case Types.VARBINARY:
+                byte[] bytes = (byte[])value;
+                if (bytes.length == 0)
+                {
+                    writer.write("\"\"");
+                }
+                for (byte b : bytes)
+                {
+                    writer.write(HEX[(b >> 4) & 0xf]);
+                    writer.write(HEX[b & 0xf]);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported type at table " + table.getName() + '.'
+                                + table.getColumns().get(index).getLabel() + " : "
+                                + JDBCType.valueOf(types[index]).getName());
+        }
+    }
+
+    private void writeQuoted(final String value) throws IOException
+    {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Inserts the rows of the CSV file.
+     */
+    private void load() throws SQLException
+    {
+        try
+        {
+            writer.close();
+            writer = null;
+            String path = csvFile.getAbsolutePath().replace("'", "''");
+            LOG.debug("Load {} rows of table {} from {}", batchRows, table.getName(), path);
+            try (Statement stm = con.createStatement())
+            {
+                stm.executeUpdate("insert into " + table.getName() + "(" + columns + ") direct select * from csvread('"
+                                + path + "', null, 'charset=UTF-8')");
+            }
+            batchRows = 0;
+        }
+        catch(IOException e)
+        {
+            throw new SQLException("Could not write the CSV file of table " + table.getName(), e);
+        }
+        finally
+        {
+            deleteFile();
+        }
+    }
+
+    private void deleteFile()
+    {
+        if (csvFile != null && !csvFile.delete())
+        {
+            LOG.warn("Could not delete the CSV file {}", csvFile.getAbsolutePath());
+        }
+        csvFile = null;
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+        try
+        {
+            if (batchRows > 0)
+            {
+                load();
+            }
+            LOG.info("Finished import of {} rows into table {}.", rows, table.getName());
+        }
+        finally
+        {
+            if (writer != null)
+            {
+                try
+                {
+                    writer.close();
+                }
+                catch(IOException e)
+                {
+                    LOG.warn("Could not close the CSV file of table {}", table.getName(), e);
+                }
+            }
+            deleteFile();
+        }
+    }
+}
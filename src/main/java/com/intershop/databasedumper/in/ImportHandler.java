@@ -16,39 +16,33 @@
 
 package com.intershop.databasedumper.in;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.sql.Types;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.TimeZone;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 import javax.xml.bind.JAXBException;
-import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import com.intershop.databasedumper.ConnectionFactory;
+import com.intershop.databasedumper.ImportLoader;
 import com.intershop.databasedumper.SupportedDatabase;
 import com.intershop.databasedumper.data.DataTable;
 import com.intershop.databasedumper.meta.Column;
-import com.intershop.databasedumper.meta.ColumnTypeComperator;
 import com.intershop.databasedumper.meta.Row;
 import com.intershop.databasedumper.meta.Table;
 
@@ -57,6 +51,10 @@ class ImportHandler
     private static final Logger LOG = LoggerFactory.getLogger(ImportHandler.class);
 
     public static final int MAX_ROWS = 1000;
+    /**
+     * Rows of a table, which are deleted and committed at once.
+     */
+    static final int DELETE_CHUNK_ROWS = 10000;
     private int maxRows = MAX_ROWS;
 
     private String scheme;
@@ -65,11 +63,14 @@ class ImportHandler
 
     private final SupportedDatabase database;
 
+    private BulkLoader loader;
+
     private ConnectionFactory connectionFactory = null;
     
     public ImportHandler(ConnectionFactory conFactory, SupportedDatabase database, File importFile, int maxRows) {
         this.connectionFactory = conFactory;
     	this.database = database;
+        this.loader = BulkLoader.BATCH;
         
         try
         {
@@ -85,125 +86,119 @@ class ImportHandler
 
 	public void importData()
 			throws IOException, SQLException, ParserConfigurationException, SAXException {
+		importData(Collections.emptyList());
+	}
+
+    /**
+     * Imports the data files in waves of tables.
+     * @param waves the table names of each wave, all tables are imported at once without waves
+     */
+    public void importData(final List<Set<String>> waves) throws IOException, SQLException
+    {
+        importData(waves, null);
+    }
+
+    /**
+     * Imports the data files in waves of tables and
+     * records the imported data files in the journal.
+     * @param waves the table names of each wave, all tables are imported at once without waves
+     * @param journal the journal of the import, <code>null</code> for an import without journal
+     */
+    void importData(final List<Set<String>> waves, final ImportJournal journal) throws IOException, SQLException
+    {
         LOG.info("Beginning with the main-process!");
-		zipper.importDataTables(this, connectionFactory);
+        zipper.importDataTables(this, connectionFactory, waves, journal);
         LOG.info("Finished the main-process!");
-	}
+    }
 
     public void writeImportData(final DataTable dataTable, final Connection con) throws SQLException
     {
-        LOG.info("Writing data into {} ", dataTable.getTable().getName());
-        StringBuilder insertStr = new StringBuilder("insert into " + dataTable.getTable().getName() + "(");
-        String collect = dataTable.getTable().getColumns().stream().map(Column::getLabel)
-                        .collect(Collectors.joining(","));
-        insertStr.append(collect).append(')');
-        insertStr.append("values(");
-        String questionMarks = dataTable.getTable().getColumns().stream().map(s -> "?")
-                        .collect(Collectors.joining(","));
-        insertStr.append(questionMarks);
-        insertStr.append(")");
-
-        try (PreparedStatement stm = con.prepareStatement(insertStr.toString()))
+        try (RowSink sink = openSink(dataTable.getTable(), con))
         {
-            TimeZone tz = TimeZone.getTimeZone("UTC");
-            Calendar cal = Calendar.getInstance(tz);
-
-            int rowCount = 0;
             for (Row row : dataTable.getRows())
             {
-                int index = 0;
-                for (Column column : dataTable.getTable().getColumns())
-                {
-                    Object obj = row.getElement().get(index);
-                    ++index;
-                    switch(column.getType())
-                    {
-                        case Types.NUMERIC:
-                        case Types.DOUBLE:
-                        case Types.DECIMAL:
-                        case Types.FLOAT:
-                        case Types.BIT:
-                        case Types.BIGINT:
-                        case Types.SMALLINT:
-                        case Types.INTEGER:
-                        case Types.TINYINT:
-                            stm.setBigDecimal(index, get(obj));
-                            break;
-                        case Types.VARCHAR:
-                        case Types.NVARCHAR:
-                            stm.setString(index, get(obj));
-                            break;
-                        case Types.TIMESTAMP:
-                        case Types.TIME:
-                            Timestamp timestamp = null;
-                            XMLGregorianCalendar xmlCal = get(obj);
-                            if (xmlCal != null)
-                            {
-                                timestamp = new Timestamp(xmlCal.toGregorianCalendar().getTimeInMillis());
-                            }
-                            stm.setTimestamp(index, timestamp, cal);
-                            break;
-                        case Types.BLOB:
-                        case Types.VARBINARY:
-                            byte[] blob = get(obj);
-                            stm.setBlob(index, new ByteArrayInputStream(blob));
-                            break;
-                        case Types.CLOB:
-                        case Types.LONGNVARCHAR:
-                            String clobStr = get(obj);
-                            Reader reader = null;
-                            if (clobStr != null && clobStr.length() > 0)
-                            {
-                                reader = new StringReader(clobStr);
-                            }
-                            stm.setClob(index, reader);
-                            break;
-                        case Types.OTHER:
-                        default:
-                            throw new IllegalStateException(
-                                            "Unsupported type at table " + dataTable.getTable().getName() + '.'
-                                                            + column.getLabel() + " : " + java.sql.JDBCType.valueOf(column.getType()).getName());
-
-                    }
-                }
-                stm.addBatch();
-                if (rowCount >= maxRows)
-                {
-                    LOG.info("Commit {} rows batch of table {}", rowCount, dataTable.getTable().getName());
-                    stm.executeBatch();
-                    LOG.info("... continue ...");
-                    rowCount = 0;
-                }
-                else
-                {
-                    ++rowCount;
-                }
+                sink.write(row.getElement());
             }
-            stm.executeBatch();
-            LOG.info("Finished import of table {} with {} rows batch commit.", dataTable.getTable().getName(), rowCount);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T get(Object obj)
+    /**
+     * Set the loader of the rows. The bulk loader uses
+     * the fast path of the database, the batch loader
+     * JDBC batches of single row inserts and the multirow
+     * loader statements with several rows.
+     * @param importLoader the loader
+     */
+    public void setLoader(final ImportLoader importLoader)
+    {
+        switch(importLoader)
+        {
+            case BULK:
+                this.loader = BulkLoader.forDatabase(database);
+                break;
+            case MULTIROW:
+                this.loader = BulkLoader.multiRow(database);
+                break;
+            default:
+                this.loader = BulkLoader.BATCH;
+        }
+    }
+
+    /**
+     * Opens the loader of a table. The rows are
+     * written while the data file is read.
+     * @param table the table with the columns of the rows
+     * @param con the connection of the import worker
+     * @return the sink for the rows
+     */
+    RowSink openSink(final Table table, final Connection con) throws SQLException
     {
-        return (T)obj;
+        LOG.info("Writing data into {} ", table.getName());
+        return loader.open(table, con, maxRows);
     }
 
-    public void readConstraints(final Connection con, final String tablename, final Map<String, Set<String>> constraints) throws SQLException {
-        Set<String> cons = new LinkedHashSet<>();
+    /**
+     * Reads the foreign keys of all imported tables with one query.
+     * Each table gets an entry, tables without foreign keys an empty set.
+     * Without a constraint query only the referenced tables are read.
+     * @param con the connection
+     * @param tableNames the imported tables
+     * @param constraints the constraint names by table name
+     * @param references the referenced tables by table name
+     * @throws SQLException if the constraints are not readable
+     */
+    public void readConstraints(final Connection con, final Set<String> tableNames, final Map<String, Set<String>> constraints,
+                                final Map<String, Set<String>> references) throws SQLException {
+        for (String tableName : tableNames) {
+            constraints.put(tableName, new LinkedHashSet<>());
+            references.put(tableName, new LinkedHashSet<>());
+        }
         if(database.getConstraintQuery() != null && ! database.getConstraintQuery().isEmpty()) {
-            try (PreparedStatement stm = con.prepareStatement(database.getConstraintQuery())) {
-                stm.setString(1, tablename);
-                try (ResultSet resSet = stm.executeQuery()) {
-                    while (resSet.next()) {
-                        cons.add(resSet.getString(1));
+            try (PreparedStatement stm = con.prepareStatement(database.getConstraintQuery());
+                 ResultSet resSet = stm.executeQuery()) {
+                while (resSet.next()) {
+                    // the table names of the package are upper case, the names of the database follow its collation
+                    String tableName = resSet.getString(1).toUpperCase(Locale.ROOT);
+                    String referencedTable = resSet.getString(3);
+                    Set<String> cons = constraints.get(tableName);
+                    if (cons != null) {
+                        cons.add(resSet.getString(2));
+                        // a key to a table of another scheme is disabled, but is no edge of the import order
+                        if (referencedTable != null) {
+                            references.get(tableName).add(referencedTable.toUpperCase(Locale.ROOT));
+                        }
                     }
                 }
             }
-            constraints.put(tablename, cons);
         } else {
-            constraints.put(tablename, new HashSet<>());
+            // the constraints are disabled per table, only the referenced tables are read
+            for (String tableName : tableNames) {
+                try (ResultSet keys = con.getMetaData().getImportedKeys(null, scheme, tableName)) {
+                    while (keys.next()) {
+                        references.get(tableName).add(keys.getString("PKTABLE_NAME").toUpperCase(Locale.ROOT));
+                    }
+                }
+            }
         }
     }
     
@@ -237,6 +232,42 @@ class ImportHandler
         }
     }
 
+    /**
+     * Enables a foreign key without a check of the existing rows, if the database supports it.
+     * @param con the connection
+     * @param tableName the table
+     * @param constraint the constraint
+     * @return true if the existing rows must be validated afterwards
+     * @throws SQLException if the constraint can not be enabled
+     */
+    public boolean enableConstraintNoValidate(final Connection con, final String tableName, final String constraint) throws SQLException {
+        if (database.getEnableNoValidateStatement().isEmpty()) {
+            enableConstraint(con, tableName, constraint);
+            return false;
+        }
+        String enableContraintSQL = String.format(database.getEnableNoValidateStatement(), tableName, constraint);
+        try (PreparedStatement stm = con.prepareStatement(enableContraintSQL)) {
+            LOG.info("Enable contraint {} on {} without validation with '{}'", constraint, tableName, enableContraintSQL);
+            stm.executeUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Validates the existing rows of a foreign key, which was enabled without a check.
+     * @param con the connection
+     * @param tableName the table
+     * @param constraint the constraint
+     * @throws SQLException if the rows violate the constraint
+     */
+    public void validateConstraint(final Connection con, final String tableName, final String constraint) throws SQLException {
+        String validateSQL = String.format(database.getValidateConstraintStatement(), tableName, constraint);
+        try (PreparedStatement stm = con.prepareStatement(validateSQL)) {
+            LOG.info("Validate contraint {} on {} with '{}'", constraint, tableName, validateSQL);
+            stm.executeUpdate();
+        }
+    }
+
     public void enableConstraints(final  Connection con, final String tableName) throws SQLException {
         String enableContraintSQL = String.format(database.getEnableConstraintStatement(), tableName);
 		try (PreparedStatement stm = con
@@ -247,12 +278,77 @@ class ImportHandler
         }
     }
 
+    /**
+     * Reads the non-unique secondary indexes of a table, which can be disabled during the import.
+     * @param con the connection
+     * @param tableName the table
+     * @param indexes the index definitions by index name of each table
+     */
+    public void readIndexes(final Connection con, final String tableName, final Map<String, Map<String, String>> indexes) throws SQLException {
+        Map<String, String> tableIndexes = new LinkedHashMap<>();
+        try (PreparedStatement stm = con.prepareStatement(database.getIndexQuery())) {
+            stm.setString(1, tableName);
+            try (ResultSet resSet = stm.executeQuery()) {
+                boolean hasDefinition = resSet.getMetaData().getColumnCount() > 1;
+                while (resSet.next()) {
+                    tableIndexes.put(resSet.getString(1), hasDefinition ? resSet.getString(2) : "");
+                }
+            }
+        }
+        if (!tableIndexes.isEmpty()) {
+            indexes.put(tableName, tableIndexes);
+        }
+    }
+
+    public void disableIndex(final Connection con, final String tableName, final String index, final String definition) throws SQLException {
+        String disableIndexSQL = String.format(database.getDisableIndexStatement(), tableName, index, definition);
+        try (PreparedStatement stm = con.prepareStatement(disableIndexSQL)) {
+            LOG.info("Disable index {} on {} with '{}'", index, tableName, disableIndexSQL);
+            stm.executeUpdate();
+        }
+    }
+
+    public void rebuildIndex(final Connection con, final String tableName, final String index, final String definition) throws SQLException {
+        for (String rebuildIndexSQL : String.format(database.getRebuildIndexStatement(), tableName, index, definition).split(";")) {
+            try (PreparedStatement stm = con.prepareStatement(rebuildIndexSQL)) {
+                LOG.info("Rebuild index {} on {} with '{}'", index, tableName, rebuildIndexSQL);
+                stm.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Deletes all rows of a table. The table is truncated, if the
+     * constraints allow it, otherwise the rows are deleted in chunks
+     * and each chunk is committed.
+     * @param con the connection
+     * @param tableName the table
+     */
     public void deleteTableContent(final Connection con, final String tableName)
     {
-        try (PreparedStatement stm = con.prepareStatement(String.format("delete from %s", tableName)))
+        try
         {
-            int executed = stm.executeUpdate();
-            LOG.info("Deleted entries of table {}: {}", tableName, executed);
+            if (truncateTable(con, tableName))
+            {
+                return;
+            }
+            String deleteSQL = String.format(database.getDeleteChunkStatement(), tableName, DELETE_CHUNK_ROWS);
+            long deleted = 0;
+            int executed;
+            try (PreparedStatement stm = con.prepareStatement(deleteSQL))
+            {
+                do
+                {
+                    executed = stm.executeUpdate();
+                    if (!con.getAutoCommit())
+                    {
+                        con.commit();
+                    }
+                    deleted += executed;
+                }
+                while(executed >= DELETE_CHUNK_ROWS);
+            }
+            LOG.info("Deleted entries of table {}: {}", tableName, deleted);
         }
         catch(SQLException e)
         {
@@ -260,6 +356,46 @@ class ImportHandler
         }
     }
 
+    private boolean truncateTable(final Connection con, final String tableName)
+    {
+        String truncateSQL = String.format(database.getTruncateStatement(), tableName);
+        try (PreparedStatement stm = con.prepareStatement(truncateSQL))
+        {
+            stm.executeUpdate();
+            LOG.info("Truncated table {} with '{}'", tableName, truncateSQL);
+            return true;
+        }
+        catch(SQLException e)
+        {
+            // e.g. a table, which is referenced by a foreign key
+            LOG.info("Could not truncate table {}, deleting the rows in chunks: {}", tableName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the estimated number of rows of a table.
+     * @param con the connection
+     * @param tableName the table
+     * @return the number of rows, 0 if the number is not known
+     */
+    public long estimateRows(final Connection con, final String tableName)
+    {
+        try (PreparedStatement stm = con.prepareStatement(database.getRowEstimateQuery()))
+        {
+            stm.setString(1, tableName);
+            try (ResultSet resSet = stm.executeQuery())
+            {
+                return resSet.next() ? resSet.getLong(1) : 0;
+            }
+        }
+        catch(SQLException e)
+        {
+            LOG.debug("Could not estimate the rows of table {}: {}", tableName, e.getMessage());
+            return 0;
+        }
+    }
+
     public void validateTables(final Connection con) throws SQLException, IOException, JAXBException
     {
         for (Table table : zipper.getTables())
@@ -289,46 +425,56 @@ class ImportHandler
 
     private boolean validateTable(final Table sourceTable, final Connection con, String tableName, String scheme) throws SQLException
     {
-        ColumnTypeComperator comperator = new ColumnTypeComperator();
-        boolean tableExists = false;
-
-        final Map<String, Integer> columnMap = new TreeMap<>();
-        sourceTable.getColumns().forEach(c -> columnMap.put(c.getLabel(), c.getType()));
+        final List<Column> columns = new ArrayList<>();
 
         // get all meta information from database
         try (ResultSet resultSet = con.getMetaData().getColumns(null, this.scheme, tableName, null)) {
             while (resultSet.next()) {
-            	// column meta data is found; table exists
-                tableExists = true;
-                
-                // get column name
-                String columnName = resultSet.getString("COLUMN_NAME");
-                // and type
-                int columnType = resultSet.getInt("DATA_TYPE");
-                
-                // get type from source table
-                Integer sourceType = columnMap.remove(columnName);
-                
-                // check if type exists in source
-				if (sourceType == null) {
-					// no; found column does not exists in source data
-					LOG.warn("The column {} of the table {} does not exists in the source!", columnName, tableName);
-				}
-				//
-				else if (!comperator.matches(sourceType.intValue(), Integer.valueOf(columnType))) {
-					throw new IllegalArgumentException("Unexpected type: " + sourceTable.getName() + "." + columnName
-							+ "(" + java.sql.JDBCType.valueOf(columnType).getName() + "). Column should be of type '"
-							+ java.sql.JDBCType.valueOf(sourceType).getName() + "'.");
-				}
+                columns.add(CatalogValidator.getColumn(resultSet));
             }
+        }
 
-            if (tableExists && !columnMap.isEmpty()) {
-				throw new IllegalStateException("The target table " + tableName + " is missing the following columns: "
-						+ columnMap.keySet().stream().collect(Collectors.joining(", ")));
-            }
+        // column meta data is found; table exists
+        if (columns.isEmpty()) {
+            return false;
         }
+        CatalogValidator.validate(sourceTable, tableName, columns);
+        return true;
+    }
 
-        return tableExists;
+    /**
+     * Validates the tables of the import. The columns of the scheme are read
+     * with one catalog query, without a scheme each table is read on its own.
+     * @param tables the tables of the import
+     * @param con the connection
+     * @return the number of tables, which do not match the target database
+     * @throws SQLException if the catalog is not readable
+     */
+    public int validate(final List<Table> tables, final Connection con) throws SQLException
+    {
+        CatalogValidator validator = scheme != null ? CatalogValidator.read(con, scheme) : null;
+        int errors = 0;
+        for (Table table : tables)
+        {
+            try
+            {
+                if (validator != null)
+                {
+                    LOG.info("Validating table {}", table.getName());
+                    validator.validate(table);
+                }
+                else
+                {
+                    validate(table, con);
+                }
+            }
+            catch(IllegalStateException | IllegalArgumentException e)
+            {
+                errors++;
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return errors;
     }
 
     public ZipReader getZipper()
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.data.JournalFile;
+
+/**
+ * Journal of a running import, which is written next
+ * to the package. The journal starts with the state of the
+ * pre-processing: the disabled constraints, the disabled
+ * indexes with their definitions and the waves of the
+ * tables. Each data file is recorded, when its import
+ * starts and after all its rows are written. A resumed
+ * import skips the imported data files and does not run
+ * the pre-processing again. Rows of a data file are
+ * committed in batches, so that a table with a started
+ * but unfinished data file is deleted and imported
+ * again completely. The journal is removed after the
+ * post-processing.
+ */
+class ImportJournal implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ImportJournal.class);
+
+    private static final String JOURNAL_SUFFIX = ".import.journal";
+
+    private static final String CONSTRAINT = "constraint";
+    private static final String INDEX = "index";
+    private static final String WAVE = "wave";
+    private static final String PREPARED = "prepared";
+    private static final String START = "start";
+    private static final String IMPORTED = "imported";
+
+    private final JournalFile file;
+
+    private final Map<String, Set<String>> constraints = new LinkedHashMap<>();
+    private final Map<String, Map<String, String>> indexes = new LinkedHashMap<>();
+    private final List<Set<String>> waves = new ArrayList<>();
+    private final Map<String, String> imported = new LinkedHashMap<>();
+    private final Set<String> resetTables = new LinkedHashSet<>();
+
+    private boolean prepared = false;
+
+    ImportJournal(final File contentFile)
+    {
+        this.file = new JournalFile(contentFile, JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Reads the journal of an interrupted import. The imported
+     * data files of tables with an unfinished data file are not
+     * part of the result, these tables are imported again.
+     * @return <code>true</code> if the journal exists and the
+     *         pre-processing was finished
+     */
+    synchronized boolean read() throws IOException
+    {
+        if (!file.exists())
+        {
+            return false;
+        }
+        Map<Integer, Set<String>> tableWaves = new TreeMap<>();
+        Map<String, String> started = new HashMap<>();
+        for (String[] fields : file.read())
+        {
+            if (fields[0].equals(CONSTRAINT) && fields.length == 3)
+            {
+                Set<String> tableConstraints = constraints.computeIfAbsent(fields[1], k -> new LinkedHashSet<>());
+                if (!fields[2].isEmpty())
+                {
+                    tableConstraints.add(fields[2]);
+                }
+            }
+            else if (fields[0].equals(INDEX) && fields.length == 4)
+            {
+                indexes.computeIfAbsent(fields[1], k -> new LinkedHashMap<>())
+                                .put(fields[2], new String(Base64.getDecoder().decode(fields[3]), StandardCharsets.UTF_8));
+            }
+            else if (fields[0].equals(WAVE) && fields.length == 3)
+            {
+                tableWaves.computeIfAbsent(Integer.valueOf(fields[1]), k -> new LinkedHashSet<>()).add(fields[2]);
+            }
+            else if (fields[0].equals(PREPARED))
+            {
+                prepared = true;
+            }
+            else if (fields[0].equals(START) && fields.length == 3)
+            {
+                started.put(fields[1], fields[2]);
+            }
+            else if (fields[0].equals(IMPORTED) && fields.length == 3)
+            {
+                imported.put(fields[1], fields[2]);
+            }
+            else
+            {
+                LOG.debug("Ignoring journal line '{}'.", String.join("\t", fields));
+            }
+        }
+        if (!prepared)
+        {
+            // the pre-processing is repeated
+            constraints.clear();
+            indexes.clear();
+            imported.clear();
+            return false;
+        }
+        waves.addAll(tableWaves.values());
+        started.keySet().removeAll(imported.keySet());
+        resetTables.addAll(started.values());
+        imported.values().removeAll(resetTables);
+        LOG.info("Journal {} lists {} imported data file(s), {} table(s) are imported again.", file.getFile().getAbsolutePath(),
+                        imported.size(), resetTables.size());
+        return true;
+    }
+
+    /**
+     * Starts the journal with the records of the resumed import.
+     * Further records are appended.
+     */
+    synchronized void open() throws IOException
+    {
+        List<String> lines = prepared ? getPreparedLines() : new ArrayList<>();
+        for (Map.Entry<String, String> entry : imported.entrySet())
+        {
+            lines.add(JournalFile.line(IMPORTED, entry.getKey(), entry.getValue()));
+        }
+        file.open(lines);
+    }
+
+    /**
+     * Adds the state of the finished pre-processing.
+     * @param tableConstraints the disabled constraints of each table, an empty set for all constraints of the table
+     * @param tableIndexes the disabled indexes with their definitions of each table
+     * @param tableWaves the waves of the tables
+     */
+    synchronized void prepared(final Map<String, Set<String>> tableConstraints,
+                    final Map<String, Map<String, String>> tableIndexes, final List<Set<String>> tableWaves)
+                    throws IOException
+    {
+        constraints.putAll(tableConstraints);
+        indexes.putAll(tableIndexes);
+        waves.addAll(tableWaves);
+        prepared = true;
+        file.write(getPreparedLines().toArray(new String[0]));
+    }
+
+    private List<String> getPreparedLines()
+    {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : constraints.entrySet())
+        {
+            if (entry.getValue().isEmpty())
+            {
+                lines.add(JournalFile.line(CONSTRAINT, entry.getKey(), ""));
+            }
+            for (String constraint : entry.getValue())
+            {
+                lines.add(JournalFile.line(CONSTRAINT, entry.getKey(), constraint));
+            }
+        }
+        for (Map.Entry<String, Map<String, String>> entry : indexes.entrySet())
+        {
+            for (Map.Entry<String, String> index : entry.getValue().entrySet())
+            {
+                lines.add(JournalFile.line(INDEX, entry.getKey(), index.getKey(),
+                                Base64.getEncoder().encodeToString(index.getValue().getBytes(StandardCharsets.UTF_8))));
+            }
+        }
+        for (int i = 0; i < waves.size(); ++i)
+        {
+            for (String table : waves.get(i))
+            {
+                lines.add(JournalFile.line(WAVE, i, table));
+            }
+        }
+        lines.add(JournalFile.line(PREPARED));
+        return lines;
+    }
+
+    /**
+     * Returns the constraints, which were disabled by the pre-processing.
+     */
+    synchronized Map<String, Set<String>> getConstraints()
+    {
+        return constraints;
+    }
+
+    /**
+     * Returns the indexes, which were disabled by the pre-processing.
+     */
+    synchronized Map<String, Map<String, String>> getIndexes()
+    {
+        return indexes;
+    }
+
+    /**
+     * Returns the waves of the tables.
+     */
+    synchronized List<Set<String>> getWaves()
+    {
+        return waves;
+    }
+
+    /**
+     * Returns the tables with an unfinished data file,
+     * whose rows are deleted before the import continues.
+     */
+    synchronized Set<String> getResetTables()
+    {
+        return new LinkedHashSet<>(resetTables);
+    }
+
+    /**
+     * Checks if all rows of a data file are imported.
+     * @param name the name of the data file
+     */
+    synchronized boolean isImported(final String name)
+    {
+        return imported.containsKey(name);
+    }
+
+    /**
+     * Records the start of a data file.
+     * @param name the name of the data file
+     * @param table the table of the data file
+     */
+    synchronized void start(final String name, final String table) throws IOException
+    {
+        file.write(JournalFile.line(START, name, table));
+    }
+
+    /**
+     * Records a data file, after all its rows are written.
+     * @param name the name of the data file
+     * @param table the table of the data file
+     */
+    synchronized void imported(final String name, final String table) throws IOException
+    {
+        imported.put(name, table);
+        file.write(JournalFile.line(IMPORTED, name, table));
+    }
+
+    /**
+     * Removes the journal of a complete import.
+     */
+    synchronized void delete() throws IOException
+    {
+        file.delete();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        file.close();
+    }
+}
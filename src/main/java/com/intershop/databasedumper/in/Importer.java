@@ -15,8 +15,11 @@
  */
 package com.intershop.databasedumper.in;
 
+import com.intershop.databasedumper.ConnectionFactory;
+import com.intershop.databasedumper.ImportLoader;
 import com.intershop.databasedumper.SupportedDatabase;
 import com.intershop.databasedumper.meta.Table;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
@@ -24,11 +27,15 @@ import org.xml.sax.SAXException;
 import javax.xml.bind.JAXBException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -36,8 +43,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.stream.Collectors;
 
 /**
  * Class with main import functionality: verification and import.
@@ -46,8 +52,23 @@ public class Importer
 {
     private static final Logger LOG = LoggerFactory.getLogger(Importer.class);
 
+    /**
+     * Number of tables, which are deleted at the same time.
+     */
+    public static final int DEFAULT_DELETE_THREADS = 4;
+
     private ImportHandler importHandler;
     private Map<String, Set<String>> constraints = new ConcurrentHashMap<>();
+    private Map<String, Set<String>> references = new ConcurrentHashMap<>();
+    private List<Set<String>> waves = Collections.emptyList();
+    private boolean dependencyOrder = false;
+    private Map<String, Map<String, String>> indexes = new ConcurrentHashMap<>();
+    private boolean rebuildIndexes = false;
+    private Set<String> keepIndexTables = Collections.emptySet();
+    private int threads = 1;
+    private int deleteThreads = DEFAULT_DELETE_THREADS;
+    private boolean deferredValidation = false;
+    private boolean resume = false;
     private final File contentFile;
     private final String username;
     private final ConnectionFactory conFactory;
@@ -87,6 +108,86 @@ public class Importer
         }
     }
 
+    /**
+     * Set the number of data files, which are imported at the same time.
+     * Each worker uses its own connection of the connection pool.
+     * @param threads number of import workers
+     */
+    public void setThreads(int threads)
+    {
+        this.threads = threads < 1 ? 1 : threads;
+        importHandler.getZipper().setThreads(threads);
+        updatePoolSize();
+    }
+
+    /**
+     * Set the number of tables, which are deleted at the same time.
+     * Each worker uses its own connection of the connection pool.
+     * @param deleteThreads number of delete workers, values less than 1 are ignored
+     */
+    public void setDeleteThreads(int deleteThreads)
+    {
+        this.deleteThreads = deleteThreads < 1 ? 1 : deleteThreads;
+        updatePoolSize();
+    }
+
+    private void updatePoolSize()
+    {
+        conFactory.setMaxTotal(Math.max(Math.max(threads, deleteThreads), GenericObjectPoolConfig.DEFAULT_MAX_TOTAL));
+    }
+
+    /**
+     * Set the loader of the rows.
+     * @param loader bulk load of the database, JDBC batches or multi-row inserts
+     */
+    public void setLoader(ImportLoader loader)
+    {
+        importHandler.setLoader(loader);
+    }
+
+    /**
+     * Disable the non-unique secondary indexes before the import
+     * and rebuild them afterwards with the import workers.
+     * @param rebuildIndexes true to rebuild the indexes
+     * @param keepIndexTables tables, whose indexes are kept during the import
+     */
+    public void setIndexRebuild(boolean rebuildIndexes, Set<String> keepIndexTables)
+    {
+        this.rebuildIndexes = rebuildIndexes;
+        this.keepIndexTables = keepIndexTables.stream().map(t -> t.toUpperCase(Locale.ENGLISH)).collect(Collectors.toSet());
+    }
+
+    /**
+     * Enable the foreign keys after the import without a check of the existing rows
+     * and validate them afterwards, the constraints of the largest tables first.
+     * @param deferredValidation true to validate the constraints after all constraints are enabled
+     */
+    public void setDeferredValidation(boolean deferredValidation)
+    {
+        this.deferredValidation = deferredValidation;
+    }
+
+    /**
+     * Import the tables in waves of the foreign key graph. The referenced
+     * tables are imported before the tables with the foreign keys, so
+     * only the constraints of tables in cycles are disabled during the import.
+     * @param dependencyOrder true to import the tables in the order of the foreign keys
+     */
+    public void setDependencyOrder(boolean dependencyOrder)
+    {
+        this.dependencyOrder = dependencyOrder;
+    }
+
+    /**
+     * Resume an interrupted import with the journal next to the package.
+     * The pre-processing is not repeated and imported data files are skipped.
+     * @param resume true to continue the import of the journal
+     */
+    public void setResume(boolean resume)
+    {
+        this.resume = resume;
+    }
+
     public void doImport(boolean forceImport) throws JAXBException, IOException, SQLException,
                     ParserConfigurationException, SAXException
     {
@@ -106,30 +207,56 @@ public class Importer
         	LOG.info("Finished the validation! Validation was successfully: {}", valid);
         }
         
-        // disable constraints
-        preProcessing();
-        // import all data
-        importHandler.importData();
-        // enable constraints
-        postProcessing();
+        try (ImportJournal journal = new ImportJournal(contentFile))
+        {
+            if (resume && journal.read())
+            {
+                // the constraints and indexes are still disabled
+                LOG.info("Resuming the import without pre-processing.");
+                constraints.putAll(journal.getConstraints());
+                indexes.putAll(journal.getIndexes());
+                waves = journal.getWaves();
+                journal.open();
+                resetTables(journal.getResetTables());
+            }
+            else
+            {
+                // disable constraints
+                preProcessing();
+                journal.open();
+                journal.prepared(constraints, indexes, waves);
+            }
+            // import all data
+            importHandler.importData(waves, journal);
+            // enable constraints
+            postProcessing();
+            journal.delete();
+        }
     }
 
-    public Set<String> readTableNames(final ZipEntryFilter filter) throws IOException
+    /**
+     * Deletes the rows of the tables, whose import was interrupted
+     * within a data file, so that all data files are imported again.
+     */
+    private void resetTables(final Set<String> tableNames) throws IOException, SQLException
     {
-        Set<String> result = new TreeSet<>();
-        try (ZipInputStream in = new ZipInputStream(new FileInputStream(contentFile)))
+        if (tableNames.contains(""))
         {
-            ZipEntry entry;
-            while((entry = in.getNextEntry()) != null)
+            throw new IOException("The import was interrupted in a data file without table meta data and can not be resumed.");
+        }
+        try (Connection con = conFactory.create())
+        {
+            for (String tableName : tableNames)
             {
-                if (filter.accept(entry))
-                {
-                    result.add(entry.getName());
-                }
-                in.closeEntry();
+                LOG.info("Table {} is imported again.", tableName);
+                importHandler.deleteTableContent(con, tableName);
             }
         }
-        return result;
+    }
+
+    public Set<String> readTableNames(final ZipEntryFilter filter) throws IOException
+    {
+        return importHandler.getZipper().getEntryNames(filter);
     }
 
     private void preProcessing() throws IOException, SQLException
@@ -140,10 +267,7 @@ public class Importer
         LOG.info("Removing constraints.");
         try (final Connection con = conFactory.create())
         {
-        	for (String s : tableNames)
-        	{
-                importHandler.readConstraints(con, s, constraints);
-            }
+            importHandler.readConstraints(con, tableNames, constraints, references);
         }
         ExecutorService disableConstraintsService = Executors.newWorkStealingPool();
 		for (Map.Entry<String, Set<String>> entry : constraints.entrySet()) {
@@ -180,9 +304,14 @@ public class Importer
             LOG.error(e.getLocalizedMessage(), e);
         }
 
-        LOG.info("Deleting content.");
-        ExecutorService deleteService = Executors.newWorkStealingPool(4);
-        for (String s : tableNames)
+        if (rebuildIndexes)
+        {
+            disableIndexes(tableNames);
+        }
+
+        LOG.info("Deleting content with {} worker(s).", deleteThreads);
+        ExecutorService deleteService = Executors.newFixedThreadPool(deleteThreads);
+        for (String s : orderBySize(tableNames))
         {
             deleteService.execute(() -> {
                 try (Connection con = conFactory.create())
@@ -198,23 +327,159 @@ public class Importer
         deleteService.shutdown();
         try
         {
-            boolean allDisabled = deleteService.awaitTermination(2, TimeUnit.HOURS);
-            if (!allDisabled)
+            boolean allDeleted = deleteService.awaitTermination(2, TimeUnit.HOURS);
+            if (!allDeleted)
             {
-                LOG.error("Could not disable all constraints within 2 hours.");
+                LOG.error("Could not delete the content of all tables within 2 hours.");
             }
         }
         catch(InterruptedException e)
         {
             LOG.error(e.getLocalizedMessage(), e);
         }
-        
+
+        if (dependencyOrder)
+        {
+            enableAcyclicConstraints(tableNames);
+        }
+
         LOG.info("Finished the pre-processing!");
     }
 
+    /**
+     * Orders the tables in waves of the foreign key graph and enables the
+     * constraints of the tables outside of cycles on the empty tables again.
+     * These constraints are checked while the rows are inserted.
+     */
+    private void enableAcyclicConstraints(final Set<String> tableNames) throws SQLException
+    {
+        ForeignKeyGraph graph = new ForeignKeyGraph(tableNames, references);
+        waves = graph.getWaves();
+        LOG.info("Importing the tables in {} wave(s), constraints of the tables {} stay disabled.", waves.size(),
+                        graph.getCyclicTables());
+        try (Connection con = conFactory.create())
+        {
+            for (Map.Entry<String, Set<String>> entry : constraints.entrySet())
+            {
+                if (graph.getCyclicTables().contains(entry.getKey()))
+                {
+                    continue;
+                }
+                if (!entry.getValue().isEmpty())
+                {
+                    for (String constraint : entry.getValue())
+                    {
+                        importHandler.enableConstraint(con, entry.getKey(), constraint);
+                    }
+                }
+                else if (database.getConstraintQuery().isEmpty())
+                {
+                    importHandler.enableConstraints(con, entry.getKey());
+                }
+                // the post-processing enables the remaining constraints
+                constraints.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Orders the tables by the estimated number of rows, so that
+     * the deletion of the largest tables starts first.
+     */
+    private List<String> orderBySize(final Set<String> tableNames) throws SQLException
+    {
+        Map<String, Long> rows = new HashMap<>();
+        try (Connection con = conFactory.create())
+        {
+            for (String tableName : tableNames)
+            {
+                rows.put(tableName, importHandler.estimateRows(con, tableName));
+            }
+        }
+        List<String> result = new ArrayList<>(tableNames);
+        result.sort(Comparator.comparing(rows::get, Comparator.reverseOrder()));
+        LOG.debug("Estimated rows of the tables: {}", rows);
+        return result;
+    }
+
+    /**
+     * Disables the indexes, which are rebuilt after the import.
+     */
+    private void disableIndexes(final Set<String> tableNames) throws SQLException
+    {
+        LOG.info("Disabling indexes.");
+        try (Connection con = conFactory.create())
+        {
+            for (String tableName : tableNames)
+            {
+                if (keepIndexTables.contains(tableName.toUpperCase(Locale.ENGLISH)))
+                {
+                    LOG.info("Keeping the indexes of {}.", tableName);
+                }
+                else
+                {
+                    importHandler.readIndexes(con, tableName, indexes);
+                }
+            }
+            for (Map.Entry<String, Map<String, String>> entry : indexes.entrySet())
+            {
+                for (Map.Entry<String, String> index : entry.getValue().entrySet())
+                {
+                    importHandler.disableIndex(con, entry.getKey(), index.getKey(), index.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the disabled indexes with the import workers.
+     */
+    private void rebuildIndexes()
+    {
+        if (indexes.isEmpty())
+        {
+            return;
+        }
+        LOG.info("Rebuilding indexes with {} worker(s).", threads);
+        ExecutorService rebuildService = Executors.newFixedThreadPool(threads);
+        for (Map.Entry<String, Map<String, String>> entry : indexes.entrySet())
+        {
+            for (Map.Entry<String, String> index : entry.getValue().entrySet())
+            {
+                rebuildService.execute(() -> {
+                    try (Connection con = conFactory.create())
+                    {
+                        importHandler.rebuildIndex(con, entry.getKey(), index.getKey(), index.getValue());
+                    }
+                    catch(SQLException e)
+                    {
+                        LOG.error("Could not rebuild index " + index.getKey() + " on " + entry.getKey() + ": "
+                                        + e.getLocalizedMessage(), e);
+                    }
+                });
+            }
+        }
+        rebuildService.shutdown();
+        try
+        {
+            boolean allRebuilt = rebuildService.awaitTermination(2, TimeUnit.HOURS);
+            if (!allRebuilt)
+            {
+                LOG.error("Could not rebuild all indexes within 2 hours.");
+            }
+        }
+        catch(InterruptedException e)
+        {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
     private void postProcessing()
     {
         LOG.info("Beginning the post-processing!");
+        // indexes are rebuilt first, they can be used by the validation of the constraints
+        rebuildIndexes();
+        Map<String, Set<String>> unvalidated = new ConcurrentHashMap<>();
         ExecutorService enableConstraintsService = Executors.newWorkStealingPool(4);
         for (Map.Entry<String, Set<String>> entry : constraints.entrySet())
         {
@@ -223,7 +488,11 @@ public class Importer
                 for (final String s : entry.getValue()) {
                     enableConstraintsService.execute(() -> {
                         try (Connection con = conFactory.create()) {
-                            importHandler.enableConstraint(con, tableName, s);
+                            if (!deferredValidation) {
+                                importHandler.enableConstraint(con, tableName, s);
+                            } else if (importHandler.enableConstraintNoValidate(con, tableName, s)) {
+                                unvalidated.computeIfAbsent(tableName, t -> ConcurrentHashMap.newKeySet()).add(s);
+                            }
                         } catch (SQLException e) {
                             LOG.error(e.getLocalizedMessage(), e);
                         }
@@ -250,75 +519,74 @@ public class Importer
         {
             LOG.error(e.getLocalizedMessage(), e);
         }
+
+        validateConstraints(unvalidated);
         
         LOG.info("Finished the post-processing!");
     }
 
-    private boolean checkTableMetadata() throws JAXBException, IOException, SQLException
+    /**
+     * Validates the constraints, which were enabled without a check,
+     * with the import workers. The tables with the most rows are validated first.
+     */
+    private void validateConstraints(final Map<String, Set<String>> unvalidated)
     {
-        boolean result = true;
-        ValidationResult validationResult = new ValidationResult();
-        try (Connection con = conFactory.create())
+        if (unvalidated.isEmpty())
         {
-            importHandler.setScheme(username, con);
+            return;
         }
-        ExecutorService validateService = Executors.newWorkStealingPool();
-        List<Table> tables = importHandler.getZipper().getTables();
+        List<String> tableNames;
         try
         {
-            for (final Table table : tables)
+            tableNames = orderBySize(unvalidated.keySet());
+        }
+        catch(SQLException e)
+        {
+            LOG.warn("Could not estimate the size of the tables: {}", e.getLocalizedMessage());
+            tableNames = new ArrayList<>(unvalidated.keySet());
+        }
+        LOG.info("Validating constraints with {} worker(s).", threads);
+        ExecutorService validateService = Executors.newFixedThreadPool(threads);
+        for (String tableName : tableNames)
+        {
+            for (String constraint : unvalidated.get(tableName))
             {
                 validateService.execute(() -> {
                     try (Connection con = conFactory.create())
                     {
-                        importHandler.validate(table, con);
+                        importHandler.validateConstraint(con, tableName, constraint);
                     }
-                    catch(Exception e)
+                    catch(SQLException e)
                     {
-                    	validationResult.addValidationError();
-                        LOG.error(e.getLocalizedMessage(), e);
-                        throw new IllegalStateException(e);
+                        LOG.error("Could not validate constraint " + constraint + " on " + tableName + ": "
+                                        + e.getLocalizedMessage(), e);
                     }
                 });
             }
-
-        }
-        catch(IllegalStateException e)
-        {
-            result = false;
-            LOG.error(e.getLocalizedMessage(), e);
         }
         validateService.shutdown();
         try
         {
-            boolean success = validateService.awaitTermination(2, TimeUnit.HOURS);
-            if (!success)
+            boolean allValidated = validateService.awaitTermination(2, TimeUnit.HOURS);
+            if (!allValidated)
             {
-                result = false;
-                LOG.error("Could not finish the validation within 2 hours.");
+                LOG.error("Could not validate all constraints within 2 hours.");
             }
         }
         catch(InterruptedException e)
         {
             LOG.error(e.getLocalizedMessage(), e);
-            result = false;
         }
-
-        return result & validationResult.getValidationErrors() == 0;
-//        return result;
     }
-    
-    class ValidationResult {
-    	int validationErrors = 0;
 
-		public int getValidationErrors() {
-			return validationErrors;
-		}
-
-		public void addValidationError() {
-			LOG.info("Add validation error...");
-			this.validationErrors++;
-		}
-    	
+    private boolean checkTableMetadata() throws JAXBException, IOException, SQLException
+    {
+        List<Table> tables = importHandler.getZipper().getTables();
+        try (Connection con = conFactory.create())
+        {
+            importHandler.setScheme(username, con);
+            // the columns of all tables are read with one catalog query
+            return importHandler.validate(tables, con) == 0;
+        }
     }
 }
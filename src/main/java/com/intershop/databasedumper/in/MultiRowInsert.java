@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+import com.intershop.databasedumper.meta.TableCodec;
+
+/**
+ * Inserts several rows with one statement, e.g.
+ * 'insert into T(A,B) values(?,?),(?,?)'. The rows of a
+ * statement are limited by the bind parameters of the
+ * database. Full statements are executed as JDBC batches,
+ * the remaining rows with a smaller statement at the end.
+ */
+class MultiRowInsert implements RowSink
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MultiRowInsert.class);
+
+    /**
+     * Maximum rows of a statement, a values list of
+     * Microsoft SQL Server has at most 1000 rows.
+     */
+    static final int MAX_STATEMENT_ROWS = 1000;
+
+    private final Table table;
+    private final Connection con;
+    private final boolean insertAll;
+    private final TableCodec codec;
+    private final int columns;
+    private final int statementRows;
+    private final int batchSize;
+    // the statements by the number of rows
+    private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+    private final List<List<Object>> pending;
+    private int batchRows = 0;
+    private long rows = 0;
+
+    MultiRowInsert(final Table table, final Connection con, final int batchSize, final SupportedDatabase database)
+    {
+        this.table = table;
+        this.con = con;
+        this.batchSize = batchSize;
+        this.insertAll = database.isInsertAll();
+        this.codec = new TableCodec(table);
+        this.columns = table.getColumns().size();
+        this.statementRows = getStatementRows(columns, database.getMaxBindParameters());
+        this.pending = new ArrayList<>(statementRows);
+    }
+
+    /**
+     * Returns the number of rows of a statement.
+     * @param columns the number of columns of the table
+     * @param maxBindParameters the maximum parameters of a statement
+     * @return the number of rows, at least 1
+     */
+    static int getStatementRows(final int columns, final int maxBindParameters)
+    {
+        // some drivers use a parameter of their own, so one parameter is kept free
+        int rows = (maxBindParameters - 1) / Math.max(columns, 1);
+        return Math.max(1, Math.min(rows, MAX_STATEMENT_ROWS));
+    }
+
+    /**
+     * Returns the insert statement for several rows.
+     * @param table the table
+     * @param rows the number of rows
+     * @param insertAll true for 'insert all into ... select 1 from dual'
+     * @return the statement
+     */
+    static String getInsertStatement(final Table table, final int rows, final boolean insertAll)
+    {
+        String columnList = table.getColumns().stream().map(Column::getLabel).collect(Collectors.joining(","));
+        String parameters = table.getColumns().stream().map(s -> "?").collect(Collectors.joining(",", "(", ")"));
+        StringBuilder insertStr = new StringBuilder(insertAll ? "insert all" : "insert into " + table.getName() + "(" + columnList + ") values");
+        for (int i = 0; i < rows; ++i)
+        {
+            if (insertAll)
+            {
+                insertStr.append(" into ").append(table.getName()).append('(').append(columnList).append(") values");
+            }
+            else if (i > 0)
+            {
+                insertStr.append(',');
+            }
+            insertStr.append(parameters);
+        }
+        if (insertAll)
+        {
+            insertStr.append(" select 1 from dual");
+        }
+        return insertStr.toString();
+    }
+
+    private PreparedStatement getStatement(final int rowCount) throws SQLException
+    {
+        PreparedStatement stm = statements.get(rowCount);
+        if (stm == null)
+        {
+            stm = con.prepareStatement(getInsertStatement(table, rowCount, insertAll));
+            statements.put(rowCount, stm);
+        }
+        return stm;
+    }
+
+    private void bindPending(final PreparedStatement stm) throws SQLException
+    {
+        for (int i = 0; i < pending.size(); ++i)
+        {
+            codec.bind(stm, pending.get(i), i * columns);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public void write(final List<Object> values) throws SQLException
+    {
+        pending.add(values);
+        ++rows;
+        if (pending.size() >= statementRows)
+        {
+            PreparedStatement stm = getStatement(statementRows);
+            bindPending(stm);
+            stm.addBatch();
+            batchRows += statementRows;
+            if (batchRows >= batchSize)
+            {
+                LOG.debug("Commit {} rows batch of table {}", batchRows, table.getName());
+                stm.executeBatch();
+                batchRows = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+        try
+        {
+            if (batchRows > 0)
+            {
+                getStatement(statementRows).executeBatch();
+            }
+            if (!pending.isEmpty())
+            {
+                PreparedStatement stm = getStatement(pending.size());
+                bindPending(stm);
+                stm.executeUpdate();
+            }
+            LOG.info("Finished import of {} rows into table {}.", rows, table.getName());
+        }
+        finally
+        {
+            for (PreparedStatement stm : statements.values())
+            {
+                stm.close();
+            }
+        }
+    }
+}
@@ -15,31 +15,25 @@
  */
 package com.intershop.databasedumper.in;
 
-import org.apache.commons.dbcp2.BasicDataSource;
-
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
- * Creates the necessary the database
- * connection.
+ * Receives the rows of a data file while
+ * the data file is read. Closing the sink
+ * writes the remaining rows.
  */
-class ConnectionFactory
-{       
-    private final BasicDataSource dataSource;
+@FunctionalInterface
+interface RowSink extends AutoCloseable
+{
+    /**
+     * Writes a row.
+     * @param values the values of the row in the order of the table columns
+     */
+    void write(List<Object> values) throws SQLException;
 
-    public ConnectionFactory(String url, String username, String password)
+    @Override
+    default void close() throws SQLException
     {
-        super();        
-        
-        this.dataSource = new BasicDataSource();
-        this.dataSource.setUrl(url);
-        this.dataSource.setUsername(username);
-        this.dataSource.setPassword(password);
-    }
-
-    public Connection create() throws SQLException
-    {     
-        return this.dataSource.getConnection();
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkRecord;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+
+/**
+ * Loads rows into a Microsoft SQL Server table with the
+ * bulk copy of the driver. The rows of a batch are sent
+ * as one bulk record, the column types are taken from
+ * the table of the database.
+ * The class is only loaded for Microsoft SQL Server, so
+ * the driver is not required for other databases.
+ */
+class SqlServerBulkLoad implements RowSink, ISQLServerBulkRecord
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SqlServerBulkLoad.class);
+
+    private final Table table;
+    private final int batchSize;
+    private final SQLServerBulkCopy bulkCopy;
+    private final Set<Integer> ordinals = new LinkedHashSet<>();
+    private final String[] names;
+    private final int[] types;
+    private final int[] precisions;
+    private final int[] scales;
+    private final List<Object[]> batch;
+    private int position;
+    private long rows = 0;
+
+    SqlServerBulkLoad(final Table table, final Connection con, final int batchSize) throws SQLException
+    {
+        this.table = table;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+
+        int count = table.getColumns().size();
+        names = new String[count];
+        types = new int[count];
+        precisions = new int[count];
+        scales = new int[count];
+        String columns = table.getColumns().stream().map(Column::getLabel).collect(Collectors.joining(","));
+        try (PreparedStatement stm = con.prepareStatement("select " + columns + " from " + table.getName() + " where 1 = 0"))
+        {
+            ResultSetMetaData metaData = stm.getMetaData();
+            for (int i = 0; i < count; ++i)
+            {
+                ordinals.add(i + 1);
+                names[i] = table.getColumns().get(i).getLabel();
+                types[i] = metaData.getColumnType(i + 1);
+                precisions[i] = metaData.getPrecision(i + 1);
+                scales[i] = metaData.getScale(i + 1);
+            }
+        }
+
+        SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+        // the rows are inserted unchanged like with an insert statement
+        options.setKeepIdentity(true);
+        options.setKeepNulls(true);
+        // enabled foreign keys are checked and stay trusted, disabled ones are ignored
+        options.setCheckConstraints(true);
+        bulkCopy = new SQLServerBulkCopy(con.unwrap(SQLServerConnection.class));
+        bulkCopy.setBulkCopyOptions(options);
+        bulkCopy.setDestinationTableName(table.getName());
+        for (int i = 0; i < count; ++i)
+        {
+            bulkCopy.addColumnMapping(i + 1, names[i]);
+        }
+    }
+
+    @Override
+    public void write(final List<Object> values) throws SQLException
+    {
+        Object[] row = new Object[types.length];
+        for (int i = 0; i < row.length; ++i)
+        {
+            row[i] = convert(types[i], values.get(i));
+        }
+        batch.add(row);
+        ++rows;
+        if (batch.size() >= batchSize)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Converts a value for the bulk copy.
+     */
+    private static Object convert(final int type, final Object value)
+    {
+        if (value instanceof Date)
+        {
+            // timestamps are stored as UTC values like the column codec does
+            return Timestamp.valueOf(LocalDateTime.ofInstant(((Date)value).toInstant(), ZoneOffset.UTC));
+        }
+        if ((type == Types.CLOB || type == Types.LONGNVARCHAR) && "".equals(value))
+        {
+            // an empty CLOB is imported as null value
+            return null;
+        }
+        return value;
+    }
+
+    private void flush() throws SQLException
+    {
+        LOG.debug("Bulk copy of {} rows into table {}", batch.size(), table.getName());
+        position = -1;
+        bulkCopy.writeToServer(this);
+        batch.clear();
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+        try
+        {
+            if (!batch.isEmpty())
+            {
+                flush();
+            }
+            LOG.info("Finished import of {} rows into table {}.", rows, table.getName());
+        }
+        finally
+        {
+            bulkCopy.close();
+        }
+    }
+
+    @Override
+    public Set<Integer> getColumnOrdinals()
+    {
+        return ordinals;
+    }
+
+    @Override
+    public String getColumnName(final int column)
+    {
+        return names[column - 1];
+    }
+
+    @Override
+    public int getColumnType(final int column)
+    {
+        return types[column - 1];
+    }
+
+    @Override
+    public int getPrecision(final int column)
+    {
+        return precisions[column - 1];
+    }
+
+    @Override
+    public int getScale(final int column)
+    {
+        return scales[column - 1];
+    }
+
+    @Override
+    public boolean isAutoIncrement(final int column)
+    {
+        return false;
+    }
+
+    @Override
+    public Object[] getRowData()
+    {
+        return batch.get(position);
+    }
+
+    @Override
+    public boolean next()
+    {
+        return ++position < batch.size();
+    }
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Reads an XML data file with a StAX stream reader.
+ * The elements are identified by their depth in the
+ * document, the text of a value is collected in a
+ * reused buffer, base64 values are decoded while they
+ * are read and dateTime values are parsed directly.
+ * The rows are passed to the sink one by one, the
+ * table information at the end of the file is returned.
+ */
+class XmlDataReader
+{
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static final int DEPTH_ROW = 2;
+    private static final int DEPTH_VALUE = 3;
+    private static final int DEPTH_COLUMN = 4;
+
+    private static final int KIND_STRING = 0;
+    private static final int KIND_DECIMAL = 1;
+    private static final int KIND_DATETIME = 2;
+    private static final int KIND_BINARY = 3;
+
+    private static final byte[] BASE64 = new byte[128];
+
+    static
+    {
+        Arrays.fill(BASE64, (byte)-1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); ++i)
+        {
+            BASE64[alphabet.charAt(i)] = (byte)i;
+        }
+    }
+
+    private final XMLStreamReader reader;
+    private final StringBuilder text = new StringBuilder(256);
+    private byte[] binary = new byte[1024];
+    private int binaryLength;
+    private DatatypeFactory datatypeFactory;
+    private int quad;
+    private int quadLength;
+
+    /**
+     * Creates the reader. The stream is not closed.
+     * @param stream the content of the data file
+     */
+    XmlDataReader(final InputStream stream) throws XMLStreamException
+    {
+        reader = FACTORY.createXMLStreamReader(stream);
+    }
+
+    private static XMLInputFactory createFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Reads only the table information at the end of
+     * the data file, the rows are skipped unparsed.
+     * @return the table information of the data file
+     */
+    public Table readTable() throws XMLStreamException, SQLException, IOException
+    {
+        return read(null);
+    }
+
+    /**
+     * Reads all rows of the data file.
+     * @param sink the receiver of the rows, <code>null</code> to skip the rows
+     * @return the table information of the data file
+     */
+    public Table read(final RowSink sink) throws XMLStreamException, SQLException, IOException
+    {
+        Table table = null;
+        Column column = null;
+        List<Object> row = null;
+        boolean inRow = false;
+        int depth = 0;
+        try
+        {
+            while(reader.hasNext())
+            {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    ++depth;
+                    if (depth == DEPTH_ROW)
+                    {
+                        inRow = reader.getLocalName().equals("rows");
+                        if (inRow && sink == null)
+                        {
+                            skipElement();
+                            --depth;
+                        }
+                        else if (inRow)
+                        {
+                            row = new ArrayList<>(table == null ? 16 : table.getColumns().size());
+                        }
+                        else
+                        {
+                            table = new Table();
+                        }
+                    }
+                    else if (depth == DEPTH_VALUE && inRow)
+                    {
+                        row.add(readValue());
+                        --depth;
+                    }
+                    else if (depth == DEPTH_VALUE)
+                    {
+                        if (reader.getLocalName().equals("columns"))
+                        {
+                            column = new Column();
+                            table.addColumn(column);
+                        }
+                        else
+                        {
+                            table.setName(reader.getElementText());
+                            --depth;
+                        }
+                    }
+                    else if (depth == DEPTH_COLUMN)
+                    {
+                        if (reader.getLocalName().equals("label"))
+                        {
+                            column.setLabel(reader.getElementText());
+                        }
+                        else
+                        {
+                            column.setType(Integer.parseInt(reader.getElementText().trim()));
+                        }
+                        --depth;
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    if (depth == DEPTH_ROW && inRow)
+                    {
+                        sink.write(row);
+                        row = null;
+                    }
+                    --depth;
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return table;
+    }
+
+    /**
+     * Reads a value element, the reader is
+     * positioned on the end of the element.
+     */
+    private Object readValue() throws XMLStreamException, IOException
+    {
+        if ("true".equals(reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil")))
+        {
+            skipElement();
+            return null;
+        }
+        String type = reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type");
+        if (type == null)
+        {
+            skipElement();
+            return null;
+        }
+        int kind = getKind(type);
+        if (kind == KIND_BINARY)
+        {
+            binaryLength = 0;
+            quad = 0;
+            quadLength = 0;
+        }
+        else
+        {
+            text.setLength(0);
+        }
+        int event;
+        while((event = reader.next()) != XMLStreamConstants.END_ELEMENT)
+        {
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                            || event == XMLStreamConstants.SPACE)
+            {
+                if (kind == KIND_BINARY)
+                {
+                    decode(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+                else
+                {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            }
+        }
+        switch(kind)
+        {
+            case KIND_DECIMAL:
+                return new BigDecimal(text.toString().trim());
+            case KIND_DATETIME:
+                return parseDateTime(text.toString().trim());
+            case KIND_BINARY:
+                flushQuad();
+                return Arrays.copyOf(binary, binaryLength);
+            default:
+                return text.toString();
+        }
+    }
+
+    private static int getKind(final String type)
+    {
+        String localType = type.substring(type.indexOf(':') + 1);
+        switch(localType)
+        {
+            case "string":
+                return KIND_STRING;
+            case "decimal":
+                return KIND_DECIMAL;
+            case "dateTime":
+                return KIND_DATETIME;
+            case "base64Binary":
+                return KIND_BINARY;
+            default:
+                throw new IllegalStateException("Unhandled type: " + type);
+        }
+    }
+
+    private void skipElement() throws XMLStreamException
+    {
+        int level = 1;
+        while(level > 0)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                ++level;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                --level;
+            }
+        }
+    }
+
+    /**
+     * Decodes base64 characters. Incomplete groups
+     * of four characters are kept for the next call.
+     */
+    private void decode(final char[] chars, final int start, final int length) throws IOException
+    {
+        int capacity = binaryLength + (length / 4 + 1) * 3;
+        if (capacity > binary.length)
+        {
+            binary = Arrays.copyOf(binary, Math.max(capacity, binary.length * 2));
+        }
+        for (int i = start; i < start + length; ++i)
+        {
+            char c = chars[i];
+            int value = c < 128 ? BASE64[c] : -1;
+            if (value < 0)
+            {
+                if (c == '=' || c == ' ' || c == '\n' || c == '\r' || c == '\t')
+                {
+                    continue;
+                }
+                throw new IOException("Illegal base64 character '" + c + "' in data file.");
+            }
+            quad = (quad << 6) | value;
+            if (++quadLength == 4)
+            {
+                binary[binaryLength++] = (byte)(quad >> 16);
+                binary[binaryLength++] = (byte)(quad >> 8);
+                binary[binaryLength++] = (byte)quad;
+                quad = 0;
+                quadLength = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes the bytes of the last group, which is padded.
+     */
+    private void flushQuad()
+    {
+        if (quadLength == 2)
+        {
+            binary[binaryLength++] = (byte)(quad >> 4);
+        }
+        else if (quadLength == 3)
+        {
+            binary[binaryLength++] = (byte)(quad >> 10);
+            binary[binaryLength++] = (byte)(quad >> 2);
+        }
+        quad = 0;
+        quadLength = 0;
+    }
+
+    /**
+     * Parses a dateTime value 'yyyy-MM-ddTHH:mm:ss[.S*][Z|(+|-)hh:mm]'
+     * of the proleptic Gregorian calendar. Other lexical forms are
+     * parsed by the datatype factory.
+     */
+    Date parseDateTime(final String value) throws IOException
+    {
+        int length = value.length();
+        if (length < 19 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+                        || value.charAt(13) != ':' || value.charAt(16) != ':')
+        {
+            return parseWithFactory(value);
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = digits(value, 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0)
+        {
+            return parseWithFactory(value);
+        }
+
+        int pos = 19;
+        int millis = 0;
+        if (pos < length && value.charAt(pos) == '.')
+        {
+            int scale = 100;
+            while(++pos < length && Character.isDigit(value.charAt(pos)))
+            {
+                millis += (value.charAt(pos) - '0') * scale;
+                scale /= 10;
+            }
+        }
+
+        long local = (daysFromCivil(year, month, day) * 86400L + hour * 3600L + minute * 60L + second) * 1000L + millis;
+        if (pos == length)
+        {
+            // without time zone the value is a time of the default time zone
+            GregorianCalendar calendar = new GregorianCalendar();
+            calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+            calendar.clear();
+            calendar.set(year, month - 1, day, hour, minute, second);
+            calendar.set(Calendar.MILLISECOND, millis);
+            return calendar.getTime();
+        }
+        char zone = value.charAt(pos);
+        if (zone == 'Z' && pos + 1 == length)
+        {
+            return new Date(local);
+        }
+        if ((zone == '+' || zone == '-') && pos + 6 == length && value.charAt(pos + 3) == ':')
+        {
+            int offsetHours = digits(value, pos + 1, 2);
+            int offsetMinutes = digits(value, pos + 4, 2);
+            if (offsetHours >= 0 && offsetMinutes >= 0)
+            {
+                long offset = (offsetHours * 60L + offsetMinutes) * 60000L;
+                return new Date(zone == '+' ? local - offset : local + offset);
+            }
+        }
+        return parseWithFactory(value);
+    }
+
+    private Date parseWithFactory(final String value) throws IOException
+    {
+        try
+        {
+            if (datatypeFactory == null)
+            {
+                datatypeFactory = DatatypeFactory.newInstance();
+            }
+            return datatypeFactory.newXMLGregorianCalendar(value).toGregorianCalendar().getTime();
+        }
+        catch(DatatypeConfigurationException | IllegalArgumentException e)
+        {
+            throw new IOException("Invalid dateTime value '" + value + "' in data file.", e);
+        }
+    }
+
+    private static int digits(final String value, final int start, final int count)
+    {
+        int result = 0;
+        for (int i = start; i < start + count; ++i)
+        {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Days since 1970-01-01 of a date of the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(final int year, final int month, final int day)
+    {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
@@ -16,34 +16,48 @@
 
 package com.intershop.databasedumper.in;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
+import com.intershop.databasedumper.ArchiveFormat;
+import com.intershop.databasedumper.ArchiveLayout;
+import com.intershop.databasedumper.CompressionCodec;
+import com.intershop.databasedumper.ConnectionFactory;
 import com.intershop.databasedumper.DatabaseDumper;
-import com.intershop.databasedumper.data.DataTable;
+import com.intershop.databasedumper.meta.Manifest;
+import com.intershop.databasedumper.meta.ManifestEntry;
 import com.intershop.databasedumper.meta.Table;
 
 public class ZipReader
@@ -53,19 +67,38 @@ public class ZipReader
     private Unmarshaller tableUnmarshaller;
 //    private Unmarshaller dataTableUnmarshaller;
     private File file;
+    private int threads = 1;
+    private List<Table> tables;
+    private Manifest manifest;
+    private Map<String, String> entryTables;
+    private boolean manifestRead = false;
 
     public ZipReader(File importFile) throws JAXBException
     {
-        JAXBContext jc = JAXBContext.newInstance(Table.class);
+        JAXBContext jc = JAXBContext.newInstance(Table.class, Manifest.class);
         tableUnmarshaller = jc.createUnmarshaller();
 //        JAXBContext jc2 = JAXBContext.newInstance(DataTable.class);
 //        dataTableUnmarshaller = jc2.createUnmarshaller();
         this.file = importFile;
     }
 
+    /**
+     * Set the number of data files, which are imported at the same time.
+     * @param threads number of import workers, values less than 1 are ignored
+     */
+    public void setThreads(int threads)
+    {
+        this.threads = threads < 1 ? 1 : threads;
+    }
+
     public Set<String> getTableNames() throws IOException
     {
         Set<String> result = new TreeSet<>();
+        if (getManifest() != null)
+        {
+            result.addAll(getManifest().getTables());
+            return result;
+        }
         try {
 			List<Table> tables = getTables();
 			for(Table t : tables)
@@ -79,81 +112,535 @@ public class ZipReader
     }
 
     /**
-     * Read all table meta information from the data ZIP file. 
+     * Reads the manifest of the package. The manifest is found in the
+     * central directory of the zip files without reading the data files.
+     * @return the manifest or <code>null</code>, if the package has no manifest
+     * @throws IOException if the manifest is not readable
+     */
+    public synchronized Manifest getManifest() throws IOException
+    {
+        if (manifestRead)
+        {
+            return manifest;
+        }
+        try
+        {
+            if (file.isDirectory())
+            {
+                File manifestFile = new File(file, DatabaseDumper.MANIFEST_NAME);
+                if (manifestFile.isFile())
+                {
+                    manifest = (Manifest)tableUnmarshaller.unmarshal(manifestFile);
+                }
+            }
+            else
+            {
+                // the manifest is written to the last volume
+                List<File> volumes = getVolumes();
+                for (int i = volumes.size() - 1; i >= 0 && manifest == null; --i)
+                {
+                    try (ZipVolume zipFile = new ZipVolume(volumes.get(i)))
+                    {
+                        ZipArchiveEntry entry = zipFile.getEntry(DatabaseDumper.MANIFEST_NAME);
+                        if (entry != null)
+                        {
+                            try (InputStream in = zipFile.getInputStream(entry))
+                            {
+                                manifest = (Manifest)tableUnmarshaller.unmarshal(new InputSource(in));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        catch(JAXBException e)
+        {
+            throw new IOException("Could not read the manifest of " + file.getAbsolutePath(), e);
+        }
+        manifestRead = true;
+        if (manifest == null)
+        {
+            LOG.info("The package {} has no manifest.", file.getAbsolutePath());
+        }
+        return manifest;
+    }
+
+    /**
+     * Returns the names of the entries of the package, which are accepted
+     * by the filter. Only the central directories of the zip files are read.
+     * @param filter the filter of the entries
+     * @return the names of the entries
+     * @throws IOException if the package is not readable
+     */
+    public Set<String> getEntryNames(final ZipEntryFilter filter) throws IOException
+    {
+        Set<String> result = new TreeSet<>();
+        if (file.isDirectory())
+        {
+            File[] metaFiles = new File(file, DatabaseDumper.META_DIR_NAME).listFiles(File::isFile);
+            List<String> names = new ArrayList<>();
+            for (File metaFile : metaFiles == null ? new File[0] : metaFiles)
+            {
+                names.add(DatabaseDumper.META_DIR_NAME + "/" + metaFile.getName());
+            }
+            for (File dataFile : getDataFiles())
+            {
+                names.add(dataFile.getName());
+            }
+            names.stream().filter(name -> filter.accept(new ZipEntry(name))).forEach(result::add);
+            return result;
+        }
+        for (File volume : getVolumes())
+        {
+            try (ZipVolume zipFile = new ZipVolume(volume))
+            {
+                for (ZipArchiveEntry entry : zipFile.getEntries())
+                {
+                    if (filter.accept(entry))
+                    {
+                        result.add(entry.getName());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read all table meta information from the data ZIP file.
+     * The meta data files are only read once.
      * @return list of all Table meta data entries 
      * @throws IOException if file reading fails
      * @throws JAXBException if content reading fails
      */
-    public List<Table> getTables() throws IOException, JAXBException
+    public synchronized List<Table> getTables() throws IOException, JAXBException
+    {
+        if (tables == null)
+        {
+            tables = readTables();
+        }
+        return new LinkedList<>(tables);
+    }
+
+    private List<Table> readTables() throws IOException, JAXBException
     {
         List<Table> result = new LinkedList<>();
-        try (ZipInputStream in = new ZipInputStream(new FileInputStream(file)))
+        if (file.isDirectory())
         {
-            ZipEntry entry ;
-            while((entry = in.getNextEntry()) != null)
+            File[] metaFiles = new File(file, DatabaseDumper.META_DIR_NAME).listFiles((dir, name) -> name.endsWith(".xml"));
+            if (metaFiles != null)
             {
-                String name = entry.getName();
-                if (name.startsWith(DatabaseDumper.META_DIR_NAME))
+                Arrays.sort(metaFiles);
+                for (File metaFile : metaFiles)
                 {
-                    ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-                    int read = -1;
-                    byte[] buffer = new byte[1028 * 3];
-
-                    while((read = in.read(buffer, 0, buffer.length)) != -1)
+                    result.add((Table)tableUnmarshaller.unmarshal(metaFile));
+                }
+            }
+            return result;
+        }
+        for (File volume : getVolumes())
+        {
+            // the meta data entries are read without reading the data files
+            try (ZipVolume zipFile = new ZipVolume(volume))
+            {
+                for (ZipArchiveEntry entry : zipFile.getEntries())
+                {
+                    if (entry.getName().startsWith(DatabaseDumper.META_DIR_NAME))
                     {
-                        outStream.write(buffer, 0, read);
+                        try (InputStream in = zipFile.getInputStream(entry))
+                        {
+                            result.add((Table)tableUnmarshaller.unmarshal(new InputSource(in)));
+                        }
                     }
-                    Table table = (Table)tableUnmarshaller
-                                    .unmarshal(new InputSource(new ByteArrayInputStream(outStream.toByteArray())));
-                    result.add(table);
                 }
-                in.closeEntry();
             }
         }
         return result;
     }
 
+    /**
+     * Imports all data files. Each data file is imported
+     * by one of the import workers with its own connection,
+     * so that the chunks of a table are imported at the
+     * same time, too.
+     */
     public void importDataTables(final ImportHandler handler, final ConnectionFactory conFactory)
-                    throws IOException, SQLException, ParserConfigurationException, SAXException
-    {
-    	// open the data file
-        try (ZipInputStream in = new ZipInputStream(new FileInputStream(file)))
-        {
-        	// create a new sax parser instance
-            SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
-            
-            ZipEntry entry;
-            // read each tables data file 
-            while((entry = in.getNextEntry()) != null)
-            {
-            	// get the name of the ZIP entry
-                String name = entry.getName();
-                // check if entry is NOT from meta information sub folder
-                // only data files are processed
-                if (!name.startsWith(DatabaseDumper.META_DIR_NAME))
+                    throws IOException, SQLException
+    {
+        importDataTables(handler, conFactory, Collections.emptyList());
+    }
+
+    /**
+     * Imports the data files in waves. The data files of a
+     * wave are imported at the same time, the next wave starts
+     * after all data files of the wave are imported. Data files
+     * of tables without a wave are imported at the end.
+     * @param handler the import handler
+     * @param conFactory the connections of the import workers
+     * @param waves the table names of each wave
+     */
+    public void importDataTables(final ImportHandler handler, final ConnectionFactory conFactory,
+                    final List<Set<String>> waves) throws IOException, SQLException
+    {
+        importDataTables(handler, conFactory, waves, null);
+    }
+
+    /**
+     * Imports the data files in waves and records each data
+     * file in the journal. Imported data files of the journal
+     * are skipped.
+     * @param handler the import handler
+     * @param conFactory the connections of the import workers
+     * @param waves the table names of each wave
+     * @param journal the journal of the import, <code>null</code> for an import without journal
+     */
+    void importDataTables(final ImportHandler handler, final ConnectionFactory conFactory,
+                    final List<Set<String>> waves, final ImportJournal journal) throws IOException, SQLException
+    {
+        // rows are written while a data file is read, the columns are known from the meta data
+        Map<String, Table> tables = new HashMap<>();
+        try
+        {
+            for (Table table : getTables())
+            {
+                tables.put(table.getName(), table);
+            }
+        }
+        catch(JAXBException e)
+        {
+            throw new IOException("Could not read the table meta data.", e);
+        }
+
+        List<List<DataFileTask>> tasks = new ArrayList<>();
+        for (int i = 0; i <= waves.size(); ++i)
+        {
+            tasks.add(new ArrayList<>());
+        }
+
+        LOG.info("Importing data files with {} worker(s).", threads);
+        ExecutorService importService = Executors.newFixedThreadPool(threads);
+        List<ZipVolume> zipFiles = new ArrayList<>();
+        try
+        {
+            if (file.isDirectory())
+            {
+                for (File dataFile : getDataFiles())
                 {
-                    LOG.info("Reading table meta data file '{}'.", name);
-                    // create a new data entries parser
-                    DataTableParser dt = new DataTableParser();
-                    // parse the data from the entries input stream
-                    parser.parse(new DelegateInputStream(in), dt);
-                    // get the data table representation from the parser
-                    DataTable dataTable = dt.getDataTable();
-//                    DataTable dataTable = (DataTable) dataTableUnmarshaller.unmarshal(new DelegateInputStream(in));
-                    // get a connection from the factory
-                    try (Connection con = conFactory.create())
+                    if (isImported(dataFile.getName(), journal))
                     {
-                    	// write data to the connection
-                        handler.writeImportData(dataTable, con);
+                        continue;
                     }
+                    DataFileSource source = () -> new BufferedInputStream(new FileInputStream(dataFile));
+                    Table table = findTable(dataFile.getName(), tables, source);
+                    tasks.get(getWave(table, waves)).add(new DataFileTask(table.getName(), dataFile.length(), () -> {
+                        try (InputStream in = source.open())
+                        {
+                            importEntry(dataFile.getName(), in, table, handler, conFactory, journal);
+                        }
+                        return null;
+                    }));
                 }
-                // close the zip entry
-                in.closeEntry();
             }
-//        } catch (JAXBException e) {
-//			// TODO Auto-generated catch block
-//			e.printStackTrace();
-		}
+            else
+            {
+                for (File volume : getVolumes())
+                {
+                    // a zip file is read by several workers at the same time, each entry by its central directory record
+                    ZipVolume zipFile = new ZipVolume(volume);
+                    zipFiles.add(zipFile);
+                    for (ZipArchiveEntry entry : zipFile.getEntries())
+                    {
+                        // only data files are processed
+                        if (!entry.getName().startsWith(DatabaseDumper.META_DIR_NAME)
+                                        && !entry.getName().equals(DatabaseDumper.MANIFEST_NAME)
+                                        && !isImported(entry.getName(), journal))
+                        {
+                            long size = entry.getSize() >= 0 ? entry.getSize() : entry.getCompressedSize();
+                            DataFileSource source = () -> zipFile.getInputStream(entry);
+                            Table table = findTable(entry.getName(), tables, source);
+                            tasks.get(getWave(table, waves)).add(new DataFileTask(table.getName(), size, () -> {
+                                try (InputStream in = source.open())
+                                {
+                                    importEntry(entry.getName(), in, table, handler, conFactory, journal);
+                                }
+                                return null;
+                            }));
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < tasks.size(); ++i)
+            {
+                if (!tasks.get(i).isEmpty())
+                {
+                    if (!waves.isEmpty())
+                    {
+                        LOG.info("Importing wave {} with {} data file(s).", i + 1, tasks.get(i).size());
+                    }
+                    List<Future<Void>> results = new ArrayList<>();
+                    for (DataFileTask task : orderBySize(tasks.get(i)))
+                    {
+                        results.add(importService.submit(task.task));
+                    }
+                    waitForResults(results);
+                }
+            }
+        }
+        finally
+        {
+            importService.shutdownNow();
+            for (ZipVolume zipFile : zipFiles)
+            {
+                zipFile.close();
+            }
+        }
+    }
+
+    /**
+     * Orders the data files by size, the largest data file first, so
+     * that a large data file does not extend the import at the end.
+     * Data files of the same size are ordered by the size of their table.
+     */
+    private static List<DataFileTask> orderBySize(final List<DataFileTask> tasks)
+    {
+        Map<String, Long> tableSizes = new HashMap<>();
+        for (DataFileTask task : tasks)
+        {
+            tableSizes.merge(task.tableName, task.size, Long::sum);
+        }
+        List<DataFileTask> ordered = new ArrayList<>(tasks);
+        ordered.sort(Comparator.comparingLong((DataFileTask t) -> t.size)
+                        .thenComparingLong(t -> tableSizes.get(t.tableName)).reversed());
+        return ordered;
+    }
+
+    /**
+     * Returns the wave of a data file or the
+     * number of waves, if the table has no wave.
+     */
+    private static int getWave(final Table table, final List<Set<String>> waves)
+    {
+        for (int i = 0; i < waves.size(); ++i)
+        {
+            if (waves.get(i).contains(table.getName()))
+            {
+                return i;
+            }
+        }
+        return waves.size();
+    }
+
+    private List<File> getDataFiles() throws IOException
+    {
+        // spool files are incomplete data files of a failed export
+        File[] dataFiles = file.listFiles(f -> f.isFile() && !f.getName().endsWith(".spool")
+                        && !f.getName().equals(DatabaseDumper.MANIFEST_NAME));
+        if (dataFiles == null)
+        {
+            throw new IOException("Could not list the data files of " + file.getAbsolutePath());
+        }
+        Arrays.sort(dataFiles);
+        return Arrays.asList(dataFiles);
+    }
+
+    private static boolean isImported(final String name, final ImportJournal journal)
+    {
+        if (journal != null && journal.isImported(name))
+        {
+            LOG.info("Data file '{}' is already imported.", name);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Imports a data file. The data file is part of the
+     * journal after all rows are written.
+     */
+    private static void importEntry(final String name, final InputStream in, final Table table,
+                    final ImportHandler handler, final ConnectionFactory conFactory, final ImportJournal journal)
+                    throws IOException, SQLException
+    {
+        if (journal == null)
+        {
+            importEntry(name, in, table, handler, conFactory);
+            return;
+        }
+        journal.start(name, table.getName());
+        importEntry(name, in, table, handler, conFactory);
+        journal.imported(name, table.getName());
+    }
+
+    private static void importEntry(final String name, final InputStream in, final Table table,
+                    final ImportHandler handler, final ConnectionFactory conFactory)
+                    throws IOException, SQLException
+    {
+        LOG.info("Reading table data file '{}'.", name);
+        // entries with an own codec are stored and compressed by the codec
+        try (InputStream content = CompressionCodec.decompress(name, in);
+             Connection con = conFactory.create())
+        {
+            if (ArchiveFormat.forEntry(CompressionCodec.getContentName(name)) == ArchiveFormat.BINARY)
+            {
+                // the binary data file starts with the table information
+                BinaryDataReader reader = new BinaryDataReader(content);
+                try (RowSink sink = handler.openSink(reader.getTable(), con))
+                {
+                    reader.read(sink);
+                }
+                return;
+            }
+            try (RowSink sink = handler.openSink(table, con))
+            {
+                new XmlDataReader(content).read(sink);
+            }
+        }
+        catch(XMLStreamException e)
+        {
+            throw new IOException("Could not read the data file '" + name + "'.", e);
+        }
+    }
+
+    /**
+     * Finds the table of a data file by the manifest of the package. A
+     * data file without manifest entry or without table meta data is
+     * resolved by its own table information, the rows are not read.
+     * The manifest is used instead of the name of the data file, the
+     * data file 'FOO_1.xml' can be a chunk of 'FOO' or the table 'FOO_1'.
+     */
+    private Table findTable(final String name, final Map<String, Table> tables, final DataFileSource source)
+                    throws IOException
+    {
+        String tableName = getEntryTables().get(name);
+        Table table = tableName != null ? tables.get(tableName) : null;
+        if (table == null)
+        {
+            table = readTable(name, source);
+            table = tables.getOrDefault(table.getName(), table);
+        }
+        return table;
     }
 
+    /**
+     * Reads the table information of a data file. The
+     * binary data file starts with the table information,
+     * the XML data file is read to its end.
+     */
+    private static Table readTable(final String name, final DataFileSource source) throws IOException
+    {
+        LOG.info("Reading the table information of data file '{}'.", name);
+        try (InputStream content = CompressionCodec.decompress(name, source.open()))
+        {
+            Table table;
+            if (ArchiveFormat.forEntry(CompressionCodec.getContentName(name)) == ArchiveFormat.BINARY)
+            {
+                table = new BinaryDataReader(content).getTable();
+            }
+            else
+            {
+                table = new XmlDataReader(content).readTable();
+            }
+            if (table == null || table.getName() == null)
+            {
+                throw new IOException("The data file '" + name + "' contains no table information.");
+            }
+            return table;
+        }
+        catch(XMLStreamException | SQLException e)
+        {
+            throw new IOException("Could not read the table information of the data file '" + name + "'.", e);
+        }
+    }
+
+    private synchronized Map<String, String> getEntryTables() throws IOException
+    {
+        if (entryTables == null)
+        {
+            entryTables = new HashMap<>();
+            if (getManifest() != null)
+            {
+                for (ManifestEntry entry : getManifest().getEntries())
+                {
+                    entryTables.put(entry.getName(), entry.getTable());
+                }
+            }
+        }
+        return entryTables;
+    }
+
+    private List<File> getVolumes() throws FileNotFoundException
+    {
+        List<File> volumes = ArchiveLayout.getVolumes(file);
+        if (volumes.isEmpty())
+        {
+            throw new FileNotFoundException("The package " + file.getAbsolutePath() + " does not exist.");
+        }
+        return volumes;
+    }
+
+    /**
+     * Waits for all import workers. The
+     * first failure stops the import.
+     */
+    private void waitForResults(final List<Future<Void>> results)
+                    throws IOException, SQLException
+    {
+        try
+        {
+            for (Future<Void> result : results)
+            {
+                result.get();
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import was interrupted!", e);
+        }
+        catch(ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException)cause;
+            }
+            if (cause instanceof SQLException)
+            {
+                throw (SQLException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+
+    /**
+     * Import of a data file with the size of the data file.
+     */
+    private static final class DataFileTask
+    {
+        private final String tableName;
+        private final long size;
+        private final Callable<Void> task;
+
+        private DataFileTask(final String tableName, final long size, final Callable<Void> task)
+        {
+            this.tableName = tableName;
+            this.size = size;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Opens the content of a data file, the
+     * data file can be opened several times.
+     */
+    @FunctionalInterface
+    private interface DataFileSource
+    {
+        InputStream open() throws IOException;
+    }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+/**
+ * Zip file of a package, which is read by its central
+ * directory. Entries are read with positioned reads of
+ * the file channel, so that several workers read entries
+ * at the same time without waiting for each other and
+ * an entry is found without reading other entries.
+ * Stored entries, e.g. entries with an own codec, are
+ * read directly from the channel into a bounded buffer
+ * and their CRC is checked against the central directory.
+ */
+class ZipVolume implements Closeable
+{
+    /**
+     * Size of the read buffer of a stored entry.
+     */
+    static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ZipFile zipFile;
+
+    ZipVolume(final File file) throws IOException
+    {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try
+        {
+            zipFile = new ZipFile(channel);
+        }
+        catch(IOException e)
+        {
+            channel.close();
+            throw new IOException("Could not read the zip file " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Returns the entries in the order of the zip file.
+     * @return the entries of the central directory
+     */
+    List<ZipArchiveEntry> getEntries()
+    {
+        return Collections.list(zipFile.getEntriesInPhysicalOrder());
+    }
+
+    /**
+     * Finds an entry in the central directory.
+     * @param name the name of the entry
+     * @return the entry or <code>null</code>
+     */
+    ZipArchiveEntry getEntry(final String name)
+    {
+        return zipFile.getEntry(name);
+    }
+
+    /**
+     * Opens the content of an entry. The stream can
+     * be used while other entries are read.
+     * @param entry an entry of this zip file
+     * @return the uncompressed content of the entry
+     */
+    InputStream getInputStream(final ZipArchiveEntry entry) throws IOException
+    {
+        if (entry.getMethod() == ZipEntry.STORED && entry.getDataOffset() >= 0)
+        {
+            return new StoredInputStream(channel, entry.getName(), entry.getDataOffset(), entry.getSize(), entry.getCrc());
+        }
+        InputStream in = zipFile.getInputStream(entry);
+        if (in == null)
+        {
+            throw new IOException("Could not read the entry " + entry.getName());
+        }
+        return in;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        // closes the channel, too
+        zipFile.close();
+    }
+
+    /**
+     * Reads a part of a file by positioned reads. The
+     * CRC of the part is verified, when the last bytes
+     * are read from the file.
+     */
+    static class StoredInputStream extends InputStream
+    {
+        private final FileChannel channel;
+        private final String name;
+        private final long crc;
+        private final CRC32 checksum = new CRC32();
+        private final ByteBuffer buffer;
+        private long position;
+        private final long end;
+
+        /**
+         * Creates the stream.
+         * @param channel the channel of the zip file
+         * @param name the name of the entry
+         * @param position the start of the content in the zip file
+         * @param size the size of the content
+         * @param crc the CRC of the content or -1, if the CRC is unknown
+         */
+        StoredInputStream(final FileChannel channel, final String name, final long position, final long size,
+                        final long crc)
+        {
+            this.channel = channel;
+            this.name = name;
+            this.crc = crc;
+            this.position = position;
+            this.end = position + size;
+            buffer = ByteBuffer.allocate((int)Math.min(size, READ_BUFFER_SIZE));
+            buffer.limit(0);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (!fill())
+            {
+                return -1;
+            }
+            return buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!fill())
+            {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+
+        @Override
+        public void close()
+        {
+            buffer.limit(0);
+            position = end;
+        }
+
+        /**
+         * Reads the next part of the entry, if the buffer is read.
+         * @return false at the end of the entry
+         */
+        private boolean fill() throws IOException
+        {
+            if (buffer.hasRemaining())
+            {
+                return true;
+            }
+            if (position >= end)
+            {
+                return false;
+            }
+            buffer.clear();
+            buffer.limit((int)Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining())
+            {
+                int count = channel.read(buffer, position);
+                if (count < 0)
+                {
+                    throw new EOFException("Unexpected end of the entry " + name);
+                }
+                position += count;
+            }
+            buffer.flip();
+            checksum.update(buffer.array(), 0, buffer.limit());
+            if (position >= end && crc >= 0 && checksum.getValue() != crc)
+            {
+                throw new ZipException("The CRC of the entry " + name + " does not match the central directory.");
+            }
+            return true;
+        }
+    }
+}
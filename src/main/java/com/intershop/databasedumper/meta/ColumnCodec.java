@@ -0,0 +1,341 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.meta;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Reads a column of a result set and binds the
+ * value of a column to a statement. A codec
+ * is specialized for the type of the column and
+ * uses the column index, so that there is no
+ * lookup for each value.
+ * A codec is not thread safe.
+ */
+public abstract class ColumnCodec
+{
+    protected final Table table;
+    protected final Column column;
+    protected final int index;
+
+    protected ColumnCodec(final Table table, final Column column, final int index)
+    {
+        this.table = table;
+        this.column = column;
+        this.index = index;
+    }
+
+    /**
+     * Creates the codec for a column.
+     * @param table the table of the column
+     * @param column the column
+     * @param index the index of the column in the result set and statement, starting with 1
+     * @return the codec for the type of the column
+     */
+    public static ColumnCodec create(final Table table, final Column column, final int index)
+    {
+        switch(column.getType())
+        {
+            case Types.BIT:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.TINYINT:
+                return new LongCodec(table, column, index);
+            case Types.NUMERIC:
+            case Types.DOUBLE:
+            case Types.DECIMAL:
+            case Types.FLOAT:
+                return new DecimalCodec(table, column, index);
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                return new StringCodec(table, column, index);
+            case Types.TIMESTAMP:
+            case Types.TIME:
+                return new TimestampCodec(table, column, index);
+            case Types.BLOB:
+            case Types.VARBINARY:
+                return new BlobCodec(table, column, index);
+            case Types.CLOB:
+            case Types.LONGNVARCHAR:
+                return new ClobCodec(table, column, index);
+            case Types.OTHER:
+            default:
+                return new UnsupportedCodec(table, column, index);
+        }
+    }
+
+    public Column getColumn()
+    {
+        return column;
+    }
+
+    /**
+     * Reads the value of the current row.
+     * @param resultSet the result set
+     * @param writer target for the value
+     */
+    public abstract void read(ResultSet resultSet, ValueWriter writer) throws SQLException, IOException;
+
+    /**
+     * Binds a value of an imported row.
+     * @param stm the statement
+     * @param value the value, <code>null</code> for a null value
+     */
+    public void bind(final PreparedStatement stm, final Object value) throws SQLException
+    {
+        bind(stm, index, value);
+    }
+
+    /**
+     * Binds a value of an imported row to a parameter, e.g.
+     * of a statement, which inserts several rows at once.
+     * @param stm the statement
+     * @param parameter the index of the parameter, starting with 1
+     * @param value the value, <code>null</code> for a null value
+     */
+    public abstract void bind(PreparedStatement stm, int parameter, Object value) throws SQLException;
+
+    private static class LongCodec extends ColumnCodec
+    {
+        LongCodec(final Table table, final Column column, final int index)
+        {
+            super(table, column, index);
+        }
+
+        @Override
+        public void read(final ResultSet resultSet, final ValueWriter writer) throws SQLException, IOException
+        {
+            long value = resultSet.getLong(index);
+            if (resultSet.wasNull())
+            {
+                writer.writeNull();
+            }
+            else
+            {
+                writer.writeLong(value);
+            }
+        }
+
+        @Override
+        public void bind(final PreparedStatement stm, final int parameter, final Object value) throws SQLException
+        {
+            if (value == null)
+            {
+                stm.setNull(parameter, column.getType());
+            }
+            else
+            {
+                stm.setLong(parameter, ((Number)value).longValue());
+            }
+        }
+    }
+
+    private static class DecimalCodec extends ColumnCodec
+    {
+        DecimalCodec(final Table table, final Column column, final int index)
+        {
+            super(table, column, index);
+        }
+
+        @Override
+        public void read(final ResultSet resultSet, final ValueWriter writer) throws SQLException, IOException
+        {
+            writer.writeDecimal(resultSet.getBigDecimal(index));
+        }
+
+        @Override
+        public void bind(final PreparedStatement stm, final int parameter, final Object value) throws SQLException
+        {
+            stm.setBigDecimal(parameter, (BigDecimal)value);
+        }
+    }
+
+    private static class StringCodec extends ColumnCodec
+    {
+        StringCodec(final Table table, final Column column, final int index)
+        {
+            super(table, column, index);
+        }
+
+        @Override
+        public void read(final ResultSet resultSet, final ValueWriter writer) throws SQLException, IOException
+        {
+            writer.writeString(resultSet.getString(index));
+        }
+
+        @Override
+        public void bind(final PreparedStatement stm, final int parameter, final Object value) throws SQLException
+        {
+            stm.setString(parameter, (String)value);
+        }
+    }
+
+    /**
+     * Timestamps are stored as UTC values.
+     */
+    private static class TimestampCodec extends ColumnCodec
+    {
+        private final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+        TimestampCodec(final Table table, final Column column, final int index)
+        {
+            super(table, column, index);
+        }
+
+        @Override
+        public void read(final ResultSet resultSet, final ValueWriter writer) throws SQLException, IOException
+        {
+            Timestamp timestamp = resultSet.getTimestamp(index, cal);
+            // the value has the precision of milliseconds like date and time before
+            writer.writeDateTime(timestamp == null ? null : new Date(timestamp.getTime()));
+        }
+
+        @Override
+        public void bind(final PreparedStatement stm, final int parameter, final Object value) throws SQLException
+        {
+            Timestamp timestamp = null;
+            if (value instanceof XMLGregorianCalendar)
+            {
+                timestamp = new Timestamp(((XMLGregorianCalendar)value).toGregorianCalendar().getTimeInMillis());
+            }
+            else if (value instanceof Date)
+            {
+                timestamp = new Timestamp(((Date)value).getTime());
+            }
+            stm.setTimestamp(parameter, timestamp, cal);
+        }
+    }
+
+    private static class BlobCodec extends ColumnCodec
+    {
+        BlobCodec(final Table table, final Column column, final int index)
+        {
+            super(table, column, index);
+        }
+
+        @Override
+        public void read(final ResultSet resultSet, final ValueWriter writer) throws SQLException, IOException
+        {
+            Blob blob = resultSet.getBlob(index);
+            if (blob != null)
+            {
+                try (InputStream binaryStream = blob.getBinaryStream())
+                {
+                    writer.writeBinary(binaryStream);
+                }
+            }
+            else
+            {
+                writer.writeNull();
+            }
+        }
+
+        @Override
+        public void bind(final PreparedStatement stm, final int parameter, final Object value) throws SQLException
+        {
+            if (value == null)
+            {
+                stm.setNull(parameter, Types.BLOB);
+            }
+            else
+            {
+                stm.setBlob(parameter, new ByteArrayInputStream((byte[])value));
+            }
+        }
+    }
+
+    private static class ClobCodec extends ColumnCodec
+    {
+        ClobCodec(final Table table, final Column column, final int index)
+        {
+            super(table, column, index);
+        }
+
+        @Override
+        public void read(final ResultSet resultSet, final ValueWriter writer) throws SQLException, IOException
+        {
+            Clob clob = resultSet.getClob(index);
+            if (clob != null && clob.length() > 0)
+            {
+                try (Reader reader = clob.getCharacterStream())
+                {
+                    writer.writeString(reader);
+                }
+            }
+            else
+            {
+                writer.writeNull();
+            }
+        }
+
+        @Override
+        public void bind(final PreparedStatement stm, final int parameter, final Object value) throws SQLException
+        {
+            String clobStr = (String)value;
+            Reader reader = null;
+            if (clobStr != null && clobStr.length() > 0)
+            {
+                reader = new StringReader(clobStr);
+            }
+            stm.setClob(parameter, reader);
+        }
+    }
+
+    /**
+     * Fails for each value, so that tables without
+     * rows can be processed.
+     */
+    private static class UnsupportedCodec extends ColumnCodec
+    {
+        UnsupportedCodec(final Table table, final Column column, final int index)
+        {
+            super(table, column, index);
+        }
+
+        @Override
+        public void read(final ResultSet resultSet, final ValueWriter writer)
+        {
+            throw new IllegalArgumentException("Unsupported type: " + table.getName() + "." + column.getLabel() + "("
+                            + JDBCType.valueOf(column.getType()).getName() + ")");
+        }
+
+        @Override
+        public void bind(final PreparedStatement stm, final int parameter, final Object value)
+        {
+            throw new IllegalStateException("Unsupported type at table " + table.getName() + '.' + column.getLabel()
+                            + " : " + JDBCType.valueOf(column.getType()).getName());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.meta;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of a package. The manifest is written after
+ * all data files, it lists the exported tables and
+ * the data files with their statistics.
+ */
+@XmlRootElement
+@XmlType(propOrder = { "formatVersion", "tables", "entries" })
+public class Manifest
+{
+    /**
+     * Version of the package format.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private int formatVersion = FORMAT_VERSION;
+
+    private List<String> tables = new ArrayList<>();
+
+    private List<ManifestEntry> entries = new ArrayList<>();
+
+    public int getFormatVersion()
+    {
+        return formatVersion;
+    }
+
+    public void setFormatVersion(int formatVersion)
+    {
+        this.formatVersion = formatVersion;
+    }
+
+    /**
+     * Get the names of the exported tables
+     * @return the table names
+     */
+    @XmlElement(name = "table")
+    public List<String> getTables()
+    {
+        return tables;
+    }
+
+    public void setTables(List<String> tables)
+    {
+        this.tables = tables;
+    }
+
+    /**
+     * Get the data files of the package
+     * @return the data files
+     */
+    @XmlElement(name = "entry")
+    public List<ManifestEntry> getEntries()
+    {
+        return entries;
+    }
+
+    public void setEntries(List<ManifestEntry> entries)
+    {
+        this.entries = entries;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Manifest [formatVersion=" + formatVersion + ", tables=" + tables + ", entries=" + entries + "]";
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.meta;
+
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Data file of a package with its statistics.
+ */
+@XmlType(propOrder = { "name", "table", "rows", "size", "checksum" })
+public class ManifestEntry
+{
+    private String name;
+    private String table;
+    private long rows;
+    private long size;
+    private String checksum;
+
+    /**
+     * Get the name of the data file in the package
+     * @return the name of the zip entry or file
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public String getTable()
+    {
+        return table;
+    }
+
+    public void setTable(String table)
+    {
+        this.table = table;
+    }
+
+    public long getRows()
+    {
+        return rows;
+    }
+
+    public void setRows(long rows)
+    {
+        this.rows = rows;
+    }
+
+    /**
+     * Get the size of the data file before the compression
+     * @return the uncompressed size in bytes
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    public void setSize(long size)
+    {
+        this.size = size;
+    }
+
+    /**
+     * Get the checksum of the data file before the compression
+     * @return the CRC-32 as hexadecimal number
+     */
+    public String getChecksum()
+    {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum)
+    {
+        this.checksum = checksum;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ManifestEntry [name=" + name + ", table=" + table + ", rows=" + rows + ", size=" + size
+                        + ", checksum=" + checksum + "]";
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.meta;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The codecs of all columns of a table. The
+ * columns are read and bound in the order of
+ * the table columns. A table codec is not
+ * thread safe, each reader or writer of a
+ * table creates its own instance.
+ */
+public class TableCodec
+{
+    private final ColumnCodec[] codecs;
+
+    public TableCodec(final Table table)
+    {
+        List<Column> columns = table.getColumns();
+        codecs = new ColumnCodec[columns.size()];
+        for (int i = 0; i < codecs.length; ++i)
+        {
+            codecs[i] = ColumnCodec.create(table, columns.get(i), i + 1);
+        }
+    }
+
+    /**
+     * Reads all columns of the current row.
+     * @param resultSet the result set
+     * @param writer target for the values
+     */
+    public void read(final ResultSet resultSet, final ValueWriter writer) throws SQLException, IOException
+    {
+        for (ColumnCodec codec : codecs)
+        {
+            codec.read(resultSet, writer);
+        }
+    }
+
+    /**
+     * Binds all values of a row.
+     * @param stm the statement
+     * @param values the values in the order of the columns
+     */
+    public void bind(final PreparedStatement stm, final List<Object> values) throws SQLException
+    {
+        for (int i = 0; i < codecs.length; ++i)
+        {
+            codecs[i].bind(stm, values.get(i));
+        }
+    }
+
+    /**
+     * Binds all values of a row after the parameters
+     * of other rows of the same statement.
+     * @param stm the statement
+     * @param values the values in the order of the columns
+     * @param offset the number of parameters before the row
+     */
+    public void bind(final PreparedStatement stm, final List<Object> values, final int offset) throws SQLException
+    {
+        for (int i = 0; i < codecs.length; ++i)
+        {
+            codecs[i].bind(stm, offset + i + 1, values.get(i));
+        }
+    }
+}
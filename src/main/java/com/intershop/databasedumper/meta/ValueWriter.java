@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.meta;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Target for the values of a row, which
+ * are read by a {@link ColumnCodec}.
+ */
+public interface ValueWriter
+{
+    void writeNull() throws IOException;
+
+    void writeLong(long value) throws IOException;
+
+    void writeDecimal(BigDecimal value) throws IOException;
+
+    void writeString(String value) throws IOException;
+
+    /**
+     * Writes a character stream, e.g. of a CLOB.
+     * @param reader the content, <code>null</code> for a null value
+     */
+    void writeString(Reader reader) throws IOException;
+
+    void writeDateTime(Date value) throws IOException;
+
+    /**
+     * Writes a binary stream, e.g. of a BLOB.
+     * @param in the content, <code>null</code> for a null value
+     */
+    void writeBinary(InputStream in) throws IOException;
+}
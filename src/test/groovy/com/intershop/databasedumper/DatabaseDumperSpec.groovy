@@ -21,6 +21,15 @@ import groovy.sql.Sql
 import groovy.util.logging.Slf4j
 import spock.lang.Specification
 
+import java.sql.Blob
+import java.sql.Clob
+import java.sql.ResultSet
+import java.sql.SQLException
+import java.sql.Timestamp
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
 @Slf4j
 abstract class DatabaseDumperSpec extends Specification {
 
@@ -37,6 +46,199 @@ abstract class DatabaseDumperSpec extends Specification {
 
     abstract Sql getPreparedSql()
 
+    DatabaseDumper createDumper(File content, int maxRows = 0) {
+        return new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), content, maxRows, Collections.<String>emptyList())
+    }
+
+    /**
+     * Exports the database, changes both tables and imports the package again.
+     * The rows of the additional tables are deleted before the import.
+     * @param tables additional tables, which are compared ordered by their first column
+     * @return true, if export and import succeed and the import restores the content of the export
+     */
+    boolean roundTrip(DatabaseDumper ddExport, DatabaseDumper ddImport, List<String> tables = []) {
+        Sql sql = getPreparedSql()
+        try {
+            List<Map<String, Object>> content = readContent(sql, tables)
+            if (! ddExport.runExport()) {
+                return false
+            }
+            sql.execute("INSERT INTO DBUSER(USER_ID, USERNAME, CREATED_BY) VALUES (999, 'Removed', 'system')")
+            sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+            tables.each { sql.execute("DELETE FROM ${it}".toString()) }
+            return ddImport.runImport() && readContent(sql, tables) == content
+        } finally {
+            sql.close()
+        }
+    }
+
+    static List<Map<String, Object>> readContent(Sql sql, List<String> tables = []) {
+        return readRows(sql, 'select * from DBUSER order by USER_ID') + readRows(sql, 'select * from ACCESSDATA order by APP_ID') +
+                tables.collectMany { readRows(sql, "select * from ${it} order by 1".toString()) }
+    }
+
+    /**
+     * Reads the rows of a query, large objects and binary values are read as lists.
+     */
+    static List<Map<String, Object>> readRows(Sql sql, String query) {
+        return sql.rows(query).collect { GroovyRowResult row ->
+            row.collectEntries { key, value ->
+                if (value instanceof Blob) {
+                    value = value.binaryStream.bytes.toList()
+                } else if (value instanceof Clob) {
+                    value = value.characterStream.text
+                } else if (value instanceof byte[]) {
+                    value = value.toList()
+                }
+                [(key): value]
+            }
+        }
+    }
+
+    /**
+     * Column types of the table VALUEDATA, a database
+     * overrides the types, which are not standard SQL.
+     */
+    Map<String, String> getValueTypes() {
+        return [decimal: 'DECIMAL(12,4)', timestamp: 'TIMESTAMP', blob: 'BLOB', clob: 'CLOB']
+    }
+
+    /**
+     * Creates the table VALUEDATA with fractional decimals, timestamps,
+     * large objects and a row, which has only null values.
+     */
+    void createValueData(Sql sql) {
+        Map<String, String> types = getValueTypes()
+        String create = "CREATE TABLE VALUEDATA(ID INTEGER NOT NULL, AMOUNT ${types.decimal}, CREATED ${types.timestamp}, " +
+                "CONTENT ${types.blob}, NOTE ${types.clob}, NAME VARCHAR(20), PRIMARY KEY (ID))"
+        sql.execute(create)
+        byte[] content = new byte[3000]
+        new Random(42).nextBytes(content)
+        String insert = 'INSERT INTO VALUEDATA(ID, AMOUNT, CREATED, CONTENT, NOTE, NAME) VALUES (?, ?, ?, ?, ?, ?)'
+        sql.execute(insert, [1, 12.3456G, Timestamp.valueOf('2017-03-01 12:34:56.789'), content, 'note ' * 2000, 'first'])
+        sql.execute('INSERT INTO VALUEDATA(ID) VALUES (2)')
+        sql.execute(insert, [3, -0.0001G, Timestamp.valueOf('1970-01-01 00:00:00.001'), [0, -1, 127] as byte[], '<&>', 'third'])
+    }
+
+    /**
+     * Reads the number of rows of each data file from the manifest of a zip package.
+     */
+    static Map<String, Long> readEntryRows(File content) {
+        ZipFile zipFile = new ZipFile(content)
+        try {
+            def manifest = new XmlSlurper().parse(zipFile.getInputStream(zipFile.getEntry(DatabaseDumper.MANIFEST_NAME)))
+            return manifest.entry.collectEntries { [(it.name.text()): it.rows.text() as long] }
+        } finally {
+            zipFile.close()
+        }
+    }
+
+    /**
+     * Reads the table of each data file from the manifest of a zip package.
+     */
+    static Map<String, String> readEntryTables(File content) {
+        ZipFile zipFile = new ZipFile(content)
+        try {
+            def manifest = new XmlSlurper().parse(zipFile.getInputStream(zipFile.getEntry(DatabaseDumper.MANIFEST_NAME)))
+            return manifest.entry.collectEntries { [(it.name.text()): it.table.text()] }
+        } finally {
+            zipFile.close()
+        }
+    }
+
+    /**
+     * Reads the values of the first column of an XML data file of a zip package.
+     */
+    static List<String> readFirstColumn(File content, String entryName) {
+        ZipFile zipFile = new ZipFile(content)
+        try {
+            ZipEntry entry = zipFile.getEntry(entryName)
+            if (entry == null) {
+                return []
+            }
+            return new XmlSlurper().parse(zipFile.getInputStream(entry)).rows.collect { it.element[0].text() }
+        } finally {
+            zipFile.close()
+        }
+    }
+
+    /**
+     * Removes the manifest from a zip package like a package of an older version.
+     */
+    static boolean removeManifest(File content) {
+        return replaceEntries(content, [(DatabaseDumper.MANIFEST_NAME): null])
+    }
+
+    /**
+     * Replaces the content of entries of a zip package, an entry without new content is removed.
+     */
+    static boolean replaceEntries(File content, Map<String, byte[]> replacements) {
+        File copy = new File(content.parentFile, content.name + '.copy')
+        ZipFile zipFile = new ZipFile(content)
+        try {
+            copy.withOutputStream { out ->
+                ZipOutputStream zipOut = new ZipOutputStream(out)
+                zipFile.entries().findAll { ! replacements.containsKey(it.name) || replacements[it.name] != null }.each { ZipEntry entry ->
+                    zipOut.putNextEntry(new ZipEntry(entry.name))
+                    if (replacements.containsKey(entry.name)) {
+                        zipOut.write(replacements[entry.name])
+                    } else {
+                        zipOut << zipFile.getInputStream(entry)
+                    }
+                    zipOut.closeEntry()
+                }
+                zipOut.finish()
+            }
+        } finally {
+            zipFile.close()
+        }
+        return content.delete() && copy.renameTo(content)
+    }
+
+    /**
+     * Simulates an export, which stopped after the table of the first data file of a zip
+     * package. The journal lists the data files of this table and the package ends before
+     * the first entry of another table.
+     * @return the completed table
+     */
+    static String interruptExport(File content) {
+        def manifest
+        Map<String, Long> offsets = [:]
+        org.apache.commons.compress.archivers.zip.ZipFile zipFile = new org.apache.commons.compress.archivers.zip.ZipFile(content)
+        try {
+            manifest = new XmlSlurper().parse(zipFile.getInputStream(zipFile.getEntry(DatabaseDumper.MANIFEST_NAME)))
+            zipFile.entries.each { offsets[it.name] = it.localHeaderOffset }
+        } finally {
+            zipFile.close()
+        }
+        String table = manifest.entry.min { offsets[it.name.text()] }.table.text()
+        def entries = manifest.entry.findAll { it.table.text() == table }
+        List<String> kept = entries.collect { it.name.text() } + ["${DatabaseDumper.META_DIR_NAME}/${table}.xml".toString()]
+        new File(content.path + '.journal').text = entries.collect {
+            "entry\t${table}\t-1\t${it.name.text()}\t${it.rows.text()}\t${it.size.text()}\t${it.checksum.text()}\n"
+        }.join('') + "table\t${table}\n"
+        RandomAccessFile file = new RandomAccessFile(content, 'rw')
+        try {
+            file.setLength(offsets.findAll { ! kept.contains(it.key) }.values().min())
+        } finally {
+            file.close()
+        }
+        return table
+    }
+
+    static List<String> readIndexes(Sql sql, String tableName) {
+        List<String> indexes = []
+        ResultSet resultSet = sql.connection.metaData.getIndexInfo(null, null, tableName, false, false)
+        try {
+            while (resultSet.next()) {
+                indexes << resultSet.getString('INDEX_NAME')?.toUpperCase()
+            }
+        } finally {
+            resultSet.close()
+        }
+        return indexes
+    }
+
     def 'check prepared database'() {
         given:
         prepareDatabase()
@@ -104,5 +306,688 @@ abstract class DatabaseDumperSpec extends Specification {
         sql.close()
     }
 
+    def 'Test dumper parallel export'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-parallel.zip')
+
+        when: 'Export with four workers'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+        ddExport.setExportThreads(4)
+
+        then:
+        ddExport.runExport()
+        testContent.exists()
+        List<String> list = SpecDatbaseUtil.getZipContent(testContent)
+        list.contains('ACCESSDATA.xml')
+        list.contains('metadata/ACCESSDATA.xml')
+        list.contains('DBUSER.xml')
+        list.contains('metadata/DBUSER.xml')
+
+        when: 'Import the parallel export'
+        Sql sql = getPreparedSql()
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        DatabaseDumper ddImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then:
+        ddImport.runImport()
+        sql.rows('select APP_ID from ACCESSDATA where APP_ID = 1').size() == 1
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper export with key ranges'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-ranges.zip')
+        Sql sql = getPreparedSql()
+        sql.execute('CREATE TABLE RANGEDATA(CODE VARCHAR(20) NOT NULL, PRIMARY KEY (CODE))')
+        List<String> codes = (1..10).collect { "code${it}".toString() }
+        codes.each { sql.execute("INSERT INTO RANGEDATA(CODE) VALUES ('${it}')".toString()) }
+
+        when: 'Export all tables in two key ranges'
+        DatabaseDumper ddExport = createDumper(testContent)
+        ddExport.setExportThreads(2)
+        ddExport.setExportPartitions(2, 1)
+        boolean restored = roundTrip(ddExport, createDumper(testContent))
+        Map<String, Long> entries = readEntryRows(testContent)
+        // the ranges are numbered in the order they start, the first range can be the upper one
+        List<List<Integer>> accessKeys = ['ACCESSDATA_0.xml', 'ACCESSDATA_1.xml'].collect {
+            readFirstColumn(testContent, it)*.toInteger()
+        }.sort { it.min() }
+        List<String> rangeKeys0 = readFirstColumn(testContent, 'RANGEDATA_0.xml')
+        List<String> rangeKeys1 = readFirstColumn(testContent, 'RANGEDATA_1.xml')
+
+        then: 'the numeric key is split by its value'
+        restored
+        ! entries.containsKey('ACCESSDATA.xml')
+        accessKeys.flatten().sort() == (1..8).toList()
+        accessKeys[0].max() < accessKeys[1].min()
+
+        and: 'the character key is split into buckets of rows'
+        ! entries.containsKey('RANGEDATA.xml')
+        ! rangeKeys0.isEmpty()
+        ! rangeKeys1.isEmpty()
+        (rangeKeys0 + rangeKeys1).sort() == codes.sort()
+        sql.rows('select CODE from RANGEDATA').size() == codes.size()
+
+        cleanup:
+        sql?.execute('DROP TABLE RANGEDATA')
+        sql?.close()
+    }
+
+    def 'Test dumper streamed export in chunks'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-chunks.zip')
+
+        when: 'Export the eight rows of ACCESSDATA with one row per data file'
+        DatabaseDumper ddExport = createDumper(testContent, 1)
+        ddExport.setExportThreads(2)
+        boolean restored = roundTrip(ddExport, createDumper(testContent))
+        Map<String, Long> entries = readEntryRows(testContent).findAll { it.key.startsWith('ACCESSDATA') }
+
+        then: 'each row is a data file, which is imported again'
+        restored
+        entries.keySet() == (['ACCESSDATA.xml'] + (1..7).collect { "ACCESSDATA_${it}.xml".toString() }) as Set
+        entries.values().every { it == 1L }
+        ! testDir.listFiles().any { it.name.endsWith('.spool') }
+    }
+
+    def 'Test dumper export limited by chunk size'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-chunksize.zip')
+
+        when: 'Export without row limit'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+        ddExport.setExportChunkSize(1)
+
+        then: 'small tables are stored in one data file'
+        ddExport.runExport()
+        List<String> list = SpecDatbaseUtil.getZipContent(testContent)
+        list.contains('ACCESSDATA.xml')
+        list.contains('DBUSER.xml')
+        ! list.contains('ACCESSDATA_1.xml')
+        ! list.contains('DBUSER_1.xml')
+    }
+
+    def 'Test dumper export with fetch size'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-fetchsize.zip')
+        Sql sql = getPreparedSql()
+        createValueData(sql)
+
+        when: 'Export with two rows per round-trip'
+        DatabaseDumper ddExport = createDumper(testContent)
+        ddExport.setExportFetchSize(2)
+
+        then: 'the import restores all values'
+        roundTrip(ddExport, createDumper(testContent), ['VALUEDATA'])
+        SpecDatbaseUtil.getZipContent(testContent).containsAll(['ACCESSDATA.xml', 'VALUEDATA.xml'])
+
+        cleanup:
+        sql?.execute('DROP TABLE VALUEDATA')
+        sql?.close()
+    }
+
+    def 'Test dumper binary format'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-binary.zip')
+        Sql sql = getPreparedSql()
+        createValueData(sql)
+
+        when: 'Export with binary data files and import them'
+        DatabaseDumper ddExport = createDumper(testContent)
+        ddExport.setExportFormat(ArchiveFormat.BINARY)
+        boolean restored = roundTrip(ddExport, createDumper(testContent), ['VALUEDATA'])
+        List<String> list = SpecDatbaseUtil.getZipContent(testContent)
+
+        then: 'the import detects the binary data files and restores all values'
+        restored
+        list.containsAll(['ACCESSDATA.bin', 'VALUEDATA.bin', 'metadata/ACCESSDATA.xml'])
+        ! list.contains('ACCESSDATA.xml')
+
+        cleanup:
+        sql?.execute('DROP TABLE VALUEDATA')
+        sql?.close()
+    }
+
+    def 'Test dumper export with compression codecs'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-compression.zip')
+        Sql sql = getPreparedSql()
+        createValueData(sql)
+
+        when: 'Export with zstd and a stored table and import the data files'
+        DatabaseDumper ddExport = createDumper(testContent)
+        ddExport.setExportCompression(CompressionCodec.forName('zstd'), CompressionCodec.forTables('dbuser=stored'))
+        boolean restored = roundTrip(ddExport, createDumper(testContent), ['VALUEDATA'])
+        List<String> list = SpecDatbaseUtil.getZipContent(testContent)
+
+        then: 'the import detects the compression of the data files and restores all values'
+        restored
+        list.containsAll(['ACCESSDATA.xml.zst', 'VALUEDATA.xml.zst', 'DBUSER.xml', 'metadata/ACCESSDATA.xml'])
+
+        cleanup:
+        sql?.execute('DROP TABLE VALUEDATA')
+        sql?.close()
+    }
+
+    def 'Test dumper parallel compression'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-parallel-compression.zip')
+
+        when: 'Export with four workers, which compress the data files'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 1000, Collections.<String>emptyList())
+        ddExport.setExportThreads(4)
+
+        then: 'Data files are valid deflated entries'
+        ddExport.runExport()
+        ZipFile zipFile = new ZipFile(testContent)
+        ZipEntry entry = zipFile.getEntry('ACCESSDATA.xml')
+        entry.method == ZipEntry.DEFLATED
+        entry.compressedSize < entry.size
+        zipFile.getInputStream(entry).text.contains('<dataTable')
+
+        cleanup:
+        zipFile?.close()
+    }
+
+    def 'Test dumper directory and volume layout'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testDirectory = new File(testDir, 'testdump')
+        File testVolumes = new File(testDir, 'testdump.zip')
+        Sql sql = getPreparedSql()
+        int accessRows = sql.rows('select APP_ID from ACCESSDATA').size()
+
+        when: 'Export into a directory'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testDirectory, 0, Collections.<String>emptyList())
+        ddExport.setExportLayout(ArchiveLayout.DIRECTORY, 0)
+
+        then:
+        ddExport.runExport()
+        new File(testDirectory, 'ACCESSDATA.xml.gz').isFile()
+        new File(testDirectory, 'metadata/ACCESSDATA.xml').isFile()
+
+        when: 'Export into volumes'
+        DatabaseDumper ddVolumes = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testVolumes, 0, Collections.<String>emptyList())
+        ddVolumes.setExportLayout(ArchiveLayout.ZIP, 1)
+
+        then:
+        ddVolumes.runExport()
+        ! testVolumes.exists()
+        new File(testDir, 'testdump.001.zip').isFile()
+
+        when: 'Import detects the layout'
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        boolean directoryImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testDirectory, 0, Collections.<String>emptyList()).runImport()
+        int directoryRows = sql.rows('select APP_ID from ACCESSDATA').size()
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        boolean volumeImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testVolumes, 0, Collections.<String>emptyList()).runImport()
+
+        then:
+        directoryImport
+        directoryRows == accessRows
+        volumeImport
+        sql.rows('select APP_ID from ACCESSDATA').size() == accessRows
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper parallel import'() {
+        given: 'a table with the name of a chunk of another table'
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-parallel-import.zip')
+        Sql sql = getPreparedSql()
+        sql.execute('CREATE TABLE CHUNKDATA(CODE VARCHAR(20) NOT NULL, PRIMARY KEY (CODE))')
+        sql.execute('CREATE TABLE CHUNKDATA_1(NAME VARCHAR(20) NOT NULL, PRIMARY KEY (NAME))')
+        ['a1', 'a2', 'a3'].each { sql.execute("INSERT INTO CHUNKDATA(CODE) VALUES ('${it}')".toString()) }
+        ['b1', 'b2'].each { sql.execute("INSERT INTO CHUNKDATA_1(NAME) VALUES ('${it}')".toString()) }
+
+        when: 'Export one row per data file and import with four workers'
+        DatabaseDumper ddImport = createDumper(testContent)
+        ddImport.setImportThreads(4)
+        boolean restored = roundTrip(createDumper(testContent, 1), ddImport)
+        Map<String, String> entries = readEntryTables(testContent)
+
+        then: 'each data file belongs to one table'
+        restored
+        entries.count { it.value == 'ACCESSDATA' } == 8
+        entries.count { it.value == 'CHUNKDATA' } == 3
+        entries.count { it.value == 'CHUNKDATA_1' } == 2
+        entries['CHUNKDATA_1.xml'] in ['CHUNKDATA', 'CHUNKDATA_1']
+
+        and: 'the import writes each data file into its own table'
+        sql.rows('select CODE from CHUNKDATA order by CODE')*.CODE == ['a1', 'a2', 'a3']
+        sql.rows('select NAME from CHUNKDATA_1 order by NAME')*.NAME == ['b1', 'b2']
+
+        cleanup:
+        sql?.execute('DROP TABLE CHUNKDATA_1')
+        sql?.execute('DROP TABLE CHUNKDATA')
+        sql?.close()
+    }
+
+    def 'Test dumper streaming import in batches'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-streaming-import.zip')
+
+        when: 'Export chunks of two rows, remove the manifest and import in batches of one row'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 2, Collections.<String>emptyList()) {
+            @Override
+            boolean runExport() {
+                return super.runExport() && removeManifest(testContent)
+            }
+        }
+        boolean restored = roundTrip(ddExport, createDumper(testContent, 1))
+        List<String> list = SpecDatbaseUtil.getZipContent(testContent)
+
+        then: 'the rows of each data file are written while the data file is read'
+        restored
+        ! list.contains(DatabaseDumper.MANIFEST_NAME)
+        list.containsAll(['DBUSER.xml', 'DBUSER_1.xml', 'ACCESSDATA.xml', 'ACCESSDATA_3.xml'])
+    }
+
+    def 'Test dumper import of null values and large objects'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, "testfile-values-${format}-${loader}.zip")
+        Sql sql = getPreparedSql()
+        createValueData(sql)
+
+        when: 'Export the values and import them with the loader'
+        DatabaseDumper ddExport = createDumper(testContent)
+        ddExport.setExportFormat(format)
+        DatabaseDumper ddImport = createDumper(testContent)
+        ddImport.setImportLoader(loader)
+
+        then: 'the import restores all values'
+        roundTrip(ddExport, ddImport, ['VALUEDATA'])
+
+        cleanup:
+        sql?.execute('DROP TABLE VALUEDATA')
+        sql?.close()
 
+        where:
+        [format, loader] << [[ArchiveFormat.XML, ArchiveFormat.BINARY], ImportLoader.values().toList()].combinations()
+    }
+
+    def 'Test dumper XML import keeps the text of values'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-xml-values.zip')
+        Sql sql = getPreparedSql()
+        sql.execute("UPDATE ACCESSDATA SET ROLENAME = '  Admin\tRole ' WHERE APP_ID = 1")
+
+        when: 'Export with XML data files'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then:
+        ddExport.runExport()
+
+        when: 'Import reads the values with the stream reader'
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        DatabaseDumper ddImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then:
+        ddImport.runImport()
+        sql.firstRow('select ROLENAME from ACCESSDATA where APP_ID = 1').ROLENAME == '  Admin\tRole '
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper import with each loader'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, "testfile-loader-${loader}.zip")
+
+        when: 'Export chunks of two rows and import them with the loader in batches of one row'
+        DatabaseDumper ddImport = createDumper(testContent, 1)
+        ddImport.setImportLoader(loader)
+
+        then: 'each loader restores the content of the export'
+        roundTrip(createDumper(testContent, 2), ddImport)
+
+        where:
+        loader << [ImportLoader.BULK, ImportLoader.BATCH, ImportLoader.MULTIROW]
+    }
+
+    def 'Test dumper import with index rebuild'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-index-rebuild.zip')
+        Sql sql = getPreparedSql()
+        sql.execute('CREATE INDEX IDX_APPNAME ON ACCESSDATA(APPNAME)')
+        int accessRows = sql.rows('select APP_ID from ACCESSDATA').size()
+
+        when: 'Export'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then:
+        ddExport.runExport()
+
+        when: 'Import disables and rebuilds the index'
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        DatabaseDumper ddImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+        ddImport.setImportIndexRebuild(true, Collections.<String>emptySet())
+
+        then:
+        ddImport.runImport()
+        sql.rows('select APP_ID from ACCESSDATA where APPNAME is not null').size() == accessRows
+        readIndexes(sql, 'ACCESSDATA').contains('IDX_APPNAME')
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper import resets the tables with several delete workers'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-delete-workers.zip')
+        Sql sql = getPreparedSql()
+        int userRows = sql.rows('select USER_ID from DBUSER').size()
+        int accessRows = sql.rows('select APP_ID from ACCESSDATA').size()
+
+        when: 'Export'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then:
+        ddExport.runExport()
+
+        when: 'Import replaces the changed content'
+        sql.execute("INSERT INTO DBUSER(USER_ID, USERNAME, CREATED_BY) VALUES (999, 'Removed', 'system')")
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        DatabaseDumper ddImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+        ddImport.setImportDeleteThreads(2)
+
+        then:
+        ddImport.runImport()
+        sql.rows('select USER_ID from DBUSER').size() == userRows
+        sql.rows('select APP_ID from ACCESSDATA').size() == accessRows
+        sql.rows('select USER_ID from DBUSER where USER_ID = 999').isEmpty()
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper import with deferred constraint validation'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-deferred-validation.zip')
+        Sql sql = getPreparedSql()
+
+        when: 'Import enables the constraints without a check and validates them afterwards'
+        DatabaseDumper ddImport = createDumper(testContent)
+        ddImport.setImportDeferredValidation(true)
+        boolean restored = roundTrip(createDumper(testContent), ddImport)
+
+        then:
+        restored
+
+        when: 'A row violates the foreign key'
+        sql.execute("INSERT INTO ACCESSDATA(APP_ID, USER_ID, APPNAME, ROLENAME, CREATED_BY) VALUES (999, 999, 'Invalid', 'Role', 'system')")
+
+        then: 'the constraint is enabled again'
+        thrown(SQLException)
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper import in the order of the foreign keys'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-dependency-order.zip')
+        File journal = new File(testContent.path + '.import.journal')
+
+        when: 'Import DBUSER before ACCESSDATA with a broken data file of ACCESSDATA'
+        DatabaseDumper ddExport = createDumper(testContent, 1)
+        boolean exported = ddExport.runExport() && replaceEntries(testContent, ['ACCESSDATA_7.xml': 'broken'.bytes])
+        DatabaseDumper ddImport = createDumper(testContent)
+        ddImport.setImportDependencyOrder(true)
+        ddImport.setImportThreads(2)
+        boolean imported = ddImport.runImport()
+        List<String> lines = journal.readLines()
+
+        then: 'the journal of the failed import lists the waves'
+        exported
+        ! imported
+        lines.contains('wave\t0\tDBUSER')
+        lines.contains('wave\t1\tACCESSDATA')
+
+        and: 'all data files of DBUSER are imported before the first data file of ACCESSDATA starts'
+        lines.count { it.startsWith('imported\t') && it.endsWith('\tDBUSER') } == 4
+        lines.findLastIndexOf { it.startsWith('imported\t') && it.endsWith('\tDBUSER') } <
+                lines.findIndexOf { it.startsWith('start\t') && it.endsWith('\tACCESSDATA') }
+    }
+
+    def 'Test dumper import stops for a target table with missing columns'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-validation.zip')
+        Sql sql = getPreparedSql()
+
+        when: 'Export'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then:
+        ddExport.runExport()
+
+        when: 'The target table has no column ROLENAME'
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        sql.execute("ALTER TABLE ACCESSDATA DROP COLUMN ROLENAME")
+        int accessRows = sql.rows('select APP_ID from ACCESSDATA').size()
+        DatabaseDumper ddImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then: 'Import is aborted'
+        ddImport.runImport()
+        sql.rows('select APP_ID from ACCESSDATA').size() == accessRows
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper export writes a manifest'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-manifest.zip')
+        Sql sql = getPreparedSql()
+        int userRows = sql.rows('select USER_ID from DBUSER').size()
+
+        when: 'Export'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 0, Collections.<String>emptyList())
+
+        then:
+        ddExport.runExport()
+
+        when:
+        ZipFile zipFile = new ZipFile(testContent)
+        List<ZipEntry> entries = Collections.list(zipFile.entries())
+        def manifest = new XmlSlurper().parse(zipFile.getInputStream(zipFile.getEntry(DatabaseDumper.MANIFEST_NAME)))
+        ByteArrayOutputStream stat = new ByteArrayOutputStream()
+
+        then: 'The manifest is the last entry'
+        entries.last().name == DatabaseDumper.MANIFEST_NAME
+        manifest.table*.text().containsAll(['DBUSER', 'ACCESSDATA'])
+        manifest.entry.findAll { it.table.text() == 'DBUSER' }.sum { it.rows.text() as long } == userRows
+        manifest.entry.every { zipFile.getEntry(it.name.text()).size == (it.size.text() as long) }
+        ddExport.runStat(new PrintStream(stat, true))
+        stat.toString().contains('DBUSER')
+
+        cleanup:
+        zipFile?.close()
+        sql?.close()
+    }
+
+    def 'Test dumper import reads the entries of a package at the same time'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, "testfile-${codec.replace(':', '')}-entries.zip")
+        Sql sql = getPreparedSql()
+        List<GroovyRowResult> rows = sql.rows('select * from ACCESSDATA order by APP_ID')
+
+        when: 'Export with one data file for each row'
+        DatabaseDumper ddExport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 1, Collections.<String>emptyList())
+        ddExport.setExportCompression(CompressionCodec.forName(codec), Collections.<String, CompressionCodec>emptyMap())
+
+        then:
+        ddExport.runExport()
+
+        when: 'Import with several workers'
+        sql.execute("DELETE FROM ACCESSDATA WHERE APP_ID = 1")
+        DatabaseDumper ddImport = new DatabaseDumper(getJDBCURL(), getJDBCUser(), getJDBCPassword(), testContent, 1, Collections.<String>emptyList())
+        ddImport.setImportThreads(4)
+
+        then:
+        ddImport.runImport()
+        sql.rows('select * from ACCESSDATA order by APP_ID') == rows
+
+        cleanup:
+        sql?.close()
+
+        where:
+        codec << ['stored', 'zstd', 'deflate:6']
+    }
+
+    def 'Test dumper export resumes an interrupted export with its journal'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-resume.zip')
+        File journal = new File(testContent.path + '.journal')
+        Sql sql = getPreparedSql()
+        List<GroovyRowResult> content = readContent(sql)
+
+        when: 'An export stops after its first table and both tables are changed'
+        boolean exported = createDumper(testContent, 1).runExport()
+        String completed = interruptExport(testContent)
+        sql.execute("UPDATE DBUSER SET USERNAME = 'changed'")
+        sql.execute("UPDATE ACCESSDATA SET APPNAME = 'changed'")
+        DatabaseDumper ddResume = createDumper(testContent, 1)
+        ddResume.setExportResume(true)
+        boolean resumed = ddResume.runExport()
+        Map<String, Long> entries = readEntryRows(testContent)
+
+        then: 'the resumed package is complete'
+        exported
+        resumed
+        ! journal.exists()
+        ! testDir.listFiles().any { it.name.endsWith('.partial') }
+        entries.findAll { it.key.startsWith('DBUSER') }.values().sum() == 4L
+        entries.findAll { it.key.startsWith('ACCESSDATA') }.values().sum() == 8L
+
+        when: 'Import the resumed package'
+        boolean imported = createDumper(testContent).runImport()
+        List<GroovyRowResult> restored = readContent(sql)
+
+        then: 'the completed table is copied from the interrupted package, the other table is read again'
+        imported
+        restored.size() == content.size()
+        restored.findAll { it.containsKey('APPNAME') }.every { (it.APPNAME == 'changed') == (completed != 'ACCESSDATA') }
+        restored.findAll { ! it.containsKey('APPNAME') }.every { (it.USERNAME == 'changed') == (completed != 'DBUSER') }
+
+        cleanup:
+        sql?.close()
+    }
+
+    def 'Test dumper import resumes an interrupted import with its journal'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-resume-import.zip')
+        File journal = new File(testContent.path + '.import.journal')
+        Sql sql = getPreparedSql()
+        List<GroovyRowResult> rows = sql.rows('select * from ACCESSDATA order by APP_ID')
+
+        when: 'An import stops at a broken data file of ACCESSDATA after DBUSER is imported'
+        boolean exported = createDumper(testContent, 1).runExport()
+        ZipFile zipFile = new ZipFile(testContent)
+        byte[] dataFile = zipFile.getInputStream(zipFile.getEntry('ACCESSDATA_7.xml')).bytes
+        zipFile.close()
+        replaceEntries(testContent, ['ACCESSDATA_7.xml': 'broken'.bytes])
+        DatabaseDumper ddImport = createDumper(testContent)
+        ddImport.setImportDependencyOrder(true)
+        boolean interrupted = ! ddImport.runImport()
+
+        then:
+        exported
+        interrupted
+        journal.readLines().count { it.startsWith('imported\t') && it.endsWith('\tDBUSER') } == 4
+
+        when: 'The import is resumed with the repaired data file'
+        sql.execute("UPDATE DBUSER SET USERNAME = 'changed'")
+        replaceEntries(testContent, ['ACCESSDATA_7.xml': dataFile])
+        DatabaseDumper ddResume = createDumper(testContent)
+        ddResume.setImportDependencyOrder(true)
+        ddResume.setImportResume(true)
+
+        then: 'the imported data files are skipped and the interrupted table is imported again'
+        ddResume.runImport()
+        ! journal.exists()
+        sql.rows("select USER_ID from DBUSER where USERNAME <> 'changed'").isEmpty()
+        sql.rows('select * from ACCESSDATA order by APP_ID') == rows
+
+        cleanup:
+        zipFile?.close()
+        sql?.close()
+    }
+
+    def 'Test dumper exports and imports the largest tables first'() {
+        given:
+        prepareDatabase()
+        testDir.mkdir()
+        File testContent = new File(testDir, 'testfile-largest.zip')
+
+        when: 'Export with two workers, the dominating table is split without the minimum rows'
+        DatabaseDumper ddExport = createDumper(testContent, 1)
+        ddExport.setExportThreads(2)
+        ddExport.setExportPartitions(2, 1000000)
+        DatabaseDumper ddImport = createDumper(testContent, 1)
+        ddImport.setImportThreads(4)
+        boolean restored = roundTrip(ddExport, ddImport)
+        Map<String, Long> entries = readEntryRows(testContent)
+        Map<String, Long> accessEntries = entries.findAll { it.key.startsWith('ACCESSDATA') }
+        List<List<Integer>> accessKeys = accessEntries.keySet().collect { readFirstColumn(testContent, it)*.toInteger() }
+
+        then: 'the eight rows of ACCESSDATA are read in two ranges'
+        restored
+        ! accessEntries.containsKey('ACCESSDATA.xml')
+        accessEntries.keySet() == (0..7).collect { "ACCESSDATA_${it}.xml".toString() } as Set
+        accessEntries.values().sum() == 8L
+        accessKeys.flatten().sort() == (1..8).toList()
+
+        and: 'the four rows of DBUSER are not split'
+        entries.containsKey('DBUSER.xml')
+        entries.findAll { it.key.startsWith('DBUSER') }.values().sum() == 4L
+    }
 }
@@ -59,6 +59,10 @@ class MSSQLDatabaseDumperSpec extends DatabaseDumperSpec {
         return System.properties['mssqlJDBCPassword']
     }
 
+    Map<String, String> getValueTypes() {
+        return [decimal: 'DECIMAL(12,4)', timestamp: 'DATETIME2(3)', blob: 'VARBINARY(MAX)', clob: 'VARCHAR(MAX)']
+    }
+
     Sql getPreparedSql() {
         return Sql.newInstance(getJDBCURL(), getJDBCUser(), getJDBCPassword(), "com.microsoft.sqlserver.jdbc.SQLServerDriver")
     }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks the parsing of the codec configurations.
+ */
+public class CompressionCodecTest
+{
+    @Test
+    public void testLevels()
+    {
+        assertEquals("deflate:6", CompressionCodec.forName("deflate").toString());
+        assertEquals("deflate:0", CompressionCodec.forName("deflate:0").toString());
+        assertEquals("zstd:3", CompressionCodec.forName("zstd").toString());
+        assertEquals("zstd:22", CompressionCodec.forName(" ZSTD : 22 ").toString());
+        assertEquals("stored", CompressionCodec.forName("stored").toString());
+        assertEquals("lz4", CompressionCodec.forName("lz4").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStoredWithLevel()
+    {
+        CompressionCodec.forName("stored:1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLz4WithLevel()
+    {
+        CompressionCodec.forName("lz4:5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZstdLevelTooHigh()
+    {
+        CompressionCodec.forName("zstd:99");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZstdLevelTooLow()
+    {
+        CompressionCodec.forName("zstd:0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDeflateLevelTooHigh()
+    {
+        CompressionCodec.forName("deflate:10");
+    }
+}
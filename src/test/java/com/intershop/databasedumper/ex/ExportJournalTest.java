@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.intershop.databasedumper.meta.ManifestEntry;
+
+/**
+ * Checks the ranges of a resumed export, which are
+ * read from the journal of the interrupted export.
+ */
+public class ExportJournalTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRangesAreResumed() throws IOException
+    {
+        File content = new File(folder.getRoot(), "dump.zip");
+        List<ExportRange> ranges = Arrays.asList(
+                        new ExportRange("ID < ?", new BigDecimal("12.50")),
+                        new ExportRange("ID >= ? and ID < ?", new BigDecimal("12.50"), 100L),
+                        new ExportRange("NAME >= ? and CREATED < ?", "a\tb\\c\nd", Timestamp.valueOf("2017-03-01 12:34:56.789")));
+        try (ExportJournal journal = new ExportJournal(content))
+        {
+            assertFalse(journal.read());
+            journal.open();
+            journal.addRanges("ACCESSDATA", ranges);
+            journal.addEntry("ACCESSDATA", ranges.get(2), createEntry("ACCESSDATA_0.xml"));
+            journal.complete("ACCESSDATA", ranges.get(2));
+        }
+
+        ExportJournal resumed = new ExportJournal(content);
+        assertTrue(resumed.read());
+        List<ExportRange> read = resumed.getRanges("ACCESSDATA");
+        assertEquals(ranges.size(), read.size());
+        for (int i = 0; i < ranges.size(); ++i)
+        {
+            assertEquals(ranges.get(i).getCondition(), read.get(i).getCondition());
+            assertEquals(ranges.get(i).getParameters(), read.get(i).getParameters());
+        }
+        assertFalse(resumed.isComplete("ACCESSDATA", read.get(0)));
+        assertTrue(resumed.isComplete("ACCESSDATA", read.get(2)));
+        assertEquals(1, resumed.getEntries().size());
+        assertEquals(1, resumed.getNextSuffix("ACCESSDATA"));
+    }
+
+    @Test
+    public void testUnreadableRangeReadsTableCompletely() throws IOException
+    {
+        File content = new File(folder.getRoot(), "dump.zip");
+        Files.write(new File(content.getPath() + ".journal").toPath(), String.join("\n",
+                        "range\tACCESSDATA\t0\trO0ABXNyACljb20uaW50ZXJzaG9w",
+                        "range\tACCESSDATA\t1\tID >= ?\tD10",
+                        "entry\tACCESSDATA\t1\tACCESSDATA_0.xml\t10\t100\tabc",
+                        "done\tACCESSDATA\t1",
+                        "entry\tDBUSER\t-1\tDBUSER.xml\t10\t100\tabc",
+                        "table\tDBUSER",
+                        "").getBytes(StandardCharsets.UTF_8));
+
+        ExportJournal resumed = new ExportJournal(content);
+        assertTrue(resumed.read());
+        assertTrue(resumed.getRanges("ACCESSDATA").isEmpty());
+        assertFalse(resumed.isComplete("ACCESSDATA"));
+        assertTrue(resumed.isComplete("DBUSER"));
+        assertEquals(1, resumed.getEntries().size());
+        assertEquals("DBUSER.xml", resumed.getEntries().get(0).getName());
+    }
+
+    private static ManifestEntry createEntry(final String name)
+    {
+        ManifestEntry entry = new ManifestEntry();
+        entry.setName(name);
+        entry.setRows(10);
+        entry.setSize(100);
+        entry.setChecksum("abc");
+        return entry;
+    }
+}
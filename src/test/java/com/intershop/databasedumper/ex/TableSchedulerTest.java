@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.ex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Checks the order of the tables by the estimates of a
+ * connection, which returns the given table sizes.
+ */
+public class TableSchedulerTest
+{
+    @Test
+    public void testOrderByRows()
+    {
+        TableScheduler scheduler = new TableScheduler();
+        scheduler.readEstimates(SupportedDatabase.H2, createConnection(Arrays.asList(
+                        new Object[] { "SMALL", 10L, 0L },
+                        new Object[] { "LARGE", 1000L, 0L },
+                        new Object[] { "MEDIUM", 100L, 0L })));
+
+        List<Table> ordered = scheduler.order(createTables("SMALL", "MEDIUM", "LARGE"));
+
+        assertEquals(Arrays.asList("LARGE", "MEDIUM", "SMALL"), getNames(ordered));
+        assertTrue(scheduler.isDominant("LARGE", 2));
+        assertFalse(scheduler.isDominant("MEDIUM", 2));
+        assertFalse(scheduler.isDominant("LARGE", 1));
+    }
+
+    @Test
+    public void testOrderByBytes()
+    {
+        TableScheduler scheduler = new TableScheduler();
+        scheduler.readEstimates(SupportedDatabase.ORACLE, createConnection(Arrays.asList(
+                        new Object[] { "NARROW", 1000L, 1000L },
+                        new Object[] { "WIDE", 10L, 100000L })));
+
+        List<Table> ordered = scheduler.order(createTables("NARROW", "WIDE"));
+
+        assertEquals(Arrays.asList("WIDE", "NARROW"), getNames(ordered));
+        assertTrue(scheduler.isDominant("WIDE", 2));
+        assertFalse(scheduler.isDominant("NARROW", 2));
+    }
+
+    @Test
+    public void testOrderWithoutEstimates()
+    {
+        TableScheduler scheduler = new TableScheduler();
+        scheduler.readEstimates(null, createConnection(Collections.emptyList()));
+
+        List<Table> ordered = scheduler.order(createTables("B", "A", "C"));
+
+        assertEquals(Arrays.asList("B", "A", "C"), getNames(ordered));
+        assertFalse(scheduler.isDominant("B", 2));
+    }
+
+    @Test
+    public void testLargestWaitingTaskFirst() throws Exception
+    {
+        TableScheduler scheduler = new TableScheduler();
+        scheduler.readEstimates(SupportedDatabase.H2, createConnection(Arrays.asList(
+                        new Object[] { "SMALL", 10L, 0L },
+                        new Object[] { "LARGE", 1000L, 0L })));
+        List<Table> tables = scheduler.order(createTables("SMALL", "LARGE"));
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+
+        ExecutorService executor = scheduler.newExecutor(1);
+        try
+        {
+            // the only worker is busy, until all tasks are waiting
+            executor.submit(() -> {
+                blocked.await();
+                return null;
+            });
+            List<Future<?>> results = new ArrayList<>();
+            results.add(executor.submit(scheduler.tableTask(tables.get(1), () -> {
+                started.add("SMALL");
+                return null;
+            })));
+            results.add(executor.submit(scheduler.rangeTask(tables.get(0), 2, () -> {
+                started.add("LARGE");
+                return null;
+            })));
+            blocked.countDown();
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(Arrays.asList("LARGE", "SMALL"), started);
+    }
+
+    private static List<Table> createTables(final String... names)
+    {
+        List<Table> tables = new ArrayList<>();
+        for (String name : names)
+        {
+            Table table = new Table();
+            table.setName(name);
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    private static List<String> getNames(final List<Table> tables)
+    {
+        return tables.stream().map(Table::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a connection, which returns the
+     * rows of name, rows and bytes for each query.
+     */
+    private Connection createConnection(final List<Object[]> rows)
+    {
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("prepareStatement"))
+                            {
+                                return createStatement(rows);
+                            }
+                            return defaultValue(method.getReturnType());
+                        });
+    }
+
+    private PreparedStatement createStatement(final List<Object[]> rows)
+    {
+        return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("executeQuery"))
+                            {
+                                return createResultSet(rows.iterator());
+                            }
+                            return defaultValue(method.getReturnType());
+                        });
+    }
+
+    private ResultSet createResultSet(final Iterator<Object[]> rows)
+    {
+        Object[][] row = new Object[1][];
+        return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("next"))
+                            {
+                                row[0] = rows.hasNext() ? rows.next() : null;
+                                return row[0] != null;
+                            }
+                            if (method.getName().equals("getString") || method.getName().equals("getLong"))
+                            {
+                                return row[0][(Integer)args[0] - 1];
+                            }
+                            return defaultValue(method.getReturnType());
+                        });
+    }
+
+    private static Object defaultValue(final Class<?> type)
+    {
+        if (type == boolean.class)
+        {
+            return false;
+        }
+        if (type == int.class)
+        {
+            return 0;
+        }
+        if (type == long.class)
+        {
+            return 0L;
+        }
+        return null;
+    }
+}
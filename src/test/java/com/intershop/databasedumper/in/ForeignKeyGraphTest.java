@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Checks the waves of the foreign key graph
+ * with chains, cycles and self references.
+ */
+public class ForeignKeyGraphTest
+{
+    @Test
+    public void testChainIsImportedInWaves()
+    {
+        Map<String, Set<String>> references = new HashMap<>();
+        references.put("ACCESSDATA", set("DBUSER"));
+        references.put("ACCESSLOG", set("ACCESSDATA", "DBUSER"));
+
+        ForeignKeyGraph graph = new ForeignKeyGraph(set("ACCESSLOG", "ACCESSDATA", "DBUSER", "DOMAIN"), references);
+
+        assertEquals(Arrays.asList(set("DBUSER", "DOMAIN"), set("ACCESSDATA"), set("ACCESSLOG")), graph.getWaves());
+        assertTrue(graph.getCyclicTables().isEmpty());
+    }
+
+    @Test
+    public void testCycleIsImportedInOneWave()
+    {
+        Map<String, Set<String>> references = new HashMap<>();
+        references.put("ORDERS", set("CUSTOMER"));
+        references.put("CUSTOMER", set("ORDERS", "ADDRESS"));
+        references.put("CATEGORY", set("CATEGORY"));
+
+        ForeignKeyGraph graph = new ForeignKeyGraph(set("ORDERS", "CUSTOMER", "ADDRESS", "CATEGORY"), references);
+
+        List<Set<String>> waves = graph.getWaves();
+        assertEquals(Arrays.asList(set("ADDRESS", "CATEGORY"), set("CUSTOMER", "ORDERS")), waves);
+        assertEquals(set("CATEGORY", "CUSTOMER", "ORDERS"), graph.getCyclicTables());
+    }
+
+    @Test
+    public void testReferencesOutsideOfTheImportAreIgnored()
+    {
+        ForeignKeyGraph graph = new ForeignKeyGraph(set("ACCESSDATA"),
+                        Collections.singletonMap("ACCESSDATA", set("DBUSER")));
+
+        assertEquals(Collections.singletonList(set("ACCESSDATA")), graph.getWaves());
+        assertTrue(graph.getCyclicTables().isEmpty());
+    }
+
+    private static Set<String> set(final String... tableNames)
+    {
+        return new HashSet<>(Arrays.asList(tableNames));
+    }
+}
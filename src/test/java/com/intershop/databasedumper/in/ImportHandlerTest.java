@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.intershop.databasedumper.ImportLoader;
+import com.intershop.databasedumper.SupportedDatabase;
+import com.intershop.databasedumper.meta.Column;
+import com.intershop.databasedumper.meta.Table;
+
+/**
+ * Checks the statements of the constraint handling and the
+ * loaders with the profiles of the supported databases. The
+ * statements are recorded by a connection, which returns
+ * the given rows for each query.
+ */
+public class ImportHandlerTest
+{
+    private final List<String> statements = new ArrayList<>();
+
+    @Test
+    public void testOracleEnablesConstraintsWithoutValidation() throws Exception
+    {
+        ImportHandler handler = createHandler(SupportedDatabase.ORACLE);
+        Connection con = createConnection(Collections.emptyList());
+
+        assertTrue(handler.enableConstraintNoValidate(con, "ACCESSDATA", "FK_USER"));
+        handler.validateConstraint(con, "ACCESSDATA", "FK_USER");
+
+        assertEquals(Arrays.asList("alter table ACCESSDATA enable novalidate constraint FK_USER",
+                        "alter table ACCESSDATA enable validate constraint FK_USER"), statements);
+    }
+
+    @Test
+    public void testMSSQLEnablesConstraintsWithoutCheck() throws Exception
+    {
+        ImportHandler handler = createHandler(SupportedDatabase.MSSQL);
+        Connection con = createConnection(Collections.emptyList());
+
+        assertTrue(handler.enableConstraintNoValidate(con, "ACCESSDATA", "FK_USER"));
+        handler.validateConstraint(con, "ACCESSDATA", "FK_USER");
+
+        assertEquals(Arrays.asList("alter table ACCESSDATA with nocheck check constraint FK_USER",
+                        "alter table ACCESSDATA with check check constraint FK_USER"), statements);
+    }
+
+    @Test
+    public void testH2EnablesConstraintsWithValidation() throws Exception
+    {
+        ImportHandler handler = createHandler(SupportedDatabase.H2);
+        Connection con = createConnection(Collections.emptyList());
+
+        assertFalse(handler.enableConstraintNoValidate(con, "ACCESSDATA", "FK_USER"));
+
+        assertEquals(Collections.singletonList("alter table ACCESSDATA set REFERENTIAL_INTEGRITY TRUE"), statements);
+    }
+
+    @Test
+    public void testConstraintsOfMixedCaseTables() throws Exception
+    {
+        ImportHandler handler = createHandler(SupportedDatabase.MSSQL);
+        Connection con = createConnection(Collections.singletonList(new String[] { "AccessData", "FK_USER", "dbuser" }));
+        Map<String, Set<String>> constraints = new HashMap<>();
+        Map<String, Set<String>> references = new HashMap<>();
+
+        handler.readConstraints(con, new HashSet<>(Arrays.asList("ACCESSDATA", "DBUSER")), constraints, references);
+
+        assertEquals(Collections.singleton("FK_USER"), constraints.get("ACCESSDATA"));
+        assertEquals(Collections.singleton("DBUSER"), references.get("ACCESSDATA"));
+        assertTrue(constraints.get("DBUSER").isEmpty());
+    }
+
+    @Test
+    public void testConstraintsToAnotherScheme() throws Exception
+    {
+        ImportHandler handler = createHandler(SupportedDatabase.ORACLE);
+        Connection con = createConnection(Collections.singletonList(new String[] { "ACCESSDATA", "FK_REMOTE", null }));
+        Map<String, Set<String>> constraints = new HashMap<>();
+        Map<String, Set<String>> references = new HashMap<>();
+
+        handler.readConstraints(con, Collections.singleton("ACCESSDATA"), constraints, references);
+
+        assertEquals(Collections.singleton("FK_REMOTE"), constraints.get("ACCESSDATA"));
+        assertTrue(references.get("ACCESSDATA").isEmpty());
+    }
+
+    @Test
+    public void testOracleLoaders() throws Exception
+    {
+        ImportHandler handler = createHandler(SupportedDatabase.ORACLE);
+        Connection con = createConnection(Collections.emptyList());
+
+        assertTrue(handler.openSink(createTable(), con) instanceof BatchInsert);
+        handler.setLoader(ImportLoader.BULK);
+        assertTrue(handler.openSink(createTable(), con) instanceof BatchInsert);
+        handler.setLoader(ImportLoader.MULTIROW);
+        assertTrue(handler.openSink(createTable(), con) instanceof MultiRowInsert);
+
+        // the default loader inserts without hint, the bulk loader appends the rows with the hint of the database
+        assertEquals(Arrays.asList("insert into ACCESSDATA(APP_ID,APPNAME)values(?,?)",
+                        "insert /*+ APPEND_VALUES */ into ACCESSDATA(APP_ID,APPNAME)values(?,?)"), statements);
+    }
+
+    @Test
+    public void testH2Loaders() throws Exception
+    {
+        ImportHandler handler = createHandler(SupportedDatabase.H2);
+
+        assertTrue(handler.openSink(createTable(), createConnection(Collections.emptyList())) instanceof BatchInsert);
+        handler.setLoader(ImportLoader.BULK);
+        assertTrue(handler.openSink(createTable(), createConnection(Collections.emptyList())) instanceof H2CsvLoad);
+        // a remote database can not read the CSV files of the import
+        assertTrue(handler.openSink(createTable(), createConnection(Collections.emptyList(), "jdbc:h2:tcp://localhost/test")) instanceof BatchInsert);
+    }
+
+    private static Table createTable()
+    {
+        Table table = new Table();
+        table.setName("ACCESSDATA");
+        for (String label : new String[] { "APP_ID", "APPNAME" })
+        {
+            Column column = new Column();
+            column.setLabel(label);
+            column.setType(Types.VARCHAR);
+            table.addColumn(column);
+        }
+        return table;
+    }
+
+    private ImportHandler createHandler(final SupportedDatabase database)
+    {
+        return new ImportHandler(null, database, new File("unused.zip"), 0);
+    }
+
+    /**
+     * Creates a connection, which records the prepared statements.
+     * Each query returns the rows.
+     */
+    private Connection createConnection(final List<String[]> rows)
+    {
+        return createConnection(rows, "jdbc:h2:mem:test");
+    }
+
+    private Connection createConnection(final List<String[]> rows, final String url)
+    {
+        DatabaseMetaData metaData = (DatabaseMetaData)Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] { DatabaseMetaData.class },
+                        (proxy, method, args) -> method.getName().equals("getURL") ? url : defaultValue(method.getReturnType()));
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("prepareStatement"))
+                            {
+                                statements.add((String)args[0]);
+                                return createStatement(rows);
+                            }
+                            if (method.getName().equals("getMetaData"))
+                            {
+                                return metaData;
+                            }
+                            return defaultValue(method.getReturnType());
+                        });
+    }
+
+    private PreparedStatement createStatement(final List<String[]> rows)
+    {
+        return (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("executeQuery"))
+                            {
+                                // the query is not a recorded statement
+                                statements.remove(statements.size() - 1);
+                                return createResultSet(rows.iterator());
+                            }
+                            return defaultValue(method.getReturnType());
+                        });
+    }
+
+    private ResultSet createResultSet(final Iterator<String[]> rows)
+    {
+        String[][] row = new String[1][];
+        return (ResultSet)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("next"))
+                            {
+                                row[0] = rows.hasNext() ? rows.next() : null;
+                                return row[0] != null;
+                            }
+                            if (method.getName().equals("getString"))
+                            {
+                                return row[0][(Integer)args[0] - 1];
+                            }
+                            return defaultValue(method.getReturnType());
+                        });
+    }
+
+    private static Object defaultValue(final Class<?> type)
+    {
+        if (type == boolean.class)
+        {
+            return false;
+        }
+        if (type == int.class)
+        {
+            return 0;
+        }
+        if (type == long.class)
+        {
+            return 0L;
+        }
+        return null;
+    }
+}
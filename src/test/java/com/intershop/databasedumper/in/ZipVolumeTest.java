@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Intershop Communications AG.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intershop.databasedumper.in;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks the reads of stored entries, which are larger
+ * than the read buffer, and the check of their CRC.
+ */
+public class ZipVolumeTest
+{
+    private static final String NAME = "DATA.bin.zst";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadStoredEntry() throws Exception
+    {
+        byte[] content = createContent();
+        File file = writeZip(content);
+
+        try (ZipVolume volume = new ZipVolume(file))
+        {
+            assertArrayEquals(content, read(volume));
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testStoredEntryWithWrongCrc() throws Exception
+    {
+        File file = writeZip(createContent());
+        long offset;
+        try (ZipVolume volume = new ZipVolume(file))
+        {
+            offset = volume.getEntry(NAME).getDataOffset();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            // a byte of the second read buffer is changed
+            raf.seek(offset + ZipVolume.READ_BUFFER_SIZE + 1);
+            int value = raf.read();
+            raf.seek(offset + ZipVolume.READ_BUFFER_SIZE + 1);
+            raf.write(value ^ 0xff);
+        }
+
+        try (ZipVolume volume = new ZipVolume(file))
+        {
+            read(volume);
+        }
+    }
+
+    private static byte[] createContent()
+    {
+        byte[] content = new byte[ZipVolume.READ_BUFFER_SIZE * 2 + 1000];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+
+    private File writeZip(final byte[] content) throws IOException
+    {
+        File file = folder.newFile("volume.zip");
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(NAME);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file)))
+        {
+            out.putNextEntry(entry);
+            out.write(content);
+            out.closeEntry();
+        }
+        return file;
+    }
+
+    private static byte[] read(final ZipVolume volume) throws IOException
+    {
+        ZipArchiveEntry entry = volume.getEntry(NAME);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = volume.getInputStream(entry))
+        {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) >= 0)
+            {
+                out.write(buffer, 0, count);
+            }
+        }
+        return out.toByteArray();
+    }
+}